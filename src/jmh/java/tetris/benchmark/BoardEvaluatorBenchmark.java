@@ -0,0 +1,51 @@
+package tetris.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import tetris.model.ai.BoardEvaluator;
+import tetris.model.ai.BoardFeatures;
+import tetris.model.ai.EvaluationCache;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Board scoring on the benchmark fixtures: the plain fused sweep, the cached
+ * path (always a hit after the first call) and per-column feature extraction
+ * used by incremental placement scoring.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BoardEvaluatorBenchmark {
+
+    @Param({"EMPTY", "MID_GAME", "NEAR_TOP_OUT", "WIDE", "TALL"})
+    public BoardFixture fixture;
+
+    private int[][] cells;
+    private BoardEvaluator evaluator;
+    private BoardEvaluator cachedEvaluator;
+
+    @Setup
+    public void setUp() {
+        cells = fixture.cells();
+        evaluator = new BoardEvaluator();
+        cachedEvaluator = new BoardEvaluator(new EvaluationCache());
+    }
+
+    @Benchmark
+    public int evaluateBoardWithLines() {
+        return evaluator.evaluateBoardWithLines(cells, 0);
+    }
+
+    @Benchmark
+    public int evaluateBoardWithLinesCached() {
+        return cachedEvaluator.evaluateBoardWithLines(cells, 0);
+    }
+
+    @Benchmark
+    public BoardFeatures boardFeatures() {
+        return BoardFeatures.of(cells);
+    }
+}
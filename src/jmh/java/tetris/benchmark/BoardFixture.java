@@ -0,0 +1,69 @@
+package tetris.benchmark;
+
+import tetris.model.board.GameBoard;
+import tetris.model.tetromino.PieceGenerator;
+
+import java.util.Random;
+
+/**
+ * BoardFixture: deterministic boards shared by the JMH benchmarks.
+ *
+ * Every fixture is generated from a fixed seed, so results are comparable
+ * across runs and machines:
+ * - EMPTY        : fresh 10x20 field
+ * - MID_GAME     : 10x20, 8-row stack with holes and no full lines
+ * - NEAR_TOP_OUT : 10x20, stack three rows below the top
+ * - WIDE         : 40x20 custom field, mid-game stack
+ * - TALL         : 10x60 custom field, 30-row stack
+ */
+public enum BoardFixture {
+    EMPTY(10, 20, 0),
+    MID_GAME(10, 20, 8),
+    NEAR_TOP_OUT(10, 20, 17),
+    WIDE(40, 20, 8),
+    TALL(10, 60, 30);
+
+    private static final long SEED = 20240607L;
+
+    public final int width;
+    public final int height;
+    private final int stackRows;
+
+    BoardFixture(int width, int height, int stackRows) {
+        this.width = width;
+        this.height = height;
+        this.stackRows = stackRows;
+    }
+
+    /** Fresh copy of the fixture cells (callers may modify it). */
+    public int[][] cells() {
+        Random rnd = new Random(SEED + ordinal());
+        int[][] cells = new int[height][width];
+        for (int y = height - stackRows; y < height; y++) {
+            // Denser towards the bottom; one guaranteed gap keeps every row incomplete
+            int density = 6 + 3 * (y - (height - stackRows)) / Math.max(1, stackRows);
+            for (int x = 0; x < width; x++) {
+                if (rnd.nextInt(10) < density) cells[y][x] = 1 + rnd.nextInt(7);
+            }
+            cells[y][rnd.nextInt(width)] = 0;
+        }
+        return cells;
+    }
+
+    /** Copy of the fixture with its bottom rows completely filled (for line clearing). */
+    public int[][] cellsWithFullRows(int fullRows) {
+        int[][] cells = cells();
+        for (int y = height - fullRows; y < height; y++) java.util.Arrays.fill(cells[y], 1);
+        return cells;
+    }
+
+    /** GameBoard holding the fixture cells with a freshly spawned piece. */
+    public GameBoard gameBoard(long pieceSeed) {
+        GameBoard board = new GameBoard(width, height, new PieceGenerator(pieceSeed));
+        int[][] cells = cells();
+        for (int y = 0; y < height; y++) System.arraycopy(cells[y], 0, board.cells()[y], 0, width);
+        board.skyline().recompute(board.cells());
+        if (!board.newPiece()) throw new IllegalStateException(this + " leaves no room to spawn");
+        return board;
+    }
+}
@@ -0,0 +1,68 @@
+package tetris.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import tetris.model.board.BoardUtils;
+import tetris.model.tetromino.Tetromino;
+import tetris.model.tetromino.TetrominoType;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collision checks and line clearing on the benchmark fixtures.
+ *
+ * clearFullLines mutates its board, so each operation clears a fresh copy;
+ * copyBoard measures that copy on its own to subtract it out.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BoardUtilsBenchmark {
+
+    @Param({"EMPTY", "MID_GAME", "NEAR_TOP_OUT", "WIDE", "TALL"})
+    public BoardFixture fixture;
+
+    private int[][] cells;
+    private int[][] withFullRows;
+    private Tetromino[] pieces;
+
+    @Setup
+    public void setUp() {
+        cells = fixture.cells();
+        withFullRows = fixture.cellsWithFullRows(4);
+        TetrominoType[] types = TetrominoType.values();
+        pieces = new Tetromino[types.length];
+        for (int i = 0; i < types.length; i++) pieces[i] = new Tetromino(types[i], fixture.width / 2 - 2, -2);
+    }
+
+    /** Drops every piece type from the spawn point to its landing row, one canMovePiece per step. */
+    @Benchmark
+    public int canMovePieceDrop() {
+        int steps = 0;
+        for (Tetromino piece : pieces) {
+            int dy = 0;
+            while (BoardUtils.canMovePiece(cells, piece, 0, dy + 1, piece.rot)) dy++;
+            steps += dy;
+        }
+        return steps;
+    }
+
+    /** Scan of a board without full lines (the common case after a lock). */
+    @Benchmark
+    public int clearFullLinesNone() {
+        return BoardUtils.clearFullLines(cells);
+    }
+
+    /** Copy plus a four-line clear. */
+    @Benchmark
+    public int clearFullLinesTetris() {
+        return BoardUtils.clearFullLines(BoardUtils.copyBoard(withFullRows));
+    }
+
+    @Benchmark
+    public int[][] copyBoard() {
+        return BoardUtils.copyBoard(withFullRows);
+    }
+}
@@ -0,0 +1,51 @@
+package tetris.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import tetris.model.ai.AIMove;
+import tetris.model.ai.TetrisAI;
+import tetris.model.board.GameBoard;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One AI decision for the piece spawned on each fixture: greedy full
+ * evaluation, greedy incremental evaluation, and the default one-piece lookahead.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TetrisAIBenchmark {
+
+    @Param({"EMPTY", "MID_GAME", "NEAR_TOP_OUT", "WIDE", "TALL"})
+    public BoardFixture fixture;
+
+    private GameBoard board;
+    private TetrisAI greedy;
+    private TetrisAI incremental;
+
+    @Setup
+    public void setUp() {
+        board = fixture.gameBoard(3L);
+        greedy = new TetrisAI();
+        incremental = TetrisAI.incremental();
+    }
+
+    @Benchmark
+    public AIMove findBestMove() {
+        return greedy.findBestMove(board, board.current());
+    }
+
+    @Benchmark
+    public AIMove findBestMoveIncremental() {
+        return incremental.findBestMove(board, board.current());
+    }
+
+    @Benchmark
+    public AIMove findBestMoveLookahead() {
+        return greedy.findBestMove(board, board.current(), board.getNextTetrominoType(),
+                TetrisAI.DEFAULT_LOOKAHEAD_WIDTH);
+    }
+}
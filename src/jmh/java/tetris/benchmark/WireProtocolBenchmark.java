@@ -0,0 +1,91 @@
+package tetris.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import tetris.controller.external.BoardMirror;
+import tetris.controller.external.CompactProtocol;
+import tetris.model.board.GameBoard;
+import tetris.model.external.PureGame;
+import tetris.model.tetromino.TetrominoType;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialization cost of one external-player request: Jackson JSON (what
+ * TetrisServerClient sends by default) against a CompactProtocol frame, and a
+ * delta-session DELTA frame placing the current piece.
+ *
+ * Decoding includes reading the frame header, as a server would; deltaApply
+ * also applies the delta to a replica and rebuilds the PureGame handed to the
+ * server strategy.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class WireProtocolBenchmark {
+
+    @Param({"EMPTY", "MID_GAME", "WIDE", "TALL"})
+    public BoardFixture fixture;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private PureGame game;
+    private byte[] json;
+    private byte[] frame;
+    private BoardMirror replica;
+    private byte[] deltaFrame;
+
+    @Setup
+    public void setUp() throws IOException {
+        GameBoard board = fixture.gameBoard(7L);
+        game = new PureGame(board.getWidth(), board.getHeight(), board.cells(),
+                board.current().shape(), board.current().type.rot[0]);
+        json = mapper.writeValueAsBytes(game);
+        frame = CompactProtocol.encodeGame(game);
+
+        replica = BoardMirror.of(game);
+        TetrominoType type = board.current().type;
+        int x = fixture.width / 2 - 2;
+        BoardMirror after = replica.copy();
+        int y = after.dropRow(type, 0, x);
+        int[] cleared = after.lock(type, 0, x, y);
+        after.clearRows(cleared);
+        deltaFrame = CompactProtocol.encodeDelta(new CompactProtocol.Delta(type, 0, x, y, cleared,
+                game.getCurrentShape(), game.getNextShape(), true, after.checksum()));
+    }
+
+    @Benchmark
+    public byte[] jsonEncode() throws IOException {
+        return mapper.writeValueAsBytes(game);
+    }
+
+    @Benchmark
+    public PureGame jsonDecode() throws IOException {
+        return mapper.readValue(json, PureGame.class);
+    }
+
+    @Benchmark
+    public byte[] binaryEncode() {
+        return CompactProtocol.encodeGame(game);
+    }
+
+    @Benchmark
+    public PureGame binaryDecode() throws IOException {
+        byte[] payload = CompactProtocol.readFrame(new DataInputStream(new ByteArrayInputStream(frame)));
+        return CompactProtocol.decodeGame(payload, mapper);
+    }
+
+    @Benchmark
+    public PureGame deltaApply() throws IOException {
+        byte[] payload = CompactProtocol.readFrame(new DataInputStream(new ByteArrayInputStream(deltaFrame)));
+        CompactProtocol.Delta delta = CompactProtocol.decodeDelta(payload);
+        BoardMirror next = replica.applied(delta);
+        if (next == null) throw new IllegalStateException("replica diverged");
+        return new PureGame(next.width(), next.height(), next.toCells(), delta.currentShape(), delta.nextShape());
+    }
+}
@@ -3,15 +3,19 @@ package tetris.controller.ai;
 import tetris.common.Action;
 import tetris.controller.game.GameController;
 import tetris.model.ai.AIMove;
+import tetris.model.ai.MovePlanner;
 import tetris.model.ai.TetrisAI;
 import tetris.model.tetromino.Tetromino;
+import tetris.model.tetromino.TetrominoType;
+
+import java.util.List;
 
 /**
  * AIController manages AI decision-making and move execution for intelligent Tetris gameplay.
  * 
  * This controller bridges the gap between AI decision-making and actual game actions.
  * It works in two phases:
- * 1. PLANNING: Uses TetrisAI to determine the optimal move for the current piece
+ * 1. PLANNING: Asks its MovePlanner (TetrisAI by default) for the optimal move for the current piece
  * 2. EXECUTION: Breaks down the planned move into sequential game actions (rotate, move, drop)
  * 
  * Key features:
@@ -24,13 +28,45 @@ import tetris.model.tetromino.Tetromino;
  */
 public class AIController {
     
-    private final TetrisAI ai = new TetrisAI();          // Core AI decision engine
+    private final MovePlanner planner;                   // Core AI decision engine
     private AIMove plannedMove;                          // Currently planned move
     private boolean needNewMove = true;                  // Flag to trigger new planning
     
     // AI execution state tracking
     private boolean isExecuting = false;                // Whether we're currently executing a move
     
+    public AIController() {
+        this(new TetrisAI());
+    }
+    
+    /**
+     * Creates a controller around a specific AI engine
+     * (e.g. TetrisAI.parallel() for multi-core candidate search).
+     */
+    public AIController(TetrisAI ai) {
+        this(ai, 0);
+    }
+    
+    /**
+     * Creates a controller that plans with the next-piece preview.
+     * Wider lookahead costs more CPU per piece but usually plays better
+     * (see TetrisAI.DEFAULT_LOOKAHEAD_WIDTH).
+     * 
+     * @param ai Core AI decision engine
+     * @param lookaheadWidth Best placements of the current piece to expand (0 = greedy)
+     */
+    public AIController(TetrisAI ai, int lookaheadWidth) {
+        this(ai.withLookahead(lookaheadWidth));
+    }
+    
+    /**
+     * Creates a controller around any planning engine
+     * (e.g. a BeamSearchPlanner trading CPU time for score).
+     */
+    public AIController(MovePlanner planner) {
+        this.planner = planner;
+    }
+    
     /**
      * Plans the next move for the current piece if needed.
      * Uses lazy evaluation - only calculates when a new piece appears or planning is needed.
@@ -41,9 +77,11 @@ public class AIController {
     public void planNextMove(GameController gameController) {
         // Only plan if we need a new move and there's a current piece
         if (needNewMove && gameController.board().current() != null) {
-            // Use TetrisAI to find the optimal move for current board state
-            plannedMove = ai.findBestMove(gameController.board(), 
-                                        gameController.board().current());
+            // Ask the planner for the optimal move, giving it the preview piece if known
+            TetrominoType next = gameController.board().getNextTetrominoType();
+            plannedMove = planner.planMove(gameController.board(),
+                                        gameController.board().current(),
+                                        next != null ? List.of(next) : List.of());
             
             // Reset planning and execution state
             needNewMove = false;
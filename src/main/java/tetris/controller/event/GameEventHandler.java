@@ -195,10 +195,7 @@ public class GameEventHandler {
     }
 
     public tetris.model.tetromino.TetrominoType getNextTetrominoType() {
-        if (gameController.board() instanceof tetris.model.board.GameBoard gameBoard) {
-            return gameBoard.getNextTetrominoType();
-        }
-        return null;
+        return gameController.board().getNextTetrominoType();
     }
 
     // Get current audio state for real-time HUD updates
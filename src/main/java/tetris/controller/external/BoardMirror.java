@@ -0,0 +1,173 @@
+package tetris.controller.external;
+
+import tetris.model.external.PureGame;
+import tetris.model.tetromino.PieceShape;
+import tetris.model.tetromino.TetrominoType;
+
+import java.util.Arrays;
+
+/**
+ * BoardMirror: occupancy-only replica of a board kept by both ends of a delta
+ * session (see CompactProtocol.DELTA).
+ *
+ * One long per row (bit x = column x, like BitboardGameBoard), so widths up to
+ * 64 are supported. The client uses it to derive the delta that turns the
+ * previous request's board into the new one; the server applies that delta to
+ * its own copy and compares checksums now and then.
+ */
+public final class BoardMirror {
+
+    public static final int MAX_WIDTH = Long.SIZE;
+
+    private final int width;
+    private final int height;
+    private final long fullRow;
+    private final long[] rows;
+
+    private BoardMirror(int width, int height, long[] rows) {
+        this.width = width;
+        this.height = height;
+        this.fullRow = width == MAX_WIDTH ? -1L : (1L << width) - 1;
+        this.rows = rows;
+    }
+
+    /** Mirror of the game's cells, or null when the board cannot be mirrored. */
+    public static BoardMirror of(PureGame game) {
+        int width = game.getWidth();
+        int height = game.getHeight();
+        int[][] cells = game.getCells();
+        if (width < 1 || width > MAX_WIDTH || height < 1 || cells == null || cells.length != height) return null;
+        long[] rows = new long[height];
+        for (int y = 0; y < height; y++) {
+            if (cells[y].length < width) return null;
+            rows[y] = mask(cells[y], width);
+        }
+        return new BoardMirror(width, height, rows);
+    }
+
+    public BoardMirror copy() {
+        return new BoardMirror(width, height, rows.clone());
+    }
+
+    public int width() {
+        return width;
+    }
+
+    public int height() {
+        return height;
+    }
+
+    /** Whether the cells have exactly this occupancy (colours are ignored). */
+    public boolean matches(int width, int height, int[][] cells) {
+        if (width != this.width || height != this.height || cells == null || cells.length != height) return false;
+        for (int y = 0; y < height; y++) {
+            if (cells[y].length < width || mask(cells[y], width) != rows[y]) return false;
+        }
+        return true;
+    }
+
+    /** Cells of the mirror, 1 for occupied. */
+    public int[][] toCells() {
+        int[][] cells = new int[height][width];
+        for (int y = 0; y < height; y++) {
+            long bits = rows[y];
+            while (bits != 0) {
+                cells[y][Long.numberOfTrailingZeros(bits)] = 1;
+                bits &= bits - 1;
+            }
+        }
+        return cells;
+    }
+
+    /**
+     * Row where the piece lands when dropped from the top of the board at column
+     * x, or Integer.MIN_VALUE when it does not fit there at all.
+     */
+    public int dropRow(TetrominoType type, int rotation, int x) {
+        PieceShape shape = type.pieceShape(rotation);
+        int y = -shape.minRow();
+        if (!fits(shape, x, y)) return Integer.MIN_VALUE;
+        while (fits(shape, x, y + 1)) y++;
+        return y;
+    }
+
+    /**
+     * Locks the piece at (x, y) and returns the rows that became full, top to
+     * bottom, without clearing them. Returns null (and changes nothing) when
+     * the piece overlaps the stack or leaves the board.
+     */
+    public int[] lock(TetrominoType type, int rotation, int x, int y) {
+        PieceShape shape = type.pieceShape(rotation);
+        if (!fits(shape, x, y)) return null;
+        int[] full = new int[PieceShape.GRID];
+        int count = 0;
+        for (int r = shape.minRow(); r <= shape.maxRow(); r++) {
+            rows[y + r] |= pieceRow(shape, r, x);
+            if (rows[y + r] == fullRow) full[count++] = y + r;
+        }
+        return Arrays.copyOf(full, count);
+    }
+
+    /**
+     * Removes the given rows (ascending indices) and shifts the rows above them
+     * down. Returns false (and changes nothing) if one of them is not full or
+     * a full row is missing from the list.
+     */
+    public boolean clearRows(int[] cleared) {
+        int expected = 0;
+        for (long row : rows) if (row == fullRow) expected++;
+        if (expected != cleared.length) return false;
+        for (int i = 0; i < cleared.length; i++) {
+            int y = cleared[i];
+            if (y < 0 || y >= height || rows[y] != fullRow || (i > 0 && y <= cleared[i - 1])) return false;
+        }
+        for (int y : cleared) {
+            System.arraycopy(rows, 0, rows, 1, y);
+            rows[0] = 0;
+        }
+        return true;
+    }
+
+    /**
+     * Copy of this board with the delta applied (piece locked, its rows cleared),
+     * or null when the delta does not apply or its checksum disagrees.
+     */
+    public BoardMirror applied(CompactProtocol.Delta delta) {
+        BoardMirror next = copy();
+        if (next.lock(delta.placed(), delta.rotation(), delta.x(), delta.y()) == null) return null;
+        if (!next.clearRows(delta.clearedRows())) return null;
+        if (delta.hasChecksum() && delta.checksum() != next.checksum()) return null;
+        return next;
+    }
+
+    /** 64-bit FNV-1a style hash of the dimensions and rows. */
+    public long checksum() {
+        long h = 0xcbf29ce484222325L;
+        h = (h ^ width) * 0x100000001b3L;
+        h = (h ^ height) * 0x100000001b3L;
+        for (long row : rows) h = (h ^ row) * 0x100000001b3L;
+        return h;
+    }
+
+    private boolean fits(PieceShape shape, int x, int y) {
+        if (x + shape.minCol() < 0 || x + shape.maxCol() >= width) return false;
+        if (y + shape.minRow() < 0 || y + shape.maxRow() >= height) return false;
+        for (int r = shape.minRow(); r <= shape.maxRow(); r++) {
+            if ((rows[y + r] & pieceRow(shape, r, x)) != 0) return false;
+        }
+        return true;
+    }
+
+    private static long pieceRow(PieceShape shape, int r, int x) {
+        long bits = shape.rowMask(r);
+        return x >= 0 ? bits << x : bits >>> -x;
+    }
+
+    private static long mask(int[] row, int width) {
+        long bits = 0;
+        for (int x = 0; x < width; x++) {
+            if (row[x] != 0) bits |= 1L << x;
+        }
+        return bits;
+    }
+}
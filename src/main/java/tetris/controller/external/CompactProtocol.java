@@ -0,0 +1,385 @@
+package tetris.controller.external;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import tetris.model.external.OpMove;
+import tetris.model.external.PureGame;
+import tetris.model.tetromino.TetrominoType;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * CompactProtocol: binary encoding of the PureGame -> OpMove exchange.
+ *
+ * A connection starts in the JSON line protocol. A client wanting binary frames
+ * sends HELLO as its first line; a server that understands it echoes HELLO back
+ * and both sides switch to frames. Any other answer (a reply, an error, a closed
+ * connection or silence) means the server only speaks JSON.
+ *
+ * Frame layout (big-endian):
+ *   int   length     bytes that follow
+ *   byte  kind       GAME, GAME_JSON, MOVE, DELTA, RESYNC, TAGGED or BATCH
+ *   GAME      : short width, short height,
+ *               byte currentType, byte currentRotation, byte nextType, byte nextRotation,
+ *               height rows of (width + 7) / 8 bytes, bit x of a row set = cell x occupied
+ *   GAME_JSON : the PureGame as UTF-8 JSON, for states GAME cannot carry
+ *   MOVE      : short opX, byte opRotate
+ *   DELTA     : byte placedType, byte placedRotation, short x, short y,
+ *               byte clearedCount, clearedCount x short row,
+ *               byte currentType, byte currentRotation, byte nextType, byte nextRotation,
+ *               byte flags, long checksum if flags has HAS_CHECKSUM
+ *   RESYNC    : no body
+ *   TAGGED    : int id, then the payload of a GAME, GAME_JSON or MOVE frame
+ *   BATCH     : short count, count x (int id, int length, length bytes of the
+ *               payload of a GAME, GAME_JSON or MOVE frame)
+ *
+ * Delta sessions: a client sending HELLO_DELTA instead of HELLO asks for them
+ * too, and a server supporting them echoes HELLO_DELTA (HELLO means frames
+ * only). Both ends then keep a BoardMirror of the last board. Instead of the
+ * full board the client may send a DELTA: the piece locked at (x, y) since the
+ * previous request and the rows that cleared as a result (indices before
+ * clearing, top to bottom). Every few deltas it adds the checksum of the board
+ * after applying it. A server without a replica, or whose replica disagrees,
+ * answers RESYNC and the client resends the request as a full GAME frame.
+ *
+ * Multiplexing: a client sending HELLO_MUX asks to have several requests in
+ * flight on one connection, and a server supporting it echoes HELLO_MUX. Every
+ * request is then a TAGGED frame with a correlation id chosen by the client;
+ * the server answers each with a TAGGED MOVE frame carrying the same id, in
+ * whatever order the moves are ready. Multiplexed connections carry requests
+ * of many games, so they never use delta sessions.
+ *
+ * Batching: HELLO_BATCH asks for multiplexing plus BATCH frames, and is echoed
+ * by a server supporting both (HELLO_MUX means multiplexing only). A BATCH
+ * carries the requests of several games in one frame, each with its own
+ * correlation id; the server answers with one BATCH of the moves for all of
+ * them. TAGGED frames stay valid on such a connection.
+ *
+ * Piece ids are TetrominoType ordinal + 1 (0 = no piece) and the rotation index
+ * of the shape in TetrominoType.rot. Cells only keep occupancy: a decoded board
+ * holds 1 where the original held any colour id. A 10x20 state is 53 bytes on
+ * the wire against 400+ characters of JSON.
+ */
+public final class CompactProtocol {
+
+    public static final String HELLO = "{\"protocol\":\"tetris-binary/1\"}";
+    public static final String HELLO_DELTA = "{\"protocol\":\"tetris-binary/1\",\"delta\":true}";
+    public static final String HELLO_MUX = "{\"protocol\":\"tetris-binary/1\",\"mux\":true}";
+    public static final String HELLO_BATCH = "{\"protocol\":\"tetris-binary/1\",\"mux\":true,\"batch\":true}";
+
+    public static final byte GAME = 'G';
+    public static final byte GAME_JSON = 'J';
+    public static final byte MOVE = 'M';
+    public static final byte DELTA = 'D';
+    public static final byte RESYNC = 'R';
+    public static final byte TAGGED = 'T';
+    public static final byte BATCH = 'B';
+
+    public static final int HAS_CHECKSUM = 1;
+
+    // Far above any real board; guards against reading garbage as a length
+    static final int MAX_FRAME = 1 << 20;
+
+    private static final TetrominoType[] TYPES = TetrominoType.values();
+
+    private CompactProtocol() {
+    }
+
+    /**
+     * Board change since the previous request of a delta session, plus the
+     * pieces of the new state. The checksum (of the board after the change) is
+     * only meaningful when hasChecksum is set.
+     */
+    public record Delta(TetrominoType placed, int rotation, int x, int y, int[] clearedRows,
+                        int[][] currentShape, int[][] nextShape, boolean hasChecksum, long checksum) {
+    }
+
+    /**
+     * Encodes a game state as a GAME frame, or returns null when it cannot be
+     * expressed as one (a shape that is not a TetrominoType rotation, or a board
+     * too large for the header); send it with jsonFrame() instead.
+     */
+    public static byte[] encodeGame(PureGame game) {
+        int width = game.getWidth();
+        int height = game.getHeight();
+        int[][] cells = game.getCells();
+        if (width < 0 || width > Short.MAX_VALUE || height < 0 || height > Short.MAX_VALUE) return null;
+        if (cells == null || cells.length != height) return null;
+        int current = pieceId(game.getCurrentShape());
+        int next = pieceId(game.getNextShape());
+        if (current < 0 || next < 0) return null;
+
+        int rowBytes = (width + 7) >>> 3;
+        int length = 1 + 4 + 4 + height * rowBytes;
+        if (length > MAX_FRAME) return null;
+        ByteBuffer frame = ByteBuffer.allocate(4 + length);
+        frame.putInt(length).put(GAME).putShort((short) width).putShort((short) height);
+        putPiece(frame, current);
+        putPiece(frame, next);
+        for (int[] row : cells) {
+            if (row.length < width) return null;
+            for (int b = 0; b < rowBytes; b++) {
+                int bits = 0;
+                int end = Math.min(width, (b + 1) << 3);
+                for (int x = b << 3; x < end; x++) {
+                    if (row[x] != 0) bits |= 1 << (x & 7);
+                }
+                frame.put((byte) bits);
+            }
+        }
+        return frame.array();
+    }
+
+    /** Wraps an already serialized JSON PureGame in a GAME_JSON frame. */
+    public static byte[] jsonFrame(byte[] json) {
+        return ByteBuffer.allocate(4 + 1 + json.length).putInt(1 + json.length).put(GAME_JSON).put(json).array();
+    }
+
+    /** Frame for a move reply. */
+    public static byte[] encodeMove(OpMove move) {
+        return ByteBuffer.allocate(4 + 4).putInt(4).put(MOVE)
+                .putShort((short) move.opX()).put((byte) move.opRotate()).array();
+    }
+
+    /**
+     * Encodes a DELTA frame, or returns null when its shapes are not
+     * TetrominoType rotations (send the full state instead).
+     */
+    public static byte[] encodeDelta(Delta delta) {
+        int current = pieceId(delta.currentShape());
+        int next = pieceId(delta.nextShape());
+        if (current < 0 || next < 0) return null;
+        int[] cleared = delta.clearedRows();
+        int length = 1 + 6 + 1 + 2 * cleared.length + 4 + 1 + (delta.hasChecksum() ? 8 : 0);
+        ByteBuffer frame = ByteBuffer.allocate(4 + length);
+        frame.putInt(length).put(DELTA)
+                .put((byte) (delta.placed().ordinal() + 1)).put((byte) delta.rotation())
+                .putShort((short) delta.x()).putShort((short) delta.y())
+                .put((byte) cleared.length);
+        for (int row : cleared) frame.putShort((short) row);
+        putPiece(frame, current);
+        putPiece(frame, next);
+        frame.put((byte) (delta.hasChecksum() ? HAS_CHECKSUM : 0));
+        if (delta.hasChecksum()) frame.putLong(delta.checksum());
+        return frame.array();
+    }
+
+    /** Decodes a DELTA payload. */
+    public static Delta decodeDelta(byte[] payload) throws IOException {
+        if (payload[0] != DELTA) throw new IOException("Expected a delta frame, got kind " + payload[0]);
+        ByteBuffer body = ByteBuffer.wrap(payload, 1, payload.length - 1);
+        try {
+            int placed = body.get();
+            int rotation = body.get();
+            if (placed < 1 || placed > TYPES.length || rotation < 0 || rotation > 3) {
+                throw new IOException("Unknown piece " + placed + "/" + rotation);
+            }
+            int x = body.getShort();
+            int y = body.getShort();
+            int[] cleared = new int[body.get()];
+            for (int i = 0; i < cleared.length; i++) cleared[i] = body.getShort();
+            int[][] currentShape = pieceShape(body.get(), body.get());
+            int[][] nextShape = pieceShape(body.get(), body.get());
+            boolean hasChecksum = (body.get() & HAS_CHECKSUM) != 0;
+            long checksum = hasChecksum ? body.getLong() : 0;
+            if (body.hasRemaining()) throw new IOException("Trailing bytes in delta frame");
+            return new Delta(TYPES[placed - 1], rotation, x, y, cleared, currentShape, nextShape, hasChecksum, checksum);
+        } catch (RuntimeException e) {
+            throw new IOException("Malformed delta frame", e);
+        }
+    }
+
+    /** Frame asking the client to resend its request as a full GAME frame. */
+    public static byte[] encodeResync() {
+        return new byte[]{0, 0, 0, 1, RESYNC};
+    }
+
+    /** Wraps a complete frame (length prefix included) in a TAGGED frame with the given id. */
+    public static byte[] tag(int id, byte[] frame) {
+        int inner = frame.length - 4;
+        return ByteBuffer.allocate(4 + 1 + 4 + inner).putInt(1 + 4 + inner).put(TAGGED).putInt(id)
+                .put(frame, 4, inner).array();
+    }
+
+    /** Correlation id of a TAGGED payload. */
+    public static int tagOf(byte[] payload) throws IOException {
+        if (payload.length < 6 || payload[0] != TAGGED) throw new IOException("Expected a tagged frame");
+        return ByteBuffer.wrap(payload, 1, 4).getInt();
+    }
+
+    /** Payload carried by a TAGGED payload (kind byte first). */
+    public static byte[] untag(byte[] payload) throws IOException {
+        if (payload.length < 6 || payload[0] != TAGGED) throw new IOException("Expected a tagged frame");
+        return Arrays.copyOfRange(payload, 5, payload.length);
+    }
+
+    /** One entry of a BATCH: correlation id and payload (kind byte first). */
+    public record Entry(int id, byte[] payload) {
+    }
+
+    /**
+     * Packs complete frames (length prefix included) into one BATCH frame, the
+     * frame at index i under ids[i].
+     */
+    public static byte[] encodeBatch(int[] ids, byte[][] frames) {
+        if (ids.length != frames.length || ids.length > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("Bad batch of " + ids.length + " ids, " + frames.length + " frames");
+        }
+        int length = 1 + 2;
+        for (byte[] frame : frames) length += 4 + frame.length;   // id and length replace the prefix
+        ByteBuffer batch = ByteBuffer.allocate(4 + length);
+        batch.putInt(length).put(BATCH).putShort((short) ids.length);
+        for (int i = 0; i < ids.length; i++) {
+            batch.putInt(ids[i]).putInt(frames[i].length - 4).put(frames[i], 4, frames[i].length - 4);
+        }
+        return batch.array();
+    }
+
+    /** Entries of a BATCH payload, in frame order. */
+    public static Entry[] decodeBatch(byte[] payload) throws IOException {
+        if (payload.length < 3 || payload[0] != BATCH) throw new IOException("Expected a batch frame");
+        ByteBuffer body = ByteBuffer.wrap(payload, 1, payload.length - 1);
+        try {
+            Entry[] entries = new Entry[body.getShort()];
+            for (int i = 0; i < entries.length; i++) {
+                int id = body.getInt();
+                int length = body.getInt();
+                if (length < 1 || length > body.remaining()) throw new IOException("Bad batch entry length: " + length);
+                byte[] entry = new byte[length];
+                body.get(entry);
+                entries[i] = new Entry(id, entry);
+            }
+            if (body.hasRemaining()) throw new IOException("Trailing bytes in batch frame");
+            return entries;
+        } catch (RuntimeException e) {
+            throw new IOException("Malformed batch frame", e);
+        }
+    }
+
+    /**
+     * Reads one frame and returns its payload (kind byte first), or null if the
+     * stream ended cleanly before a new frame.
+     */
+    public static byte[] readFrame(DataInputStream in) throws IOException {
+        int first = in.read();
+        if (first < 0) return null;
+        int length = (first << 24) | (in.readUnsignedByte() << 16) | (in.readUnsignedShort());
+        if (length < 1 || length > MAX_FRAME) throw new IOException("Bad frame length: " + length);
+        byte[] payload = new byte[length];
+        in.readFully(payload);
+        return payload;
+    }
+
+    /**
+     * Decodes a GAME or GAME_JSON payload. JSON payloads are parsed with the given mapper.
+     */
+    public static PureGame decodeGame(byte[] payload, ObjectMapper mapper) throws IOException {
+        if (payload[0] == GAME_JSON) {
+            return mapper.readValue(payload, 1, payload.length - 1, PureGame.class);
+        }
+        if (payload[0] != GAME) throw new IOException("Expected a game frame, got kind " + payload[0]);
+
+        ByteBuffer body = ByteBuffer.wrap(payload, 1, payload.length - 1);
+        try {
+            int width = body.getShort();
+            int height = body.getShort();
+            int[][] currentShape = pieceShape(body.get(), body.get());
+            int[][] nextShape = pieceShape(body.get(), body.get());
+            int rowBytes = (width + 7) >>> 3;
+            if (width < 0 || height < 0 || body.remaining() != height * rowBytes) {
+                throw new IOException("Game frame does not match a " + width + "x" + height + " board");
+            }
+            int[][] cells = new int[height][width];
+            for (int[] row : cells) {
+                for (int b = 0; b < rowBytes; b++) {
+                    int bits = body.get() & 0xFF;
+                    while (bits != 0) {
+                        row[(b << 3) + Integer.numberOfTrailingZeros(bits)] = 1;
+                        bits &= bits - 1;
+                    }
+                }
+            }
+            return new PureGame(width, height, cells, currentShape, nextShape);
+        } catch (RuntimeException e) {
+            throw new IOException("Malformed game frame", e);
+        }
+    }
+
+    /** Decodes a MOVE payload. */
+    public static OpMove decodeMove(byte[] payload) throws IOException {
+        if (payload.length != 4 || payload[0] != MOVE) throw new IOException("Expected a move frame");
+        ByteBuffer body = ByteBuffer.wrap(payload, 1, 3);
+        return new OpMove(body.getShort(), body.get());
+    }
+
+    /** Writes one line of the JSON protocol. */
+    public static void writeLine(OutputStream out, String line) throws IOException {
+        out.write(line.getBytes(StandardCharsets.UTF_8));
+        out.write('\n');
+        out.flush();
+    }
+
+    /**
+     * Reads one line of the JSON protocol without reading past it, so a
+     * connection can switch to frames right after. Returns null at end of stream.
+     */
+    public static String readLine(InputStream in) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream(512);
+        int b;
+        while ((b = in.read()) != '\n') {
+            if (b < 0) {
+                if (line.size() == 0) return null;
+                throw new EOFException("Stream ended inside a line");
+            }
+            if (line.size() >= MAX_FRAME) throw new IOException("Line too long");
+            line.write(b);
+        }
+        int end = line.size();
+        byte[] bytes = line.toByteArray();
+        if (end > 0 && bytes[end - 1] == '\r') end--;
+        return new String(bytes, 0, end, StandardCharsets.UTF_8);
+    }
+
+    /** Type whose rotation the shape is, or null for no piece or an unknown shape. */
+    static TetrominoType typeOf(int[][] shape) {
+        int id = pieceId(shape);
+        return id > 0 ? TYPES[(id - 1) / 4] : null;
+    }
+
+    // 0 = no piece, 1 + ordinal * 4 + rotation for a known shape, -1 otherwise
+    private static int pieceId(int[][] shape) {
+        if (shape == null) return 0;
+        for (TetrominoType type : TYPES) {
+            for (int r = 0; r < 4; r++) {
+                if (Arrays.deepEquals(type.rot[r], shape)) return 1 + type.ordinal() * 4 + r;
+            }
+        }
+        return -1;
+    }
+
+    private static void putPiece(ByteBuffer frame, int id) {
+        if (id == 0) {
+            frame.put((byte) 0).put((byte) 0);
+        } else {
+            frame.put((byte) (1 + (id - 1) / 4)).put((byte) ((id - 1) % 4));
+        }
+    }
+
+    private static int[][] pieceShape(byte type, byte rotation) throws IOException {
+        if (type == 0) return null;
+        if (type < 0 || type > TYPES.length || rotation < 0 || rotation > 3) {
+            throw new IOException("Unknown piece " + type + "/" + rotation);
+        }
+        int[][] shape = TYPES[type - 1].rot[rotation];
+        int[][] copy = new int[shape.length][];
+        for (int i = 0; i < shape.length; i++) copy[i] = shape[i].clone();
+        return copy;
+    }
+}
@@ -0,0 +1,74 @@
+package tetris.controller.external;
+
+import tetris.model.external.OpMove;
+import tetris.model.external.PureGame;
+import tetris.model.tetromino.TetrominoType;
+
+/**
+ * Client end of a CompactProtocol delta session on one connection.
+ *
+ * Keeps a BoardMirror of the board the server last saw. For a new request it
+ * replays the previous reply (the previous piece, rotated to opRotate, dropped
+ * at opX) on that mirror; if the result has exactly the occupancy of the new
+ * board, only that placement and its cleared rows are sent. Anything else
+ * (garbage rows, a move played differently, a reset) sends a full snapshot,
+ * so a delta is never wrong on the client side.
+ *
+ * Not thread-safe: used under the TetrisServerClient lock.
+ */
+final class DeltaSession {
+
+    // Deltas between checksums the server verifies its replica against
+    static final int CHECKSUM_INTERVAL = 16;
+
+    private BoardMirror mirror;          // board held by the server, null before the first snapshot
+    private TetrominoType lastPiece;     // current piece of the previous request
+    private OpMove lastMove;             // reply to the previous request
+    private int sinceChecksum = 0;
+
+    /**
+     * Frame for the request: a DELTA when the board follows from the previous
+     * request and its reply, otherwise as snapshot().
+     */
+    byte[] frame(PureGame game) {
+        OpMove move = lastMove;
+        lastMove = null;
+        if (mirror != null && lastPiece != null && move != null) {
+            BoardMirror next = mirror.copy();
+            int rotation = Math.floorMod(move.opRotate(), 4);
+            int y = next.dropRow(lastPiece, rotation, move.opX());
+            int[] cleared = y == Integer.MIN_VALUE ? null : next.lock(lastPiece, rotation, move.opX(), y);
+            if (cleared != null && next.clearRows(cleared)
+                    && next.matches(game.getWidth(), game.getHeight(), game.getCells())) {
+                boolean check = sinceChecksum + 1 >= CHECKSUM_INTERVAL;
+                byte[] frame = CompactProtocol.encodeDelta(new CompactProtocol.Delta(lastPiece, rotation,
+                        move.opX(), y, cleared, game.getCurrentShape(), game.getNextShape(),
+                        check, check ? next.checksum() : 0));
+                if (frame != null) {
+                    sinceChecksum = check ? 0 : sinceChecksum + 1;
+                    mirror = next;
+                    lastPiece = CompactProtocol.typeOf(game.getCurrentShape());
+                    return frame;
+                }
+            }
+        }
+        return snapshot(game);
+    }
+
+    /**
+     * Full GAME frame that (re)sets the server replica, or null when the state
+     * needs a GAME_JSON frame (which resets it just the same).
+     */
+    byte[] snapshot(PureGame game) {
+        mirror = BoardMirror.of(game);
+        lastPiece = CompactProtocol.typeOf(game.getCurrentShape());
+        lastMove = null;
+        sinceChecksum = 0;
+        return CompactProtocol.encodeGame(game);
+    }
+
+    /** Records the reply the next delta is derived from. */
+    void onReply(OpMove move) {
+        lastMove = move;
+    }
+}
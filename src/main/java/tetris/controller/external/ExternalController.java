@@ -4,7 +4,16 @@ import tetris.common.Action;
 import tetris.controller.game.GameController;
 import tetris.model.external.OpMove;
 import tetris.model.external.PureGame;
+import tetris.model.board.BoardUtils;
+import tetris.model.board.IGameBoard;
 import tetris.model.tetromino.Tetromino;
+import tetris.model.tetromino.TetrominoType;
+
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * ExternalController manages gameplay controlled by an external TetrisServer.
@@ -17,38 +26,158 @@ import tetris.model.tetromino.Tetromino;
  * - Automatic reconnection when server becomes available
  * - Move execution similar to AIController
  *
+ * Server requests never run on the game thread: planNextMove() submits the
+ * PureGame snapshot to a background executor and later ticks poll the
+ * CompletableFuture. Each request is tagged with the piece sequence number it
+ * was made for, so a reply arriving after that piece was placed is discarded.
+ *
+ * Speculative prefetch: as soon as a move is planned, the board after that
+ * placement is predicted locally (BoardUtils drop, lock and line clear) and the
+ * move for the next piece is requested right away. When the next piece spawns
+ * on exactly the predicted board, the prefetched reply is used (or awaited)
+ * instead of starting a new round-trip; otherwise it is dropped.
+ *
+ * Many controllers can share one MultiplexedServerClient instead of owning a
+ * TetrisServerClient each (bot leagues with hundreds of headless games); the
+ * requests then travel over its connection pool.
+ *
  * Requirements:
  * - Show warning when server not running + no control
  * - Resume control immediately when server starts mid-game
  */
 public class ExternalController {
 
-    private final TetrisServerClient client;
+    // Shared by all external players; daemon threads so a hung server never blocks exit
+    private static final ExecutorService SERVER_IO = Executors.newCachedThreadPool(r -> {
+        Thread t = new Thread(r, "tetris-external-io");
+        t.setDaemon(true);
+        return t;
+    });
+
+    /** Where the moves come from: a client of this controller's own, or the shared runtime. */
+    interface MoveSource {
+        CompletableFuture<OpMove> requestMove(PureGame game);
+
+        boolean isServerAvailable();
+
+        void resetConnectionStatus();
+    }
+
+    private final MoveSource server;
 
     // Move planning and execution
     private OpMove plannedMove;
     private boolean needNewMove = true;
     private boolean isExecuting = false;
 
+    // In-flight server request and the piece it was made for
+    private CompletableFuture<OpMove> pendingMove;
+    private long pendingSequence;
+    private long pieceSequence = 0;
+
+    // Speculative request for the next piece and the state it was computed for
+    private CompletableFuture<OpMove> prefetchMove;
+    private long prefetchSequence;
+    private int[][] predictedCells;
+    private TetrominoType predictedType;
+    private TetrominoType predictedNextType;
+    private int prefetchHits = 0;
+    private int prefetchMisses = 0;
+
     // Connection status
     private boolean lastKnownServerStatus = false;
 
     public ExternalController() {
-        this.client = new TetrisServerClient();
+        this(new TetrisServerClient());
+    }
+
+    public ExternalController(TetrisServerClient client) {
+        this(client, SERVER_IO);
+    }
+
+    /**
+     * @param client Connection to the TetrisServer
+     * @param executor Runs the blocking server requests (never the game thread)
+     */
+    public ExternalController(TetrisServerClient client, Executor executor) {
+        this(new MoveSource() {
+            @Override
+            public CompletableFuture<OpMove> requestMove(PureGame game) {
+                return CompletableFuture.supplyAsync(() -> client.getOptimalMove(game), executor);
+            }
+
+            @Override
+            public boolean isServerAvailable() {
+                return client.isServerAvailable();
+            }
+
+            @Override
+            public void resetConnectionStatus() {
+                client.resetConnectionStatus();
+            }
+        });
+    }
+
+    /**
+     * @param shared Runtime multiplexing the requests of many controllers
+     *               (resetting this controller does not drop its connections)
+     */
+    public ExternalController(MultiplexedServerClient shared) {
+        this(new MoveSource() {
+            @Override
+            public CompletableFuture<OpMove> requestMove(PureGame game) {
+                return shared.requestMove(game);
+            }
+
+            @Override
+            public boolean isServerAvailable() {
+                return shared.isServerAvailable();
+            }
+
+            @Override
+            public void resetConnectionStatus() {
+                shared.resetConnectionStatus();
+            }
+        });
+    }
+
+    ExternalController(MoveSource server) {
+        this.server = server;
     }
 
     /**
      * Plans the next move by communicating with the external server.
      * Only makes server requests when needed (new piece or failed previous attempt).
+     * Never blocks: a request in flight is only checked for completion.
      */
     public void planNextMove(GameController gameController) {
+        // Collect a finished request first, even if its piece is gone
+        if (pendingMove != null) {
+            if (!pendingMove.isDone()) return;
+            collectReply(gameController);
+        }
+
         // Only plan if we need a new move and there's a current piece
         if (!needNewMove || gameController.board().current() == null) {
             return;
         }
 
+        // The move may already be on its way from the prefetch
+        if (prefetchMove != null) {
+            if (prefetchSequence == pieceSequence && matchesPrediction(gameController.board())) {
+                prefetchHits++;
+                pendingMove = prefetchMove;
+                pendingSequence = prefetchSequence;
+                clearPrefetch();
+                if (pendingMove.isDone()) collectReply(gameController);
+                return;
+            }
+            prefetchMisses++;
+            clearPrefetch();
+        }
+
         // Check if server status changed
-        boolean currentServerStatus = client.isServerAvailable();
+        boolean currentServerStatus = server.isServerAvailable();
         if (currentServerStatus != lastKnownServerStatus) {
             if (currentServerStatus) {
                 System.out.println("[EXTERNAL] Server connection established - resuming control");
@@ -58,19 +187,33 @@ public class ExternalController {
             lastKnownServerStatus = currentServerStatus;
         }
 
-        // Convert current game state to PureGame format
+        // Convert current game state to PureGame format (snapshot taken on the game thread)
         PureGame gameState = createPureGameState(gameController);
 
-        // Request optimal move from server
-        OpMove serverMove = client.getOptimalMove(gameState);
+        // Request optimal move from server in the background
+        pendingSequence = pieceSequence;
+        pendingMove = server.requestMove(gameState);
+    }
 
-        if (serverMove != null) {
+    /**
+     * Takes the reply of the finished request, unless it belongs to an earlier piece.
+     */
+    private void collectReply(GameController gameController) {
+        // Done, so getNow never blocks; failures (null, timeout, refusal) are retried
+        OpMove serverMove = pendingMove.isCompletedExceptionally() ? null : pendingMove.getNow(null);
+        boolean stale = pendingSequence != pieceSequence;
+        pendingMove = null;
+
+        if (stale) {
+            System.out.println("[EXTERNAL] Discarded reply for an earlier piece");
+        } else if (serverMove != null) {
             plannedMove = serverMove;
             needNewMove = false;
             isExecuting = false;
 
             System.out.println("[EXTERNAL] Planned move: X=" + serverMove.opX() +
                              ", Rotate=" + serverMove.opRotate());
+            prefetchNextMove(gameController);
         } else {
             // Server communication failed - will retry next tick
             plannedMove = null;
@@ -78,13 +221,87 @@ public class ExternalController {
         }
     }
 
+    /**
+     * Predicts the board after the planned move and requests the next piece's
+     * move for it in the background. Skipped when the board cannot show the
+     * piece after next (the server needs it as nextShape) or the move does not fit.
+     */
+    private void prefetchNextMove(GameController gameController) {
+        IGameBoard board = gameController.board();
+        Tetromino current = board.current();
+        TetrominoType nextType = board.getNextTetrominoType();
+        TetrominoType afterNextType = board.peekTetrominoType(1);
+        if (current == null || nextType == null || afterNextType == null) return;
+
+        int[][] predicted = predictPlacement(board.cells(), current, plannedMove);
+        if (predicted == null) return;
+
+        PureGame speculative = new PureGame(board.getWidth(), board.getHeight(), BoardUtils.copyBoard(predicted),
+                new Tetromino(nextType, 0, 0).shape(), new Tetromino(afterNextType, 0, 0).shape());
+        prefetchSequence = pieceSequence + 1;   // the sequence number the next piece will get
+        predictedCells = predicted;
+        predictedType = nextType;
+        predictedNextType = afterNextType;
+        prefetchMove = server.requestMove(speculative);
+    }
+
+    /**
+     * Board after executing the move like getNextAction() does (rotate and shift
+     * from the current position, then hard drop), with full lines cleared.
+     * Returns null if the target position is blocked.
+     */
+    static int[][] predictPlacement(int[][] cells, Tetromino current, OpMove move) {
+        int rotation = move.opRotate() % 4;
+        int dx = move.opX() - current.x();
+        if (!BoardUtils.canMovePiece(cells, current, dx, 0, rotation)) return null;
+
+        Tetromino piece = new Tetromino(current.type, move.opX(), current.y());
+        piece.rot = rotation;
+        int[][] predicted = BoardUtils.copyBoard(cells);
+        while (BoardUtils.canMovePiece(predicted, piece, 0, 1, rotation)) piece.moveBy(0, 1);
+        BoardUtils.lockPieceIntoBoard(predicted, piece);
+        BoardUtils.clearFullLines(predicted);
+        return predicted;
+    }
+
+    private boolean matchesPrediction(IGameBoard board) {
+        return board.current().type == predictedType
+                && board.getNextTetrominoType() == predictedNextType
+                && Arrays.deepEquals(board.cells(), predictedCells);
+    }
+
+    private void clearPrefetch() {
+        prefetchMove = null;
+        predictedCells = null;
+        predictedType = null;
+        predictedNextType = null;
+    }
+
+    /**
+     * Spawned pieces whose move came from a prefetch (hits) or needed a new request (misses).
+     */
+    public int getPrefetchHits() {
+        return prefetchHits;
+    }
+
+    public int getPrefetchMisses() {
+        return prefetchMisses;
+    }
+
+    /**
+     * Returns whether a server request is currently in flight.
+     */
+    public boolean isRequestPending() {
+        return pendingMove != null && !pendingMove.isDone();
+    }
+
     /**
      * Gets the next action based on the server's planned move.
      * Returns null when server is unavailable or no action needed.
      */
     public Action getNextAction(GameController gameController) {
         // No control when server unavailable
-        if (!client.isServerAvailable()) {
+        if (!server.isServerAvailable()) {
             return null;
         }
 
@@ -136,6 +353,7 @@ public class ExternalController {
      * Called when a piece is placed. Triggers planning for next piece.
      */
     public void onPiecePlaced() {
+        pieceSequence++;       // replies still in flight are now stale
         needNewMove = true;
         plannedMove = null;
         isExecuting = false;
@@ -145,17 +363,19 @@ public class ExternalController {
      * Called when game is reset.
      */
     public void reset() {
+        pieceSequence++;
+        clearPrefetch();
         needNewMove = true;
         plannedMove = null;
         isExecuting = false;
-        client.resetConnectionStatus();
+        server.resetConnectionStatus();
     }
 
     /**
      * Returns whether the external server is available for control.
      */
     public boolean isServerAvailable() {
-        return client.isServerAvailable();
+        return server.isServerAvailable();
     }
 
     /**
@@ -195,15 +415,13 @@ public class ExternalController {
             currentShape = board.current().shape();
         }
 
-        // Get next shape (if any) - need to check if GameBoard has this method
+        // Get next shape (if the board knows its preview)
         int[][] nextShape = null;
-        if (board instanceof tetris.model.board.GameBoard gameBoard) {
-            var nextType = gameBoard.getNextTetrominoType();
-            if (nextType != null) {
-                // Create temporary tetromino to get its shape
-                var tempNext = new tetris.model.tetromino.Tetromino(nextType, 0, 0);
-                nextShape = tempNext.shape();
-            }
+        var nextType = board.getNextTetrominoType();
+        if (nextType != null) {
+            // Create temporary tetromino to get its shape
+            var tempNext = new tetris.model.tetromino.Tetromino(nextType, 0, 0);
+            nextShape = tempNext.shape();
         }
 
         return new PureGame(width, height, cells, currentShape, nextShape);
@@ -0,0 +1,619 @@
+package tetris.controller.external;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import tetris.model.external.OpMove;
+import tetris.model.external.PureGame;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * LocalTetrisServer: embeddable, in-process stand-in for TetrisServer.jar.
+ *
+ * Speaks the same protocol as the reference server (one PureGame JSON line in,
+ * one OpMove JSON line out, on a kept-alive connection) plus the CompactProtocol
+ * binary frames, delta sessions and multiplexed connections the clients can
+ * negotiate (see TetrisServerClient, MultiplexedServerClient). Moves come
+ * from a pluggable MoveStrategy (TetrisAI by default).
+ *
+ * One selector thread does all socket I/O and protocol parsing, so a single
+ * instance serves hundreds of concurrent clients; strategies run on a small
+ * worker pool and replies are handed back to the selector. A plain connection
+ * has at most one request in progress, which keeps replies in request order; a
+ * multiplexed one dispatches every tagged request or batch as soon as it is
+ * read. The games of a batch are planned in parallel and answered together.
+ *
+ * For tests and load runs it can add artificial latency to every reply and
+ * inject failures (see Options). Both are drawn from a seeded Random, so a
+ * run with the same seed and request order fails the same requests.
+ *
+ * Usage: LocalTetrisServer [port] [latencyMillis] [failureRate]
+ */
+public class LocalTetrisServer implements AutoCloseable {
+
+    /** What an injected failure does to the request. */
+    public enum Failure {
+        CLOSE,      // close the connection without replying
+        NO_REPLY,   // never answer (the client times out); the connection hangs
+        BAD_REPLY   // answer with something that is not an OpMove
+    }
+
+    /**
+     * Server behaviour.
+     *
+     * @param minLatencyMillis Smallest delay added before each reply
+     * @param maxLatencyMillis Largest delay added before each reply (uniform in between)
+     * @param failureRate Probability (0-1) that a request fails
+     * @param failure How injected failures show up
+     * @param binary Whether the CompactProtocol handshake is accepted
+     * @param deltas Whether delta sessions are accepted (needs binary)
+     * @param multiplex Whether multiplexed connections are accepted (needs binary)
+     * @param batches Whether batches are accepted on them (needs multiplex)
+     * @param closeAfterReply Whether the connection is closed after each reply (like older servers)
+     * @param seed Seed of the latency and failure draws
+     */
+    public record Options(long minLatencyMillis, long maxLatencyMillis, double failureRate, Failure failure,
+                          boolean binary, boolean deltas, boolean multiplex, boolean batches,
+                          boolean closeAfterReply, long seed) {
+
+        public static final Options DEFAULT = new Options(0, 0, 0.0, Failure.CLOSE, true, true, true, true, false, 1L);
+
+        public Options {
+            if (minLatencyMillis < 0 || maxLatencyMillis < minLatencyMillis) {
+                throw new IllegalArgumentException("latency must be 0 <= min <= max: " + minLatencyMillis + ", " + maxLatencyMillis);
+            }
+            if (!(failureRate >= 0.0 && failureRate <= 1.0)) {
+                throw new IllegalArgumentException("failureRate must be 0-1: " + failureRate);
+            }
+        }
+
+        public Options withLatency(long minMillis, long maxMillis) {
+            return new Options(minMillis, maxMillis, failureRate, failure, binary, deltas, multiplex, batches,
+                    closeAfterReply, seed);
+        }
+
+        public Options withFailures(double rate, Failure kind) {
+            return new Options(minLatencyMillis, maxLatencyMillis, rate, kind, binary, deltas, multiplex, batches,
+                    closeAfterReply, seed);
+        }
+
+        /** JSON only when binary is false; frames without delta sessions when deltas is false. */
+        public Options withProtocols(boolean acceptBinary, boolean acceptDeltas) {
+            return new Options(minLatencyMillis, maxLatencyMillis, failureRate, failure,
+                    acceptBinary, acceptDeltas, multiplex, batches, closeAfterReply, seed);
+        }
+
+        /** No multiplexed connections when acceptMultiplexing is false; no batches on them when acceptBatches is. */
+        public Options withMultiplexing(boolean acceptMultiplexing, boolean acceptBatches) {
+            return new Options(minLatencyMillis, maxLatencyMillis, failureRate, failure,
+                    binary, deltas, acceptMultiplexing, acceptBatches, closeAfterReply, seed);
+        }
+
+        /** One connection per request when close is true: every reply is followed by a close. */
+        public Options withCloseAfterReply(boolean close) {
+            return new Options(minLatencyMillis, maxLatencyMillis, failureRate, failure,
+                    binary, deltas, multiplex, batches, close, seed);
+        }
+
+        public Options withSeed(long newSeed) {
+            return new Options(minLatencyMillis, maxLatencyMillis, failureRate, failure,
+                    binary, deltas, multiplex, batches, closeAfterReply, newSeed);
+        }
+    }
+
+    private static final int READ_BUFFER = 4096;
+    private static final byte[] BAD_LINE = "not a move\n".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] BAD_FRAME = {0, 0, 0, 1, '?'};
+
+    private final int requestedPort;
+    private final MoveStrategy strategy;
+    private final Options options;
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final Random random;   // selector thread only
+
+    private Selector selector;
+    private ServerSocketChannel serverChannel;
+    private Thread selectorThread;
+    private volatile boolean closed = false;
+    private ExecutorService workers;
+    private ScheduledExecutorService delays;
+    private final Queue<Reply> replied = new ConcurrentLinkedQueue<>();
+
+    private final AtomicInteger openConnections = new AtomicInteger();
+    private final AtomicLong totalConnections = new AtomicLong();
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicLong deltas = new AtomicLong();
+    private final AtomicLong resyncs = new AtomicLong();
+    private volatile boolean divergeReplica = false;   // see divergeNextReplica()
+
+    public LocalTetrisServer(int port) {
+        this(port, MoveStrategy.tetrisAI(), Options.DEFAULT);
+    }
+
+    /**
+     * @param port Port to listen on (0 = any free port, see getPort())
+     * @param strategy Chooses the moves (called on worker threads)
+     * @param options Latency, failure injection and protocol support
+     */
+    public LocalTetrisServer(int port, MoveStrategy strategy, Options options) {
+        this.requestedPort = port;
+        this.strategy = strategy;
+        this.options = options;
+        this.random = new Random(options.seed());
+    }
+
+    /**
+     * Binds the port and starts serving in the background.
+     *
+     * @return this server
+     */
+    public synchronized LocalTetrisServer start() throws IOException {
+        if (selector != null) throw new IllegalStateException("already started");
+        selector = Selector.open();
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(new InetSocketAddress(requestedPort), 512);
+        serverChannel.configureBlocking(false);
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+
+        workers = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), daemon("tetris-server-worker"));
+        delays = Executors.newSingleThreadScheduledExecutor(daemon("tetris-server-delay"));
+        selectorThread = daemon("tetris-server-selector").newThread(this::selectLoop);
+        selectorThread.start();
+        return this;
+    }
+
+    /** Port the server listens on. */
+    public int getPort() {
+        return serverChannel.socket().getLocalPort();
+    }
+
+    /** Connections currently open. */
+    public int getOpenConnections() {
+        return openConnections.get();
+    }
+
+    /** Connections accepted since start. */
+    public long getTotalConnections() {
+        return totalConnections.get();
+    }
+
+    /** Requests received (full boards and deltas; handshakes and resyncs not counted). */
+    public long getRequests() {
+        return requests.get();
+    }
+
+    /** Batch frames received (their games are counted in getRequests()). */
+    public long getBatches() {
+        return batches.get();
+    }
+
+    /** Requests (whole batches) that got an injected failure. */
+    public long getInjectedFailures() {
+        return failures.get();
+    }
+
+    /** Delta frames received (the answered ones are also counted in getRequests()). */
+    public long getDeltas() {
+        return deltas.get();
+    }
+
+    /** Delta frames answered with a resync because the replica could not take them. */
+    public long getResyncs() {
+        return resyncs.get();
+    }
+
+    /**
+     * Flips a cell of the replica the next delta is applied to, as a server whose
+     * copy of the board drifted would; the client's next checksum must catch it.
+     */
+    void divergeNextReplica() {
+        divergeReplica = true;
+    }
+
+    // ---- selector thread ----
+
+    private void selectLoop() {
+        try {
+            while (!closed) {
+                selector.select();
+                Reply done;
+                while ((done = replied.poll()) != null) flushReply(done);
+                for (SelectionKey key : selector.selectedKeys()) {
+                    if (!key.isValid()) continue;
+                    if (key.isAcceptable()) {
+                        accept();
+                    } else {
+                        Connection c = (Connection) key.attachment();
+                        if (key.isReadable()) read(c);
+                        if (key.isValid() && key.isWritable()) write(c);
+                    }
+                }
+                selector.selectedKeys().clear();
+            }
+        } catch (IOException | ClosedSelectorException e) {
+            System.err.println("[SERVER] Selector failed: " + e);
+        } finally {
+            // Only this thread touches the channels: close them here
+            try {
+                for (SelectionKey key : selector.keys()) key.channel().close();
+                selector.close();
+            } catch (IOException ignored) {
+                // Closing anyway
+            }
+        }
+    }
+
+    private void accept() {
+        try {
+            SocketChannel channel;
+            while ((channel = serverChannel.accept()) != null) {
+                channel.configureBlocking(false);
+                channel.socket().setTcpNoDelay(true);
+                Connection c = new Connection(channel);
+                c.key = channel.register(selector, SelectionKey.OP_READ, c);
+                openConnections.incrementAndGet();
+                totalConnections.incrementAndGet();
+            }
+        } catch (IOException e) {
+            System.err.println("[SERVER] Accept failed: " + e.getMessage());
+        }
+    }
+
+    private void read(Connection c) {
+        try {
+            int n = c.channel.read(c.in);
+            if (n < 0) {
+                close(c);
+                return;
+            }
+            if (!c.in.hasRemaining()) c.grow();
+            process(c);
+        } catch (IOException e) {
+            close(c);
+        }
+    }
+
+    // Handles complete requests in the buffer, one at a time unless multiplexed
+    private void process(Connection c) throws IOException {
+        while (!c.mux && !c.busy && c.key.isValid()) {
+            PureGame game = c.frames ? nextFrame(c) : nextLine(c);
+            if (game == null) break;
+            requests.incrementAndGet();
+            dispatch(c, new PureGame[]{game}, c.frames
+                    ? moves -> CompactProtocol.encodeMove(moves[0])
+                    : moves -> jsonLine(moves[0]));
+        }
+        while (c.mux && c.key.isValid() && nextTagged(c)) {
+            // every tagged request or batch is dispatched as soon as it is read
+        }
+    }
+
+    // Next request of the JSON line protocol (or the handshake), null if incomplete
+    private PureGame nextLine(Connection c) throws IOException {
+        while (true) {
+            int end = -1;
+            for (int i = 0; i < c.in.position(); i++) {
+                if (c.in.get(i) == '\n') {
+                    end = i;
+                    break;
+                }
+            }
+            if (end < 0) {
+                if (c.in.position() >= CompactProtocol.MAX_FRAME) throw new IOException("Line too long");
+                return null;
+            }
+            String line = new String(c.in.array(), 0, end, StandardCharsets.UTF_8).trim();
+            c.consume(end + 1);
+
+            if (options.binary() && (line.equals(CompactProtocol.HELLO) || line.equals(CompactProtocol.HELLO_DELTA)
+                    || line.equals(CompactProtocol.HELLO_MUX) || line.equals(CompactProtocol.HELLO_BATCH))) {
+                c.deltas = options.deltas() && line.equals(CompactProtocol.HELLO_DELTA);
+                c.mux = options.multiplex()
+                        && (line.equals(CompactProtocol.HELLO_MUX) || line.equals(CompactProtocol.HELLO_BATCH));
+                c.batches = c.mux && options.batches() && line.equals(CompactProtocol.HELLO_BATCH);
+                String answer = c.deltas ? CompactProtocol.HELLO_DELTA
+                        : c.batches ? CompactProtocol.HELLO_BATCH
+                        : c.mux ? CompactProtocol.HELLO_MUX : CompactProtocol.HELLO;
+                send(c, (answer + "\n").getBytes(StandardCharsets.UTF_8));
+                c.frames = true;
+                return c.in.position() > 0 && !c.mux ? nextFrame(c) : null;
+            }
+            if (line.isEmpty()) continue;
+            return mapper.readValue(line, PureGame.class);  // not a PureGame: the connection is closed
+        }
+    }
+
+    // Next request in CompactProtocol frames, null if incomplete (or answered with a resync)
+    private PureGame nextFrame(Connection c) throws IOException {
+        while (c.in.position() >= 4) {
+            int length = c.in.getInt(0);
+            if (length < 1 || length > CompactProtocol.MAX_FRAME) throw new IOException("Bad frame length: " + length);
+            if (c.in.position() < 4 + length) {
+                if (c.in.capacity() < 4 + length) c.grow(4 + length);
+                return null;
+            }
+            byte[] payload = new byte[length];
+            c.in.get(4, payload);
+            c.consume(4 + length);
+
+            if (payload[0] != CompactProtocol.DELTA) {
+                PureGame game = CompactProtocol.decodeGame(payload, mapper);
+                if (c.deltas) c.replica = BoardMirror.of(game);
+                return game;
+            }
+            CompactProtocol.Delta delta = CompactProtocol.decodeDelta(payload);
+            deltas.incrementAndGet();
+            if (divergeReplica && c.replica != null) {
+                divergeReplica = false;
+                int[][] cells = c.replica.toCells();
+                cells[0][0] ^= 1;
+                c.replica = BoardMirror.of(new PureGame(c.replica.width(), c.replica.height(), cells, null, null));
+            }
+            BoardMirror next = c.replica == null ? null : c.replica.applied(delta);
+            c.replica = next;
+            if (next != null) {
+                return new PureGame(next.width(), next.height(), next.toCells(), delta.currentShape(), delta.nextShape());
+            }
+            resyncs.incrementAndGet();
+            send(c, CompactProtocol.encodeResync());   // the full board follows
+        }
+        return null;
+    }
+
+    // Dispatches the next TAGGED or BATCH frame of a multiplexed connection; false if incomplete
+    private boolean nextTagged(Connection c) throws IOException {
+        if (c.in.position() < 4) return false;
+        int length = c.in.getInt(0);
+        if (length < 1 || length > CompactProtocol.MAX_FRAME) throw new IOException("Bad frame length: " + length);
+        if (c.in.position() < 4 + length) {
+            if (c.in.capacity() < 4 + length) c.grow(4 + length);
+            return false;
+        }
+        byte[] payload = new byte[length];
+        c.in.get(4, payload);
+        c.consume(4 + length);
+
+        if (payload[0] == CompactProtocol.BATCH && c.batches) {
+            CompactProtocol.Entry[] entries = CompactProtocol.decodeBatch(payload);
+            int[] ids = new int[entries.length];
+            PureGame[] games = new PureGame[entries.length];
+            for (int i = 0; i < entries.length; i++) {
+                ids[i] = entries[i].id();
+                games[i] = CompactProtocol.decodeGame(entries[i].payload(), mapper);
+            }
+            batches.incrementAndGet();
+            requests.addAndGet(games.length);
+            dispatch(c, games, moves -> {
+                byte[][] frames = new byte[moves.length][];
+                for (int i = 0; i < moves.length; i++) frames[i] = CompactProtocol.encodeMove(moves[i]);
+                return CompactProtocol.encodeBatch(ids, frames);
+            });
+        } else {
+            int tag = CompactProtocol.tagOf(payload);
+            PureGame game = CompactProtocol.decodeGame(CompactProtocol.untag(payload), mapper);
+            requests.incrementAndGet();
+            dispatch(c, new PureGame[]{game}, moves -> CompactProtocol.tag(tag, CompactProtocol.encodeMove(moves[0])));
+        }
+        return true;
+    }
+
+    /**
+     * Runs the strategy for every game on the workers, or injects a failure.
+     * Latency and failures are drawn once per request frame; the reply is
+     * encoded when the last game of it has its move.
+     */
+    private void dispatch(Connection c, PureGame[] games, Function<OpMove[], byte[]> encode) {
+        c.busy = !c.mux;
+        if (options.failureRate() > 0 && random.nextDouble() < options.failureRate()) {
+            failures.incrementAndGet();
+            switch (options.failure()) {
+                case CLOSE -> close(c);
+                case NO_REPLY -> { }   // stays busy for good
+                case BAD_REPLY -> {
+                    c.busy = false;
+                    send(c, c.frames ? BAD_FRAME : BAD_LINE);
+                }
+            }
+            return;
+        }
+        long latency = options.minLatencyMillis() + (options.maxLatencyMillis() > options.minLatencyMillis()
+                ? (long) (random.nextDouble() * (options.maxLatencyMillis() - options.minLatencyMillis() + 1))
+                : 0);
+        long due = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(latency);
+        OpMove[] moves = new OpMove[games.length];
+        AtomicInteger left = new AtomicInteger(games.length);   // the last worker sees every move
+        for (int i = 0; i < games.length; i++) {
+            int slot = i;
+            workers.execute(() -> {
+                moves[slot] = move(games[slot]);
+                if (left.decrementAndGet() > 0) return;
+                Reply reply = new Reply(c, encode.apply(moves));
+                long wait = due - System.nanoTime();
+                if (wait > 0) {
+                    delays.schedule(() -> complete(reply), wait, TimeUnit.NANOSECONDS);
+                } else {
+                    complete(reply);
+                }
+            });
+        }
+    }
+
+    // Worker thread: the strategy's move, opX=0, opRotate=0 when it has none
+    private OpMove move(PureGame game) {
+        OpMove move;
+        try {
+            move = strategy.chooseMove(game);
+        } catch (RuntimeException e) {
+            System.err.println("[SERVER] Strategy failed: " + e);
+            move = null;
+        }
+        return move == null ? new OpMove(0, 0) : move;
+    }
+
+    private byte[] jsonLine(OpMove move) {
+        try {
+            byte[] json = mapper.writeValueAsBytes(move);
+            byte[] line = Arrays.copyOf(json, json.length + 1);
+            line[json.length] = '\n';
+            return line;
+        } catch (IOException e) {
+            throw new IllegalStateException("OpMove is always serializable", e);
+        }
+    }
+
+    private void complete(Reply reply) {
+        replied.add(reply);
+        selector.wakeup();
+    }
+
+    private void flushReply(Reply reply) {
+        Connection c = reply.connection();
+        if (!c.key.isValid()) return;
+        c.closeWhenFlushed = options.closeAfterReply();
+        send(c, reply.data());
+        c.busy = false;
+        try {
+            process(c);   // requests sent while this one was in progress
+        } catch (IOException e) {
+            close(c);
+        }
+    }
+
+    private void send(Connection c, byte[] data) {
+        c.out.add(ByteBuffer.wrap(data));
+        write(c);
+    }
+
+    private void write(Connection c) {
+        try {
+            c.flush();
+            if (c.closeWhenFlushed && c.out.isEmpty()) close(c);
+        } catch (IOException e) {
+            close(c);
+        }
+    }
+
+    private void close(Connection c) {
+        if (!c.key.isValid()) return;
+        c.key.cancel();
+        openConnections.decrementAndGet();
+        try {
+            c.channel.close();
+        } catch (IOException ignored) {
+            // Already gone
+        }
+    }
+
+    /** Encoded reply of a worker, handed over to the selector thread. */
+    private record Reply(Connection connection, byte[] data) {
+    }
+
+    /** Per-connection state, touched only by the selector thread. */
+    private static final class Connection {
+        final SocketChannel channel;
+        final Queue<ByteBuffer> out = new ArrayDeque<>();
+        SelectionKey key;
+        ByteBuffer in = ByteBuffer.allocate(READ_BUFFER);
+        boolean frames = false;
+        boolean deltas = false;
+        boolean mux = false;
+        boolean batches = false;
+        BoardMirror replica;
+        boolean busy = false;
+        boolean closeWhenFlushed = false;
+
+        Connection(SocketChannel channel) {
+            this.channel = channel;
+        }
+
+        void grow() {
+            grow(in.capacity() * 2);
+        }
+
+        void grow(int capacity) {
+            ByteBuffer bigger = ByteBuffer.allocate(capacity);
+            in.flip();
+            bigger.put(in);
+            in = bigger;
+        }
+
+        // Drops the first n buffered bytes
+        void consume(int n) {
+            in.flip();
+            in.position(n);
+            in.compact();
+        }
+
+        // Writes what the socket takes now; waits for OP_WRITE for the rest
+        void flush() throws IOException {
+            while (!out.isEmpty()) {
+                ByteBuffer head = out.peek();
+                channel.write(head);
+                if (head.hasRemaining()) break;
+                out.poll();
+            }
+            if (key.isValid()) {
+                key.interestOps(out.isEmpty() ? SelectionKey.OP_READ : SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+            }
+        }
+    }
+
+    private static ThreadFactory daemon(String name) {
+        AtomicInteger count = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, name + "-" + count.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+
+    /**
+     * Stops serving and closes every connection. Safe to call more than once.
+     */
+    @Override
+    public synchronized void close() {
+        if (selector == null || closed) return;
+        closed = true;
+        selector.wakeup();
+        try {
+            selectorThread.join(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        workers.shutdownNow();
+        delays.shutdownNow();
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : TetrisServerClient.DEFAULT_PORT;
+        long latency = args.length > 1 ? Long.parseLong(args[1]) : 0;
+        double failureRate = args.length > 2 ? Double.parseDouble(args[2]) : 0.0;
+        Options options = Options.DEFAULT.withLatency(latency, latency).withFailures(failureRate, Failure.CLOSE);
+
+        LocalTetrisServer server = new LocalTetrisServer(port, MoveStrategy.tetrisAI(), options).start();
+        System.out.println("[SERVER] Listening on port " + server.getPort());
+        server.selectorThread.join();
+    }
+}
@@ -0,0 +1,63 @@
+package tetris.controller.external;
+
+import tetris.model.ai.AIMove;
+import tetris.model.ai.MovePlanner;
+import tetris.model.ai.TetrisAI;
+import tetris.model.board.GameBoard;
+import tetris.model.external.OpMove;
+import tetris.model.external.PureGame;
+import tetris.model.tetromino.Tetromino;
+import tetris.model.tetromino.TetrominoType;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * MoveStrategy: how LocalTetrisServer answers a PureGame request.
+ *
+ * Strategies run on the server's worker threads, several at a time, so they
+ * must be thread-safe; planner() gives every worker thread its own planner.
+ */
+@FunctionalInterface
+public interface MoveStrategy {
+
+    /**
+     * Chooses the move for the current piece of the game.
+     *
+     * @param game Board and pieces as sent by the client (only occupancy is meaningful)
+     * @return The move, or null when there is none (the server then answers opX=0, opRotate=0)
+     */
+    OpMove chooseMove(PureGame game);
+
+    /** TetrisAI with a one-piece lookahead, one instance per worker thread. */
+    static MoveStrategy tetrisAI() {
+        return planner(() -> new TetrisAI().withLookahead(TetrisAI.DEFAULT_LOOKAHEAD_WIDTH));
+    }
+
+    /**
+     * Answers with the moves of a MovePlanner. The game is loaded into a GameBoard
+     * kept per worker thread; the next shape, if known, is passed as the preview.
+     *
+     * @param factory Creates the planner of each worker thread
+     */
+    static MoveStrategy planner(Supplier<? extends MovePlanner> factory) {
+        ThreadLocal<MovePlanner> planners = ThreadLocal.withInitial(factory);
+        ThreadLocal<GameBoard> boards = new ThreadLocal<>();
+        return game -> {
+            TetrominoType type = CompactProtocol.typeOf(game.getCurrentShape());
+            if (type == null || game.getCells() == null) return null;
+
+            GameBoard board = boards.get();
+            if (board == null || board.getWidth() != game.getWidth() || board.getHeight() != game.getHeight()) {
+                board = new GameBoard(game.getWidth(), game.getHeight(), null);
+                boards.set(board);
+            }
+            board.load(game.getCells());
+
+            TetrominoType next = CompactProtocol.typeOf(game.getNextShape());
+            AIMove move = planners.get().planMove(board, new Tetromino(type, game.getWidth() / 2 - 2, 0),
+                    next == null ? List.of() : List.of(next));
+            return move == null ? null : new OpMove(move.targetX(), move.targetRotation());
+        };
+    }
+}
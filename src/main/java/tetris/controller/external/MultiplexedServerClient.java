@@ -0,0 +1,698 @@
+package tetris.controller.external;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import tetris.model.external.OpMove;
+import tetris.model.external.PureGame;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * MultiplexedServerClient: one client runtime shared by many external players.
+ *
+ * Instead of a TetrisServerClient (and a socket) per game, any number of games
+ * submit their PureGame requests here and get a CompletableFuture of the move.
+ * The requests are spread over a small, fixed pool of connections and
+ * multiplexed on them (CompactProtocol.HELLO_MUX): each one is a TAGGED frame
+ * with its own correlation id and replies are matched by id, so a slow move
+ * never holds up the others on its connection. A single selector thread does
+ * all the socket I/O; callers never block.
+ *
+ * Batching: requests that are queued together, or arrive within
+ * batchWindowMillis of the oldest queued one, go out as one BATCH frame of up
+ * to maxBatch games and come back as one BATCH of moves, which the selector
+ * thread hands to the waiting futures by correlation id. One write, one server
+ * wakeup and one read per batch instead of per game. The default window of 0
+ * adds no latency: only requests already waiting when the selector thread gets
+ * to them are batched. A server without batch support is sent TAGGED frames.
+ *
+ * - Backpressure: at most maxInFlight requests are queued or in flight. Beyond
+ *   that requestMove() fails at once with a RejectedExecutionException instead
+ *   of queueing without bound (an ExternalController simply asks again).
+ * - Deadlines: a request not answered within its timeout fails with a
+ *   TimeoutException; a reply arriving later is dropped.
+ * - A connection that fails takes only its own in-flight requests with it and
+ *   is reopened for the next ones. While the server cannot be reached requests
+ *   fail immediately, and reconnection backs off like TetrisServerClient's.
+ *
+ * A server that does not acknowledge HELLO_MUX (such as the reference
+ * TetrisServer) is served by one blocking TetrisServerClient per pool slot
+ * instead, taking requests from the same bounded queue.
+ */
+public class MultiplexedServerClient implements AutoCloseable {
+
+    /**
+     * Pool size and limits.
+     *
+     * @param connections Connections to the server
+     * @param maxInFlight Requests queued or in flight at a time, over all games
+     * @param timeoutMillis Default deadline of a request
+     * @param maxBatch Most games per batch frame (1 = no batching)
+     * @param batchWindowMillis Longest a queued request waits for others to batch with
+     */
+    public record Options(int connections, int maxInFlight, long timeoutMillis, int maxBatch, long batchWindowMillis) {
+
+        public static final Options DEFAULT = new Options(4, 512, 5000, 32, 0);
+
+        public Options {
+            if (connections < 1) throw new IllegalArgumentException("connections must be >= 1: " + connections);
+            if (maxInFlight < 1) throw new IllegalArgumentException("maxInFlight must be >= 1: " + maxInFlight);
+            if (timeoutMillis < 1) throw new IllegalArgumentException("timeoutMillis must be >= 1: " + timeoutMillis);
+            if (maxBatch < 1 || maxBatch > Short.MAX_VALUE) {
+                throw new IllegalArgumentException("maxBatch must be 1-" + Short.MAX_VALUE + ": " + maxBatch);
+            }
+            if (batchWindowMillis < 0) throw new IllegalArgumentException("batchWindowMillis must be >= 0: " + batchWindowMillis);
+        }
+
+        public Options withConnections(int count) {
+            return new Options(count, maxInFlight, timeoutMillis, maxBatch, batchWindowMillis);
+        }
+
+        public Options withMaxInFlight(int limit) {
+            return new Options(connections, limit, timeoutMillis, maxBatch, batchWindowMillis);
+        }
+
+        public Options withTimeout(long millis) {
+            return new Options(connections, maxInFlight, millis, maxBatch, batchWindowMillis);
+        }
+
+        /** Batches of up to maxGames requests, waiting at most windowMillis for them to fill. */
+        public Options withBatching(int maxGames, long windowMillis) {
+            return new Options(connections, maxInFlight, timeoutMillis, maxGames, windowMillis);
+        }
+    }
+
+    private static final int READ_BUFFER = 4096;
+    private static final long HANDSHAKE_TIMEOUT = 1000; // a JSON-only server may never answer the handshake
+    private static final long POLL_INTERVAL = 100;      // while connecting, handshaking or backing off
+    private static final long SWEEP_INTERVAL = 1000;    // drops timed-out requests from the connections
+    private static final long INITIAL_RECONNECTION_DELAY = 250;
+    private static final long RECONNECTION_DELAY = 3000;
+
+    private final InetSocketAddress address;
+    private final Options options;
+    private final Semaphore permits;
+    private final long sweepInterval;   // SWEEP_INTERVAL outside tests
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final BlockingQueue<Request> queue = new LinkedBlockingQueue<>();
+    private final AtomicInteger nextId = new AtomicInteger();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong timedOut = new AtomicLong();
+    private final AtomicLong batchesSent = new AtomicLong();
+    // Set while a new request needs no wakeup: one is already on its way, or an open batch
+    // window will end the select anyway. Only the I/O thread clears it, before reading the queue.
+    private final AtomicBoolean wakeupPending = new AtomicBoolean();
+
+    private volatile Selector selector;
+    private Thread ioThread;
+    private final List<Thread> fallbackThreads = new ArrayList<>();
+    private final List<Link> links = new ArrayList<>();   // I/O thread only
+    private long nextSweep = 0;                          // I/O thread only
+
+    private volatile boolean closed = false;
+    private volatile boolean fallback = false;   // the server does not multiplex
+    private volatile boolean multiplexed = false;
+    private volatile int openConnections = 0;
+    private volatile boolean serverAvailable = false;
+    private volatile long lastFailure = 0;
+    private volatile long reconnectionDelay = INITIAL_RECONNECTION_DELAY;
+
+    public MultiplexedServerClient() {
+        this(System.getProperty(TetrisServerClient.HOST_PROPERTY, TetrisServerClient.DEFAULT_HOST),
+                Integer.getInteger(TetrisServerClient.PORT_PROPERTY, TetrisServerClient.DEFAULT_PORT), Options.DEFAULT);
+    }
+
+    /**
+     * @param host Server host
+     * @param port Server port
+     * @param options Pool size, in-flight limit and default deadline
+     */
+    public MultiplexedServerClient(String host, int port, Options options) {
+        this(host, port, options, SWEEP_INTERVAL);
+    }
+
+    /**
+     * Client with another sweep interval; tests use a long one, so that a request
+     * the selector missed stalls instead of going out with the next sweep.
+     */
+    MultiplexedServerClient(String host, int port, Options options, long sweepIntervalMillis) {
+        this.address = InetSocketAddress.createUnresolved(host, port);
+        this.options = options;
+        this.permits = new Semaphore(options.maxInFlight());
+        this.sweepInterval = sweepIntervalMillis;
+    }
+
+    /** One move request and the future its game polls. */
+    private static final class Request {
+        final int id;
+        final PureGame game;
+        final CompletableFuture<OpMove> move = new CompletableFuture<>();
+        final long queuedAt = System.nanoTime();
+
+        Request(int id, PureGame game) {
+            this.id = id;
+            this.game = game;
+        }
+    }
+
+    /**
+     * Requests the move for a game state with the default deadline.
+     */
+    public CompletableFuture<OpMove> requestMove(PureGame game) {
+        return requestMove(game, options.timeoutMillis());
+    }
+
+    /**
+     * Requests the move for a game state. Never blocks; the future fails with a
+     * RejectedExecutionException when too many requests are outstanding, a
+     * TimeoutException past the deadline, or an IOException when the server
+     * cannot be reached or drops the connection.
+     *
+     * @param game State to plan for (not modified)
+     * @param timeoutMillis Deadline of this request
+     */
+    public CompletableFuture<OpMove> requestMove(PureGame game, long timeoutMillis) {
+        if (closed) return CompletableFuture.failedFuture(new IllegalStateException("Client is closed"));
+        // Don't queue for a server that was just found down: fail until the next attempt is due
+        if (!fallback && !serverAvailable && lastFailure != 0
+                && System.currentTimeMillis() - lastFailure < reconnectionDelay) {
+            return CompletableFuture.failedFuture(new ConnectException("Server unavailable"));
+        }
+        if (!permits.tryAcquire()) {
+            rejected.incrementAndGet();
+            return CompletableFuture.failedFuture(
+                    new RejectedExecutionException(options.maxInFlight() + " move requests already in flight"));
+        }
+        Request request = new Request(nextId.incrementAndGet(), game);
+        request.move.orTimeout(timeoutMillis, TimeUnit.MILLISECONDS).whenComplete((move, failure) -> {
+            permits.release();
+            if (failure instanceof TimeoutException) timedOut.incrementAndGet();
+        });
+        queue.add(request);
+        // Checked after the add: an I/O thread that failed either fails this request
+        // with the rest of the queue or has already cleared the selector for a new one
+        Selector s = selector;
+        try {
+            if (s == null) s = start();
+        } catch (IOException e) {
+            request.move.completeExceptionally(e);
+            return request.move;
+        }
+        // The size is read after our add, so whichever request fills a batch sees it full
+        boolean full = options.maxBatch() > 1 && queue.size() >= options.maxBatch();
+        if (!fallback && (wakeupPending.compareAndSet(false, true) || full)) s.wakeup();
+        return request.move;
+    }
+
+    private synchronized Selector start() throws IOException {
+        if (selector != null) return selector;
+        selector = Selector.open();
+        ioThread = new Thread(this::ioLoop, "tetris-mux-io");
+        ioThread.setDaemon(true);
+        ioThread.start();
+        return selector;
+    }
+
+    // ---- I/O thread ----
+
+    private void ioLoop() {
+        Exception failure = null;
+        try {
+            while (!closed && !fallback) {
+                openMissingLinks();
+                wakeupPending.set(false);
+                selector.select(selectTimeout());
+                for (SelectionKey key : selector.selectedKeys()) {
+                    if (!key.isValid()) continue;
+                    Link link = (Link) key.attachment();
+                    if (key.isConnectable()) finishConnect(link);
+                    if (key.isValid() && key.isReadable()) read(link);
+                    if (key.isValid() && key.isWritable()) write(link);
+                }
+                selector.selectedKeys().clear();
+                if (fallback) break;
+                expireHandshakes();
+                dispatchQueued();
+                sweep();
+            }
+        } catch (IOException | RuntimeException e) {
+            System.err.println("[EXTERNAL] Multiplexer failed: " + e);
+            failure = e;
+        } finally {
+            boolean failed = !closed && !fallback;
+            IOException gone = failed ? new IOException("Multiplexer failed", failure)
+                    : new IOException(fallback ? "Switched to blocking connections" : "Client closed");
+            for (Link link : List.copyOf(links)) drop(link, gone);
+            try {
+                selector.close();
+            } catch (IOException ignored) {
+                // Closing anyway
+            }
+            if (fallback && !closed) startFallback();
+            if (closed) failQueued(new IllegalStateException("Client closed"));
+            if (failed) restartAfterFailure(gone);
+        }
+    }
+
+    // Until the next sweep, connection check or batch window end
+    private long selectTimeout() {
+        boolean settled = links.size() == options.connections()
+                && links.stream().allMatch(l -> l.state == Link.State.READY);
+        if (!settled) return POLL_INTERVAL;
+        Request oldest = queue.peek();
+        if (oldest == null) return sweepInterval;
+        long waited = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - oldest.queuedAt);
+        long remaining = options.batchWindowMillis() - waited;
+        // The window end wakes us; until then only a full batch needs to
+        if (remaining > 0) wakeupPending.set(true);
+        return Math.max(1, Math.min(sweepInterval, remaining));
+    }
+
+    // Keeps the pool full, unless the last attempt failed less than the backoff delay ago
+    private void openMissingLinks() {
+        if (lastFailure != 0 && System.currentTimeMillis() - lastFailure < reconnectionDelay) return;
+        while (links.size() < options.connections()) {
+            Link link = null;
+            try {
+                SocketChannel channel = SocketChannel.open();
+                link = new Link(channel);
+                links.add(link);
+                openConnections = links.size();
+                channel.configureBlocking(false);
+                channel.socket().setTcpNoDelay(true);
+                InetSocketAddress target = new InetSocketAddress(address.getHostString(), address.getPort());
+                link.key = channel.register(selector, SelectionKey.OP_CONNECT, link);
+                if (channel.connect(target)) finishConnect(link);
+            } catch (IOException e) {
+                if (link != null) drop(link, e);
+                connectFailed(e);
+                return;
+            }
+        }
+    }
+
+    private void finishConnect(Link link) {
+        try {
+            if (!link.channel.finishConnect()) return;
+            link.state = Link.State.HANDSHAKE;
+            link.handshakeDeadline = System.currentTimeMillis() + HANDSHAKE_TIMEOUT;
+            String hello = options.maxBatch() > 1 ? CompactProtocol.HELLO_BATCH : CompactProtocol.HELLO_MUX;
+            send(link, (hello + "\n").getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            drop(link, e);
+            connectFailed(e);
+        }
+    }
+
+    private void connectFailed(IOException e) {
+        if (serverAvailable) System.err.println("[EXTERNAL] Server connection lost: " + e.getMessage());
+        if (!serverAvailable && lastFailure != 0) {
+            reconnectionDelay = Math.min(reconnectionDelay * 2, RECONNECTION_DELAY);
+        }
+        serverAvailable = false;
+        lastFailure = System.currentTimeMillis();
+        if (links.stream().noneMatch(l -> l.state == Link.State.READY)) {
+            failQueued(new ConnectException("Server unavailable: " + e.getMessage()));
+        }
+    }
+
+    private void read(Link link) {
+        try {
+            int n = link.channel.read(link.in);
+            if (n < 0) throw new IOException("Server closed the connection");
+            if (!link.in.hasRemaining()) link.grow(link.in.capacity() * 2);
+            if (link.state == Link.State.HANDSHAKE) {
+                String answer = link.nextLine();
+                if (answer == null) return;
+                link.batches = CompactProtocol.HELLO_BATCH.equals(answer) && options.maxBatch() > 1;
+                if (!link.batches && !CompactProtocol.HELLO_MUX.equals(answer)) {
+                    refused();
+                    return;
+                }
+                link.state = Link.State.READY;
+                multiplexed = true;
+                if (!serverAvailable) System.out.println("[EXTERNAL] Multiplexed server connection established");
+                serverAvailable = true;
+                lastFailure = 0;
+                reconnectionDelay = INITIAL_RECONNECTION_DELAY;
+            }
+            byte[] payload;
+            while ((payload = link.nextFrame()) != null) {
+                if (payload[0] == CompactProtocol.BATCH) {
+                    for (CompactProtocol.Entry entry : CompactProtocol.decodeBatch(payload)) {
+                        answer(link, entry.id(), CompactProtocol.decodeMove(entry.payload()));
+                    }
+                } else {
+                    answer(link, CompactProtocol.tagOf(payload), CompactProtocol.decodeMove(CompactProtocol.untag(payload)));
+                }
+            }
+        } catch (IOException e) {
+            if (link.state == Link.State.HANDSHAKE) {
+                refused();   // closing on an unknown first line is how a JSON-only server refuses
+            } else {
+                drop(link, e);
+            }
+        }
+    }
+
+    private static void answer(Link link, int id, OpMove move) {
+        Request request = link.inFlight.remove(id);
+        if (request != null) request.move.complete(move);   // no-op if it timed out
+    }
+
+    private void write(Link link) {
+        try {
+            link.flush();
+        } catch (IOException e) {
+            drop(link, e);
+        }
+    }
+
+    private void send(Link link, byte[] data) throws IOException {
+        link.out.add(ByteBuffer.wrap(data));
+        link.flush();
+    }
+
+    // A handshake nobody answers means the server only speaks JSON
+    private void expireHandshakes() {
+        long now = System.currentTimeMillis();
+        for (Link link : links) {
+            if (link.state == Link.State.HANDSHAKE && now >= link.handshakeDeadline) {
+                refused();
+                return;
+            }
+        }
+    }
+
+    private void refused() {
+        System.out.println("[EXTERNAL] Server does not multiplex - using " + options.connections()
+                + " blocking connections");
+        fallback = true;
+    }
+
+    // Sends queued requests on the ready connection with the fewest in flight,
+    // in batches once one is full or the oldest request's window has passed
+    private void dispatchQueued() {
+        Request head;
+        while ((head = queue.peek()) != null) {
+            if (head.move.isDone()) {
+                queue.poll();   // timed out while queued: neither sent nor counted towards a batch
+                continue;
+            }
+            Link target = null;
+            for (Link link : links) {
+                if (link.state == Link.State.READY && (target == null || link.inFlight.size() < target.inFlight.size())) {
+                    target = link;
+                }
+            }
+            if (target == null) return;
+            if (target.batches && queue.size() < options.maxBatch()
+                    && System.nanoTime() - head.queuedAt < TimeUnit.MILLISECONDS.toNanos(options.batchWindowMillis())) {
+                return;   // the window is still open
+            }
+
+            List<Request> batch = new ArrayList<>();
+            Request request;
+            while (batch.size() < (target.batches ? options.maxBatch() : 1) && (request = queue.poll()) != null) {
+                if (!request.move.isDone()) batch.add(request);   // else timed out while queued
+            }
+            if (batch.isEmpty()) continue;
+            try {
+                byte[][] frames = new byte[batch.size()][];
+                int[] ids = new int[batch.size()];
+                for (int i = 0; i < frames.length; i++) {
+                    Request r = batch.get(i);
+                    frames[i] = CompactProtocol.encodeGame(r.game);
+                    if (frames[i] == null) frames[i] = CompactProtocol.jsonFrame(mapper.writeValueAsBytes(r.game));
+                    ids[i] = r.id;
+                    target.inFlight.put(r.id, r);
+                }
+                if (frames.length == 1) {
+                    send(target, CompactProtocol.tag(ids[0], frames[0]));
+                } else {
+                    batchesSent.incrementAndGet();
+                    send(target, CompactProtocol.encodeBatch(ids, frames));
+                }
+            } catch (IOException e) {
+                drop(target, e);
+            }
+        }
+    }
+
+    // Forgets requests whose deadline passed (their reply, if any, is ignored)
+    private void sweep() {
+        long now = System.currentTimeMillis();
+        if (now < nextSweep) return;
+        nextSweep = now + sweepInterval;
+        for (Link link : links) link.inFlight.values().removeIf(r -> r.move.isDone());
+    }
+
+    private void drop(Link link, IOException cause) {
+        if (link.state == Link.State.READY) {
+            System.err.println("[EXTERNAL] Multiplexed connection failed: " + cause.getMessage());
+        }
+        links.remove(link);
+        openConnections = links.size();
+        if (link.key != null) link.key.cancel();
+        try {
+            link.channel.close();
+        } catch (IOException ignored) {
+            // Already gone
+        }
+        for (Request request : link.inFlight.values()) request.move.completeExceptionally(cause);
+        link.inFlight.clear();
+    }
+
+    /**
+     * Fails what the dead I/O thread had queued and clears the selector, so the
+     * next request starts a new thread. A request queued between the two never
+     * sees a cleared selector, so it is served by a thread started here.
+     */
+    private void restartAfterFailure(IOException cause) {
+        failQueued(cause);
+        selector = null;
+        if (!queue.isEmpty()) {
+            try {
+                start();
+            } catch (IOException e) {
+                failQueued(e);
+            }
+        }
+        serverAvailable = false;
+    }
+
+    private void failQueued(Exception cause) {
+        Request request;
+        while ((request = queue.poll()) != null) request.move.completeExceptionally(cause);
+    }
+
+    // ---- blocking fallback ----
+
+    private synchronized void startFallback() {
+        if (closed) return;
+        for (int i = 0; i < options.connections(); i++) {
+            Thread t = new Thread(this::fallbackLoop, "tetris-mux-fallback-" + (i + 1));
+            t.setDaemon(true);
+            fallbackThreads.add(t);
+            t.start();
+        }
+    }
+
+    private void fallbackLoop() {
+        try (TetrisServerClient client = new TetrisServerClient(address.getHostString(), address.getPort(),
+                TetrisServerClient.Mode.PERSISTENT, TetrisServerClient.Protocol.BINARY)) {
+            while (!closed) {
+                Request request = queue.take();
+                if (request.move.isDone()) continue;
+                OpMove move = client.getOptimalMove(request.game);
+                serverAvailable = move != null || client.isServerAvailable();
+                if (move != null) {
+                    request.move.complete(move);
+                } else {
+                    request.move.completeExceptionally(new IOException("No reply from server"));
+                }
+            }
+        } catch (InterruptedException e) {
+            // Closing
+        }
+    }
+
+    // ---- status ----
+
+    /**
+     * Whether the last connection attempt or request reached the server.
+     */
+    public boolean isServerAvailable() {
+        return serverAvailable;
+    }
+
+    /**
+     * Whether the server accepted multiplexed connections (false before the
+     * first handshake and after falling back to blocking connections).
+     */
+    public boolean isMultiplexed() {
+        return multiplexed && !fallback;
+    }
+
+    /** Multiplexed connections currently open or being opened. */
+    public int getOpenConnections() {
+        return openConnections;
+    }
+
+    /** Requests queued or waiting for their reply. */
+    public int getInFlight() {
+        return options.maxInFlight() - permits.availablePermits();
+    }
+
+    /** Batch frames sent (requests sent on their own are not counted). */
+    public long getBatchesSent() {
+        return batchesSent.get();
+    }
+
+    /** Requests refused because maxInFlight were already outstanding. */
+    public long getRejected() {
+        return rejected.get();
+    }
+
+    /** Requests that failed their deadline. */
+    public long getTimedOut() {
+        return timedOut.get();
+    }
+
+    /**
+     * Allows an immediate reconnection attempt. Shared connections that work
+     * are kept: one game resetting does not disturb the others.
+     */
+    public void resetConnectionStatus() {
+        lastFailure = 0;
+        reconnectionDelay = INITIAL_RECONNECTION_DELAY;
+        Selector s = selector;
+        if (s != null && !fallback) s.wakeup();
+    }
+
+    /**
+     * Closes the selector under the running I/O thread, so it fails like a broken
+     * select() would; the client must recover on the next request (for tests).
+     */
+    void breakSelector() throws IOException {
+        Selector s = selector;
+        if (s != null) s.close();
+    }
+
+    /**
+     * Closes every connection; outstanding requests fail. Safe to call more than once.
+     */
+    @Override
+    public void close() {
+        List<Thread> threads;
+        synchronized (this) {
+            if (closed) return;
+            closed = true;
+            threads = List.copyOf(fallbackThreads);
+        }
+        Selector s = selector;
+        if (s != null) {
+            s.wakeup();
+            try {
+                ioThread.join(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        threads.forEach(Thread::interrupt);
+        failQueued(new IllegalStateException("Client closed"));
+    }
+
+    /** One pooled connection, touched only by the I/O thread. */
+    private static final class Link {
+        enum State { CONNECTING, HANDSHAKE, READY }
+
+        final SocketChannel channel;
+        final Queue<ByteBuffer> out = new ArrayDeque<>();
+        final Map<Integer, Request> inFlight = new HashMap<>();
+        SelectionKey key;
+        State state = State.CONNECTING;
+        boolean batches = false;   // the server takes BATCH frames
+        long handshakeDeadline;
+        ByteBuffer in = ByteBuffer.allocate(READ_BUFFER);
+
+        Link(SocketChannel channel) {
+            this.channel = channel;
+        }
+
+        void grow(int capacity) {
+            ByteBuffer bigger = ByteBuffer.allocate(capacity);
+            in.flip();
+            bigger.put(in);
+            in = bigger;
+        }
+
+        void consume(int n) {
+            in.flip();
+            in.position(n);
+            in.compact();
+        }
+
+        // Handshake answer, or null until the whole line is buffered
+        String nextLine() throws IOException {
+            for (int i = 0; i < in.position(); i++) {
+                if (in.get(i) == '\n') {
+                    String line = new String(in.array(), 0, i, StandardCharsets.UTF_8).trim();
+                    consume(i + 1);
+                    return line;
+                }
+            }
+            if (in.position() >= CompactProtocol.MAX_FRAME) throw new IOException("Line too long");
+            return null;
+        }
+
+        // Next complete frame's payload, or null until one is buffered
+        byte[] nextFrame() throws IOException {
+            if (in.position() < 4) return null;
+            int length = in.getInt(0);
+            if (length < 1 || length > CompactProtocol.MAX_FRAME) throw new IOException("Bad frame length: " + length);
+            if (in.position() < 4 + length) {
+                if (in.capacity() < 4 + length) grow(4 + length);
+                return null;
+            }
+            byte[] payload = new byte[length];
+            in.get(4, payload);
+            consume(4 + length);
+            return payload;
+        }
+
+        void flush() throws IOException {
+            while (!out.isEmpty()) {
+                ByteBuffer head = out.peek();
+                channel.write(head);
+                if (head.hasRemaining()) break;
+                out.poll();
+            }
+            if (key.isValid() && state != State.CONNECTING) {
+                key.interestOps(out.isEmpty() ? SelectionKey.OP_READ : SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+            }
+        }
+    }
+}
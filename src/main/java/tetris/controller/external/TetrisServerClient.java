@@ -1,110 +1,351 @@
 package tetris.controller.external;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import tetris.model.external.OpMove;
 import tetris.model.external.PureGame;
 
 import java.io.*;
 import java.net.ConnectException;
+import java.net.InetSocketAddress;
 import java.net.Socket;
 import java.net.SocketTimeoutException;
+import java.util.Locale;
 
 /**
  * TetrisServerClient: Handles communication with the external TetrisServer.
  *
  * Features:
- * - Connects to localhost:3000
- * - Sends PureGame state and receives OpMove response
- * - Handles connection failures gracefully
- * - Creates new connection for each request (as per spec)
+ * - Connects to localhost:3000 by default (override with -Dtetris.server.host / -Dtetris.server.port)
+ * - Sends PureGame state as one JSON line and receives one OpMove JSON line back
+ * - Handles connection failures gracefully, retrying with exponential backoff
+ * - Two connection modes:
+ *   PERSISTENT  : keeps one socket open across requests, skipping the TCP handshake
+ *                 and stream setup per piece; reconnects transparently when it drops
+ *   PER_REQUEST : opens a new connection for each request (as per spec)
+ *
+ * A persistent client falls back to PER_REQUEST by itself when the server keeps
+ * closing the connection after each reply (as the reference TetrisServer does).
+ *
+ * Wire protocol (-Dtetris.server.protocol=json|binary|delta):
+ *   JSON   : one JSON line per request and reply (the reference TetrisServer)
+ *   BINARY : CompactProtocol frames, negotiated when a persistent connection opens.
+ *            A server that does not acknowledge the handshake is spoken to in JSON
+ *            from then on. PER_REQUEST connections always use JSON, since each
+ *            would pay a handshake round-trip.
+ *   DELTA  : BINARY plus a delta session per connection (see DeltaSession): after
+ *            the first full board only the placed piece and cleared rows are sent.
+ *            Falls back to BINARY, then JSON, as far as the server supports.
+ *
+ * Requests are serialized (one socket, one request in flight); availability can
+ * be queried from any thread without waiting for a request to finish.
  */
-public class TetrisServerClient {
-    private static final String SERVER_HOST = "localhost";
-    private static final int SERVER_PORT = 3000;
+public class TetrisServerClient implements AutoCloseable {
+
+    public enum Mode { PERSISTENT, PER_REQUEST }
+
+    public enum Protocol { JSON, BINARY, DELTA }
+
+    public static final String DEFAULT_HOST = "localhost";
+    public static final int DEFAULT_PORT = 3000;
+    public static final String HOST_PROPERTY = "tetris.server.host";
+    public static final String PORT_PROPERTY = "tetris.server.port";
+    public static final String PROTOCOL_PROPERTY = "tetris.server.protocol";
+
     private static final int CONNECTION_TIMEOUT = 2000; // 2 seconds
     private static final int READ_TIMEOUT = 5000; // 5 seconds
+    private static final int NEGOTIATION_TIMEOUT = 1000; // a JSON-only server may never answer the handshake
+    private static final long INITIAL_RECONNECTION_DELAY = 250; // first retry after a failure
+    private static final long RECONNECTION_DELAY = 3000; // 3 seconds max between reconnection attempts
+    // Kept-alive connections found closed by the server before switching to PER_REQUEST
+    private static final int CLOSES_BEFORE_FALLBACK = 2;
 
+    private final String host;
+    private final int port;
     private final ObjectMapper mapper;
-    private boolean serverAvailable = false;
-    private long lastConnectionAttempt = 0;
-    private static final long RECONNECTION_DELAY = 3000; // 3 seconds between reconnection attempts
+    private Mode mode;
+    private Protocol protocol;
+
+    // Persistent connection (null when not connected)
+    private Socket socket;
+    private DataInputStream in;
+    private OutputStream out;
+    private boolean binary = false; // CompactProtocol frames agreed on this connection
+    private DeltaSession session;   // delta session agreed on this connection, or null
+    private int deltasSent = 0;
+    private int resyncs = 0;
+    private int closedAfterReply = 0;
+    private volatile boolean dropConnection = false; // set by resetConnectionStatus()
+
+    // Read by the game thread while a request may be in flight on another thread
+    private volatile boolean serverAvailable = false;
+    private volatile long lastConnectionAttempt = 0;
+    private volatile long reconnectionDelay = INITIAL_RECONNECTION_DELAY;
 
     public TetrisServerClient() {
+        this(System.getProperty(HOST_PROPERTY, DEFAULT_HOST), Integer.getInteger(PORT_PROPERTY, DEFAULT_PORT),
+                Mode.PERSISTENT, protocolFromProperty());
+    }
+
+    public TetrisServerClient(String host, int port) {
+        this(host, port, Mode.PERSISTENT);
+    }
+
+    public TetrisServerClient(String host, int port, Mode mode) {
+        this(host, port, mode, Protocol.JSON);
+    }
+
+    public TetrisServerClient(String host, int port, Mode mode, Protocol protocol) {
+        this.host = host;
+        this.port = port;
+        this.mode = mode;
+        this.protocol = protocol;
         this.mapper = new ObjectMapper();
     }
 
+    private static Protocol protocolFromProperty() {
+        String value = System.getProperty(PROTOCOL_PROPERTY, "json");
+        try {
+            return Protocol.valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            System.err.println("Ignoring invalid " + PROTOCOL_PROPERTY + ": " + value);
+            return Protocol.JSON;
+        }
+    }
+
     /**
      * Sends game state to server and gets optimal move.
      * Returns null if server is unavailable or communication fails.
      */
-    public OpMove getOptimalMove(PureGame gameState) {
-        // Don't spam connection attempts
+    public synchronized OpMove getOptimalMove(PureGame gameState) {
+        if (dropConnection) {
+            dropConnection = false;
+            closeConnection();
+        }
+
+        // Don't spam connection attempts: back off while the server is down
         long now = System.currentTimeMillis();
-        if (!serverAvailable && (now - lastConnectionAttempt) < RECONNECTION_DELAY) {
+        if (!serverAvailable && (now - lastConnectionAttempt) < reconnectionDelay) {
             return null;
         }
 
         lastConnectionAttempt = now;
 
-        try (Socket socket = new Socket()) {
-            // Set connection timeout
-            socket.setSoTimeout(READ_TIMEOUT);
-            socket.connect(new java.net.InetSocketAddress(SERVER_HOST, SERVER_PORT), CONNECTION_TIMEOUT);
-
-            try (PrintWriter out = new PrintWriter(new OutputStreamWriter(socket.getOutputStream()), true);
-                 BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream()))) {
-
-                // Convert PureGame to JSON and send
-                String jsonGameState = mapper.writeValueAsString(gameState);
-                out.println(jsonGameState);
+        try {
+            // Send the PureGame and read the OpMove (null when the server sent nothing)
+            OpMove move = mode == Mode.PERSISTENT
+                    ? exchangePersistent(gameState)
+                    : exchangeOnce(gameState);
 
-                System.out.println("[EXTERNAL] Sent game state to server");
+            System.out.println("[EXTERNAL] Sent game state to server");
 
-                // Read response
-                String response = in.readLine();
-                if (response == null || response.trim().isEmpty()) {
-                    System.err.println("[EXTERNAL] Server returned empty response");
-                    serverAvailable = false;
-                    return null;
-                }
-
-                // Parse OpMove response
-                OpMove move = mapper.readValue(response, OpMove.class);
+            if (move == null) {
+                System.err.println("[EXTERNAL] Server returned empty response");
+                markUnavailable();
+                return null;
+            }
 
-                // Server responded successfully
-                if (!serverAvailable) {
-                    System.out.println("[EXTERNAL] Server connection established/restored");
-                }
-                serverAvailable = true;
+            // Server responded successfully
+            if (!serverAvailable) {
+                System.out.println("[EXTERNAL] Server connection established/restored");
+            }
+            serverAvailable = true;
+            reconnectionDelay = INITIAL_RECONNECTION_DELAY;
 
-                System.out.println("[EXTERNAL] Received move: X=" + move.opX() + ", Rotate=" + move.opRotate());
-                return move;
+            System.out.println("[EXTERNAL] Received move: X=" + move.opX() + ", Rotate=" + move.opRotate());
+            return move;
 
-            } catch (SocketTimeoutException e) {
-                System.err.println("[EXTERNAL] Server response timeout");
-                serverAvailable = false;
-                return null;
-            }
+        } catch (SocketTimeoutException e) {
+            System.err.println("[EXTERNAL] Server response timeout");
+            markUnavailable();
+            return null;
 
         } catch (ConnectException e) {
             if (serverAvailable) {
                 System.err.println("[EXTERNAL] Server connection lost - switching to warning mode");
             }
-            serverAvailable = false;
+            markUnavailable();
             return null;
 
         } catch (IOException e) {
             System.err.println("[EXTERNAL] Communication error: " + e.getMessage());
-            serverAvailable = false;
+            markUnavailable();
             return null;
 
         } catch (Exception e) {
             System.err.println("[EXTERNAL] Unexpected error: " + e.getMessage());
-            serverAvailable = false;
+            markUnavailable();
             return null;
         }
     }
 
+    /**
+     * Sends one request over the kept-alive connection, opening it if needed.
+     * A reused connection the server has closed in the meantime is replaced and
+     * the request retried once on the fresh one.
+     */
+    private OpMove exchangePersistent(PureGame request) throws IOException {
+        boolean reused = socket != null;
+        if (!reused) openConnection();
+
+        OpMove response;
+        try {
+            response = send(out, in, binary, request);
+        } catch (SocketTimeoutException | JsonProcessingException e) {
+            throw e; // slow server or bad reply, not a dropped connection
+        } catch (IOException e) {
+            if (!reused) throw e;
+            response = null;
+        }
+
+        if (reused && response == null) {
+            closeConnection();
+            openConnection();
+            response = send(out, in, binary, request);
+            if (response != null && ++closedAfterReply >= CLOSES_BEFORE_FALLBACK) {
+                System.out.println("[EXTERNAL] Server closes connections after each reply - using one connection per request");
+                mode = Mode.PER_REQUEST;
+                closeConnection();
+            }
+        } else if (reused) {
+            closedAfterReply = 0;
+        }
+        return response;
+    }
+
+    /** Sends one request on a connection of its own (always JSON). */
+    private OpMove exchangeOnce(PureGame request) throws IOException {
+        try (Socket s = connect();
+             OutputStream w = writer(s);
+             DataInputStream r = reader(s)) {
+            return send(w, r, false, request);
+        }
+    }
+
+    /**
+     * Sends one request and reads its reply in the protocol of the connection.
+     * Returns null when the server closed the connection or sent an empty line.
+     */
+    private OpMove send(OutputStream w, DataInputStream r, boolean frames, PureGame request) throws IOException {
+        if (frames) {
+            DeltaSession delta = session;
+            byte[] frame = delta != null ? delta.frame(request) : CompactProtocol.encodeGame(request);
+            if (frame != null && frame[4] == CompactProtocol.DELTA) deltasSent++;
+            byte[] reply = sendFrame(w, r, frame, request);
+            if (reply != null && reply[0] == CompactProtocol.RESYNC && delta != null) {
+                // The server replica is missing or diverged: send the whole board
+                resyncs++;
+                reply = sendFrame(w, r, delta.snapshot(request), request);
+            }
+            if (reply == null) return null;
+            OpMove move = CompactProtocol.decodeMove(reply);
+            if (delta != null) delta.onReply(move);
+            return move;
+        }
+        CompactProtocol.writeLine(w, mapper.writeValueAsString(request));
+        String reply = CompactProtocol.readLine(r);
+        if (reply == null || reply.trim().isEmpty()) return null;
+        return mapper.readValue(reply, OpMove.class);
+    }
+
+    // Writes the frame (a GAME_JSON frame when null) and reads the reply frame
+    private byte[] sendFrame(OutputStream w, DataInputStream r, byte[] frame, PureGame request) throws IOException {
+        if (frame == null) frame = CompactProtocol.jsonFrame(mapper.writeValueAsBytes(request));
+        w.write(frame);
+        w.flush();
+        return CompactProtocol.readFrame(r);
+    }
+
+    private void openConnection() throws IOException {
+        Socket s = connect();
+        try {
+            out = writer(s);
+            in = reader(s);
+            socket = s;
+            binary = false;
+            session = null;
+        } catch (IOException e) {
+            s.close();
+            throw e;
+        }
+        if (protocol != Protocol.JSON && !negotiateBinary()) {
+            System.out.println("[EXTERNAL] Server does not speak the binary protocol - using JSON");
+            protocol = Protocol.JSON;
+            closeConnection(); // the server may be confused by the handshake: start clean
+            openConnection();
+        }
+    }
+
+    /**
+     * Offers CompactProtocol frames (and delta sessions, for DELTA) on the new
+     * connection. Anything but an echoed handshake, including a timeout or a
+     * closed connection, is a refusal. A server answering HELLO to HELLO_DELTA
+     * takes frames without deltas.
+     */
+    private boolean negotiateBinary() {
+        String hello = protocol == Protocol.DELTA ? CompactProtocol.HELLO_DELTA : CompactProtocol.HELLO;
+        try {
+            socket.setSoTimeout(NEGOTIATION_TIMEOUT);
+            CompactProtocol.writeLine(out, hello);
+            String answer = CompactProtocol.readLine(in);
+            socket.setSoTimeout(READ_TIMEOUT);
+            if (CompactProtocol.HELLO_DELTA.equals(answer) && protocol == Protocol.DELTA) {
+                session = new DeltaSession();
+            } else if (CompactProtocol.HELLO.equals(answer) && protocol == Protocol.DELTA) {
+                System.out.println("[EXTERNAL] Server does not keep delta sessions - sending full boards");
+                protocol = Protocol.BINARY;
+            }
+            binary = hello.equals(answer) || CompactProtocol.HELLO.equals(answer);
+        } catch (IOException e) {
+            binary = false;
+        }
+        return binary;
+    }
+
+    private Socket connect() throws IOException {
+        Socket s = new Socket();
+        try {
+            s.setSoTimeout(READ_TIMEOUT);
+            s.setTcpNoDelay(true); // one small request per piece: don't wait to coalesce
+            s.connect(new InetSocketAddress(host, port), CONNECTION_TIMEOUT);
+            return s;
+        } catch (IOException e) {
+            s.close();
+            throw e;
+        }
+    }
+
+    private static OutputStream writer(Socket s) throws IOException {
+        return new BufferedOutputStream(s.getOutputStream());
+    }
+
+    // Byte stream for both protocols: lines are read without buffering past them
+    private static DataInputStream reader(Socket s) throws IOException {
+        return new DataInputStream(new BufferedInputStream(s.getInputStream()));
+    }
+
+    private void markUnavailable() {
+        if (!serverAvailable) {
+            reconnectionDelay = Math.min(reconnectionDelay * 2, RECONNECTION_DELAY);
+        }
+        serverAvailable = false;
+        closeConnection();
+    }
+
+    private void closeConnection() {
+        if (socket == null) return;
+        try {
+            socket.close();
+        } catch (IOException ignored) {
+            // Nothing left to release
+        }
+        socket = null;
+        in = null;
+        out = null;
+        binary = false;
+        session = null;
+    }
+
     /**
      * Checks if the server is currently available.
      */
@@ -112,11 +353,57 @@ public class TetrisServerClient {
         return serverAvailable;
     }
 
+    /**
+     * Current connection mode (PERSISTENT may have fallen back to PER_REQUEST).
+     */
+    public synchronized Mode getMode() {
+        return mode;
+    }
+
+    /**
+     * Requested wire protocol (DELTA and BINARY fall back to what the server supports).
+     */
+    public synchronized Protocol getProtocol() {
+        return protocol;
+    }
+
+    /**
+     * Whether the open connection exchanges CompactProtocol frames.
+     */
+    public synchronized boolean isBinaryConnection() {
+        return socket != null && binary;
+    }
+
+    /**
+     * Requests sent as a delta instead of a full board, and requests the server
+     * answered with a resync (then sent in full).
+     */
+    public synchronized int getDeltasSent() {
+        return deltasSent;
+    }
+
+    public synchronized int getResyncs() {
+        return resyncs;
+    }
+
     /**
      * Resets the server availability status to allow immediate reconnection attempt.
+     * Never blocks: a kept-alive connection is dropped by the next request, so this
+     * is safe to call from the game thread while a request is in flight.
      */
     public void resetConnectionStatus() {
         lastConnectionAttempt = 0;
+        reconnectionDelay = INITIAL_RECONNECTION_DELAY;
         serverAvailable = false;
+        dropConnection = true;
+    }
+
+    /**
+     * Closes the kept-alive connection, if any. The client stays usable and
+     * reconnects on the next request.
+     */
+    @Override
+    public synchronized void close() {
+        closeConnection();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,166 @@
+package tetris.controller.headless;
+
+import tetris.controller.ai.AIController;
+import tetris.model.setting.GameSetting;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Supplier;
+
+/**
+ * BatchRunner: plays many independent seeded HeadlessGames concurrently.
+ *
+ * Every game is one task on a work-stealing ForkJoinPool and owns its whole
+ * object graph (GameBoard, PieceGenerator(seed), AIController/TetrisAI), so the
+ * tasks share nothing and throughput scales with the number of cores.
+ * Games differ a lot in length (an early top-out vs. a full piece limit), which
+ * is why idle workers steal queued games instead of getting a fixed slice.
+ *
+ * Each seed replays the same game regardless of scheduling, so two batches with
+ * the same seeds compare evaluator or planner changes on identical workloads.
+ *
+ * Usage: BatchRunner [games] [maxPieces] [threads] [level] [firstSeed]
+ */
+public class BatchRunner {
+
+    public static final int DEFAULT_GAMES = 1000;
+    public static final int DEFAULT_MAX_PIECES = 500;
+
+    /**
+     * Aggregated outcome of a batch.
+     *
+     * @param results Per-game results, ordered by seed
+     * @param parallelism Worker threads used
+     * @param wallNanos Wall-clock time of the whole batch
+     */
+    public record Summary(List<HeadlessGame.Result> results, int parallelism, long wallNanos) {
+
+        public Summary {
+            results = List.copyOf(results);
+        }
+
+        public int games() {
+            return results.size();
+        }
+
+        public int gameOvers() {
+            return (int) results.stream().filter(HeadlessGame.Result::gameOver).count();
+        }
+
+        public long totalPieces() {
+            return results.stream().mapToLong(HeadlessGame.Result::pieces).sum();
+        }
+
+        public long totalLines() {
+            return results.stream().mapToLong(HeadlessGame.Result::linesCleared).sum();
+        }
+
+        public double meanScore() {
+            return results.stream().mapToInt(HeadlessGame.Result::score).average().orElse(0.0);
+        }
+
+        public int minScore() {
+            return results.stream().mapToInt(HeadlessGame.Result::score).min().orElse(0);
+        }
+
+        public int maxScore() {
+            return results.stream().mapToInt(HeadlessGame.Result::score).max().orElse(0);
+        }
+
+        public double meanLines() {
+            return results.stream().mapToInt(HeadlessGame.Result::linesCleared).average().orElse(0.0);
+        }
+
+        /** Pieces locked per second of wall-clock time, over all games. */
+        public double piecesPerSecond() {
+            return wallNanos == 0 ? 0.0 : totalPieces() * 1e9 / wallNanos;
+        }
+
+        /** Sum of per-game run times divided by wall time (close to parallelism when scaling well). */
+        public double speedup() {
+            long busy = results.stream().mapToLong(HeadlessGame.Result::elapsedNanos).sum();
+            return wallNanos == 0 ? 0.0 : (double) busy / wallNanos;
+        }
+
+        /** Human-readable report. */
+        public String report() {
+            return String.format(Locale.ROOT,
+                    "games=%d gameOvers=%d threads=%d%n"
+                            + "pieces=%d lines=%d meanLines=%.1f%n"
+                            + "score mean=%.1f min=%d max=%d%n"
+                            + "wall=%.2fs pieces/s=%.0f speedup=%.2f",
+                    games(), gameOvers(), parallelism,
+                    totalPieces(), totalLines(), meanLines(),
+                    meanScore(), minScore(), maxScore(),
+                    wallNanos / 1e9, piecesPerSecond(), speedup());
+        }
+    }
+
+    private final GameSetting settings;
+    private final Supplier<AIController> aiFactory;
+    private final int parallelism;
+
+    /**
+     * Creates a runner using all available cores and the default AI.
+     *
+     * @param settings Field size and level of every game (read-only while running)
+     */
+    public BatchRunner(GameSetting settings) {
+        this(settings, AIController::new, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param settings Field size and level of every game (read-only while running)
+     * @param aiFactory Creates one AIController per game (must not return shared instances)
+     * @param parallelism Number of worker threads
+     */
+    public BatchRunner(GameSetting settings, Supplier<AIController> aiFactory, int parallelism) {
+        if (parallelism < 1) throw new IllegalArgumentException("parallelism must be >= 1: " + parallelism);
+        this.settings = settings;
+        this.aiFactory = aiFactory;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Plays the games for seeds firstSeed .. firstSeed + games - 1.
+     *
+     * @param firstSeed Seed of the first game
+     * @param games Number of games
+     * @param maxPieces Piece limit per game
+     * @return Aggregated results
+     */
+    public Summary run(long firstSeed, int games, int maxPieces) {
+        if (games < 0) throw new IllegalArgumentException("games must be >= 0: " + games);
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        long start = System.nanoTime();
+        try {
+            List<ForkJoinTask<HeadlessGame.Result>> tasks = new ArrayList<>(games);
+            for (int i = 0; i < games; i++) {
+                long seed = firstSeed + i;
+                tasks.add(pool.submit(() -> new HeadlessGame(settings, seed, aiFactory.get()).run(maxPieces)));
+            }
+            List<HeadlessGame.Result> results = new ArrayList<>(games);
+            for (ForkJoinTask<HeadlessGame.Result> task : tasks) results.add(task.join());
+            results.sort(Comparator.comparingLong(HeadlessGame.Result::seed));
+            return new Summary(results, parallelism, System.nanoTime() - start);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    public static void main(String[] args) {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_GAMES;
+        int maxPieces = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_MAX_PIECES;
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        GameSetting settings = new GameSetting();
+        if (args.length > 3) settings.setLevel(Integer.parseInt(args[3]));
+        long firstSeed = args.length > 4 ? Long.parseLong(args[4]) : 1L;
+
+        Summary summary = new BatchRunner(settings, AIController::new, threads).run(firstSeed, games, maxPieces);
+        System.out.println(summary.report());
+    }
+}
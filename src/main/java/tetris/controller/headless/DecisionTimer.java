@@ -0,0 +1,69 @@
+package tetris.controller.headless;
+
+import tetris.model.ai.AIMove;
+import tetris.model.ai.MovePlanner;
+import tetris.model.board.IGameBoard;
+import tetris.model.tetromino.Tetromino;
+import tetris.model.tetromino.TetrominoType;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * DecisionTimer: MovePlanner decorator recording how long every decision takes.
+ *
+ * Latencies go into a growable long[] (no boxing), so the recording itself
+ * adds no per-decision allocation to what is being measured once the array
+ * has reached its final size. Not thread-safe: one timer per game thread.
+ */
+public class DecisionTimer implements MovePlanner {
+
+    private final MovePlanner delegate;
+    private long[] nanos = new long[1024];
+    private int count;
+
+    public DecisionTimer(MovePlanner delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public AIMove planMove(IGameBoard board, Tetromino current, List<TetrominoType> preview) {
+        long start = System.nanoTime();
+        AIMove move = delegate.planMove(board, current, preview);
+        long elapsed = System.nanoTime() - start;
+        if (count == nanos.length) nanos = Arrays.copyOf(nanos, count * 2);
+        nanos[count++] = elapsed;
+        return move;
+    }
+
+    /** Decisions recorded since creation or the last reset. */
+    public int decisions() {
+        return count;
+    }
+
+    /** Sum of all recorded decision times. */
+    public long totalNanos() {
+        long total = 0;
+        for (int i = 0; i < count; i++) total += nanos[i];
+        return total;
+    }
+
+    /**
+     * Nearest-rank percentile of the recorded decision times.
+     *
+     * @param percentile 0..100 (e.g. 50 for the median, 99 for p99)
+     * @return Latency in nanoseconds, or 0 when nothing was recorded
+     */
+    public long percentileNanos(double percentile) {
+        if (count == 0) return 0;
+        long[] sorted = Arrays.copyOf(nanos, count);
+        Arrays.sort(sorted);
+        int rank = (int) Math.ceil(percentile / 100.0 * count);
+        return sorted[Math.max(0, Math.min(count - 1, rank - 1))];
+    }
+
+    /** Forgets all recorded decisions (e.g. after warm-up). */
+    public void reset() {
+        count = 0;
+    }
+}
@@ -0,0 +1,117 @@
+package tetris.controller.headless;
+
+import tetris.common.UiGameState;
+import tetris.controller.ai.AIController;
+import tetris.controller.game.GameController;
+import tetris.controller.score.ScoreController;
+import tetris.controller.state.DefaultPlayStateFactory;
+import tetris.model.board.GameBoard;
+import tetris.model.board.IGameBoard;
+import tetris.model.score.HighScoreService;
+import tetris.model.score.InMemoryHighScoreStore;
+import tetris.model.setting.GameSetting;
+import tetris.model.setting.PlayerType;
+import tetris.model.tetromino.PieceGenerator;
+import tetris.model.tetromino.Tetromino;
+
+/**
+ * HeadlessGame: runs one AI game without JavaFX, as fast as the CPU allows.
+ *
+ * The game is driven exactly like the GUI does it (GameController.tick() with
+ * the AIPlayingState and its AIController), only without the GameLoop timer:
+ * ticks are issued back to back until game over or a piece limit.
+ *
+ * Nothing touches the toolkit or the file system: scores go to an
+ * InMemoryHighScoreStore and the score worker threads are shut down when the
+ * run ends. The same seed always replays the same game.
+ */
+public class HeadlessGame {
+
+    /**
+     * Outcome of a headless run.
+     *
+     * @param seed Piece generator seed
+     * @param pieces Pieces locked into the board
+     * @param linesCleared Total lines cleared
+     * @param score Final score
+     * @param gameOver Whether the run ended by topping out (false = piece limit reached)
+     * @param ticks Game ticks issued
+     * @param elapsedNanos Wall-clock time of the run
+     */
+    public record Result(long seed, int pieces, int linesCleared, int score,
+                         boolean gameOver, long ticks, long elapsedNanos) {
+
+        /** Locked pieces per second of wall-clock time. */
+        public double piecesPerSecond() {
+            return elapsedNanos == 0 ? 0.0 : pieces * 1e9 / elapsedNanos;
+        }
+    }
+
+    private final long seed;
+    private final GameController controller;
+    private final ScoreController scoreController;
+
+    /**
+     * Creates a game on a standard GameBoard fed by a seeded PieceGenerator.
+     *
+     * @param settings Field size and level (the level sets the AI action rate, as in the GUI)
+     * @param seed Piece generator seed
+     * @param aiController AI playing the game (selects the planning engine)
+     */
+    public HeadlessGame(GameSetting settings, long seed, AIController aiController) {
+        this(new GameBoard(settings.getFieldWidth(), settings.getFieldHeight(), new PieceGenerator(seed)),
+                settings, seed, aiController);
+    }
+
+    /**
+     * Creates a game on any board implementation.
+     *
+     * @param board Board to play on (its piece generator decides the sequence)
+     * @param settings Game settings (level)
+     * @param seed Seed reported in the result
+     * @param aiController AI playing the game
+     */
+    public HeadlessGame(IGameBoard board, GameSetting settings, long seed, AIController aiController) {
+        this.seed = seed;
+        this.scoreController = new ScoreController(new HighScoreService(new InMemoryHighScoreStore()));
+        this.controller = new GameController(board, settings, PlayerType.AI,
+                new DefaultPlayStateFactory(() -> aiController), scoreController);
+    }
+
+    /** The underlying controller (e.g. to inspect the board after a run). */
+    public GameController controller() {
+        return controller;
+    }
+
+    /**
+     * Plays until game over or until maxPieces pieces have been locked.
+     * Releases the score worker threads before returning, so a game runs once.
+     *
+     * @param maxPieces Piece limit (Integer.MAX_VALUE = play to game over)
+     * @return Outcome of the run
+     */
+    public Result run(int maxPieces) {
+        long start = System.nanoTime();
+        long ticks = 0;
+        int pieces = 0;
+        try {
+            controller.start();
+            Tetromino current = controller.board().current();
+
+            while (pieces < maxPieces && controller.state() != UiGameState.GAME_OVER) {
+                controller.tick();
+                ticks++;
+                // Every lock spawns a new Tetromino (or none at game over)
+                Tetromino next = controller.board().current();
+                if (next != current) {
+                    if (current != null) pieces++;
+                    current = next;
+                }
+            }
+            return new Result(seed, pieces, controller.getTotalLinesCleared(), controller.getCurrentScore(),
+                    controller.state() == UiGameState.GAME_OVER, ticks, System.nanoTime() - start);
+        } finally {
+            scoreController.shutdown();
+        }
+    }
+}
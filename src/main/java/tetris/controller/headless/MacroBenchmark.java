@@ -0,0 +1,157 @@
+package tetris.controller.headless;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import tetris.controller.ai.AIController;
+import tetris.model.ai.MovePlanner;
+import tetris.model.ai.TetrisAI;
+import tetris.model.setting.GameSetting;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * MacroBenchmark: end-to-end AI throughput on a fixed, reproducible workload.
+ *
+ * Plays complete AI games from fixed PieceGenerator seeds through
+ * GameController.tick() (see HeadlessGame), first as warm-up, then measured,
+ * and reports:
+ * - pieces/sec        : locked pieces per second of wall-clock time
+ * - decisions/sec     : planner calls per second of planning time
+ * - p50/p99/max       : decision latency (DecisionTimer around the planner)
+ * - bytes/piece       : heap allocated by the game thread per locked piece
+ *
+ * The report is JSON so runs can be stored and diffed over time; the same
+ * seeds, settings and planner always replay the same games.
+ *
+ * Usage: MacroBenchmark [planner] [maxPieces] [level] [seeds] [outFile]
+ *   planner: greedy | incremental | lookahead, seeds: comma-separated list
+ */
+public class MacroBenchmark {
+
+    public static final long[] DEFAULT_SEEDS = {1, 2, 3, 4, 5, 6, 7, 8};
+    public static final int DEFAULT_MAX_PIECES = 1000;
+    public static final int DEFAULT_WARMUP_ROUNDS = 1;
+
+    /** Deterministic planners the benchmark can drive. */
+    public enum Planner {
+        GREEDY, INCREMENTAL, LOOKAHEAD;
+
+        MovePlanner create() {
+            return switch (this) {
+                case GREEDY -> new TetrisAI();
+                case INCREMENTAL -> TetrisAI.incremental();
+                case LOOKAHEAD -> new TetrisAI().withLookahead(TetrisAI.DEFAULT_LOOKAHEAD_WIDTH);
+            };
+        }
+    }
+
+    /**
+     * Measured outcome of one benchmark run (serialized as JSON by toJson()).
+     */
+    public record Report(String planner, int fieldWidth, int fieldHeight, int level, int maxPieces,
+                         List<Long> seeds, int gameOvers, long pieces, long decisions,
+                         long linesCleared, long score, long ticks, double elapsedSeconds,
+                         double piecesPerSecond, double decisionsPerSecond,
+                         double p50DecisionMicros, double p99DecisionMicros, double maxDecisionMicros,
+                         double bytesPerPiece, String javaVersion, int availableProcessors) {
+
+        public String toJson() {
+            try {
+                return new ObjectMapper().writerWithDefaultPrettyPrinter().writeValueAsString(this);
+            } catch (JsonProcessingException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private final GameSetting settings;
+    private final Planner planner;
+
+    /**
+     * @param settings Field size and level of every game
+     * @param planner Planning engine to measure
+     */
+    public MacroBenchmark(GameSetting settings, Planner planner) {
+        this.settings = settings;
+        this.planner = planner;
+    }
+
+    /**
+     * Plays every seed warmupRounds times unmeasured, then once more measured.
+     *
+     * @param seeds Piece generator seeds, one game each
+     * @param maxPieces Piece limit per game
+     * @param warmupRounds Unmeasured passes over the seeds (lets the JIT compile the hot paths)
+     * @return Measured results
+     */
+    public Report run(long[] seeds, int maxPieces, int warmupRounds) {
+        DecisionTimer timer = new DecisionTimer(planner.create());
+        for (int round = 0; round < warmupRounds; round++) {
+            for (long seed : seeds) play(seed, timer, maxPieces);
+        }
+        timer.reset();
+
+        com.sun.management.ThreadMXBean threads = allocationCounter();
+        long allocatedBefore = threads != null ? threads.getCurrentThreadAllocatedBytes() : 0;
+        long start = System.nanoTime();
+
+        int gameOvers = 0;
+        long pieces = 0, lines = 0, score = 0, ticks = 0;
+        for (long seed : seeds) {
+            HeadlessGame.Result result = play(seed, timer, maxPieces);
+            if (result.gameOver()) gameOvers++;
+            pieces += result.pieces();
+            lines += result.linesCleared();
+            score += result.score();
+            ticks += result.ticks();
+        }
+
+        long elapsed = System.nanoTime() - start;
+        double bytesPerPiece = threads == null || pieces == 0 ? -1
+                : (double) (threads.getCurrentThreadAllocatedBytes() - allocatedBefore) / pieces;
+        long planning = timer.totalNanos();
+
+        return new Report(planner.name().toLowerCase(Locale.ROOT), settings.getFieldWidth(), settings.getFieldHeight(),
+                settings.getLevel(), maxPieces, Arrays.stream(seeds).boxed().toList(), gameOvers,
+                pieces, timer.decisions(), lines, score, ticks, elapsed / 1e9,
+                elapsed == 0 ? 0 : pieces * 1e9 / elapsed,
+                planning == 0 ? 0 : timer.decisions() * 1e9 / planning,
+                timer.percentileNanos(50) / 1e3, timer.percentileNanos(99) / 1e3, timer.percentileNanos(100) / 1e3,
+                bytesPerPiece, System.getProperty("java.version"), Runtime.getRuntime().availableProcessors());
+    }
+
+    private HeadlessGame.Result play(long seed, DecisionTimer timer, int maxPieces) {
+        return new HeadlessGame(settings, seed, new AIController(timer)).run(maxPieces);
+    }
+
+    // Per-thread allocation counter of HotSpot-based JVMs, or null when unavailable
+    private static com.sun.management.ThreadMXBean allocationCounter() {
+        if (!(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean threads)
+                || !threads.isThreadAllocatedMemorySupported()) {
+            return null;
+        }
+        threads.setThreadAllocatedMemoryEnabled(true);
+        return threads;
+    }
+
+    public static void main(String[] args) throws IOException {
+        Planner planner = args.length > 0 ? Planner.valueOf(args[0].toUpperCase(Locale.ROOT)) : Planner.GREEDY;
+        int maxPieces = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_MAX_PIECES;
+        GameSetting settings = new GameSetting();
+        if (args.length > 2) settings.setLevel(Integer.parseInt(args[2]));
+        long[] seeds = args.length > 3
+                ? Arrays.stream(args[3].split(",")).mapToLong(s -> Long.parseLong(s.trim())).toArray()
+                : DEFAULT_SEEDS;
+
+        String json = new MacroBenchmark(settings, planner).run(seeds, maxPieces, DEFAULT_WARMUP_ROUNDS).toJson();
+        System.out.println(json);
+        if (args.length > 4) Files.writeString(Path.of(args[4]), json + System.lineSeparator());
+    }
+}
@@ -45,4 +45,9 @@ public class ScoreController {
     public void clearHighScores() {
         highScoreService.clearScores();
     }
+
+    // Stop the score worker threads (games that are discarded, e.g. headless runs)
+    public void shutdown() {
+        highScoreService.shutdown();
+    }
 }
@@ -24,7 +24,7 @@ import tetris.model.setting.GameSetting;
  */
 public class AIPlayingState implements PlayState {
 
-    private final AIController aiController = new AIController();
+    private final AIController aiController;
     private int aiTickCounter = 0;
 
     private static final int AI_SPEED_NORMAL = 2;
@@ -33,7 +33,16 @@ public class AIPlayingState implements PlayState {
     private final GameSetting gameSetting;
 
     public AIPlayingState(GameSetting gameSetting) {
+        this(gameSetting, new AIController());
+    }
+
+    /**
+     * Plays with a specific AI controller (e.g. one backed by a BeamSearchPlanner).
+     * The controller is kept across restarts.
+     */
+    public AIPlayingState(GameSetting gameSetting, AIController aiController) {
         this.gameSetting = gameSetting;
+        this.aiController = aiController;
     }
 
     @Override
@@ -130,7 +139,7 @@ public class AIPlayingState implements PlayState {
     @Override
     public void restart(GameController c) {
         aiController.reset();
-        c.setState(new AIPlayingState(gameSetting));
+        c.setState(new AIPlayingState(gameSetting, aiController));
         c.board().reset();
         start(c);
     }
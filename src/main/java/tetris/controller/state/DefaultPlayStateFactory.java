@@ -1,14 +1,43 @@
 package tetris.controller.state;
 
+import tetris.controller.ai.AIController;
+import tetris.controller.external.ExternalController;
 import tetris.model.setting.GameSetting;
 import tetris.model.setting.PlayerType;
 
+import java.util.function.Supplier;
+
 public class DefaultPlayStateFactory implements PlayStateFactory {
+    private final Supplier<AIController> aiControllers;
+    private final Supplier<ExternalController> externalControllers;
+
+    public DefaultPlayStateFactory() {
+        this(AIController::new);
+    }
+
+    /**
+     * @param aiControllers Creates the AI controller (and so the planning engine) for each AI game
+     */
+    public DefaultPlayStateFactory(Supplier<AIController> aiControllers) {
+        this(aiControllers, ExternalController::new);
+    }
+
+    /**
+     * @param aiControllers Creates the AI controller (and so the planning engine) for each AI game
+     * @param externalControllers Creates the controller of each external game
+     *                            (e.g. all on one shared MultiplexedServerClient)
+     */
+    public DefaultPlayStateFactory(Supplier<AIController> aiControllers,
+                                   Supplier<ExternalController> externalControllers) {
+        this.aiControllers = aiControllers;
+        this.externalControllers = externalControllers;
+    }
+
     @Override
     public PlayState createInitial(GameSetting settings, PlayerType playerType) {
         return switch (playerType) {
-            case AI       -> new AIPlayingState(settings);
-            case EXTERNAL -> new ExternalPlayingState(settings);
+            case AI       -> new AIPlayingState(settings, aiControllers.get());
+            case EXTERNAL -> new ExternalPlayingState(settings, externalControllers.get());
             case HUMAN    -> new PlayingState();
         };
     }
@@ -16,6 +16,8 @@ import tetris.model.setting.GameSetting;
  * - Resumes control immediately when server becomes available mid-game
  * - Manages timing to make server moves visible and responsive
  * - Supports fallback to manual control when server unavailable
+ * - Never blocks the game loop: server requests run in the background
+ *   (see ExternalController) and are polled on each tick
  *
  * Requirements fulfilled:
  * - Shows warning when server not running + no control
@@ -23,7 +25,7 @@ import tetris.model.setting.GameSetting;
  */
 public class ExternalPlayingState implements PlayState {
 
-    private final ExternalController externalController = new ExternalController();
+    private final ExternalController externalController;
     private int externalTickCounter = 0;
 
     // Timing constants for external player responsiveness
@@ -33,7 +35,16 @@ public class ExternalPlayingState implements PlayState {
     private final GameSetting gameSetting;
 
     public ExternalPlayingState(GameSetting gameSetting) {
+        this(gameSetting, new ExternalController());
+    }
+
+    /**
+     * Plays with a specific external controller (and so its server connection).
+     * The controller is kept across restarts.
+     */
+    public ExternalPlayingState(GameSetting gameSetting, ExternalController externalController) {
         this.gameSetting = gameSetting;
+        this.externalController = externalController;
     }
 
     @Override
@@ -151,7 +162,7 @@ public class ExternalPlayingState implements PlayState {
     @Override
     public void restart(GameController c) {
         externalController.reset();
-        c.setState(new ExternalPlayingState(gameSetting));
+        c.setState(new ExternalPlayingState(gameSetting, externalController));
         c.board().reset();
         start(c);
     }
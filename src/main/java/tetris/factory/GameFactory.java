@@ -19,6 +19,9 @@ import tetris.view.HighScore;
 public class GameFactory {
 
     private static ScoreController sharedScoreController;
+
+    // System property fixing the piece sequence (e.g. -Dtetris.seed=42) for reproducible runs
+    public static final String SEED_PROPERTY = "tetris.seed";
     
     // Creates a new GameController with the specified settings
     public static GameController createGameController(GameSetting settings,PlayerType type,PieceGenerator shared) {
@@ -65,7 +68,7 @@ public class GameFactory {
                                                      Runnable onExitToMenu) {
 
         if (settings.isExtendOn()) { // 2P
-            long seed = System.currentTimeMillis();
+            long seed = pieceSeed(System.currentTimeMillis());
             System.out.printf("[2P] seed=%d%n", seed);
             PieceGenerator g1 = new PieceGenerator(seed);
             PieceGenerator g2 = new PieceGenerator(seed);
@@ -78,12 +81,24 @@ public class GameFactory {
             return createGameView(stage, h1, h2, settings, onExitToMenu);
         } else { // 1P
             GameController p1 = createGameController(settings, settings.getPlayerOneType(),
-                    new PieceGenerator(System.nanoTime()));
+                    new PieceGenerator(pieceSeed(System.nanoTime())));
             GameEventHandler h1 = createGameEventHandler(p1, settings, 1);
             return createGameView(stage, h1, settings, onExitToMenu);
         }
     }
 
+    // Returns the seed set with -Dtetris.seed, or the given fallback when none is set
+    public static long pieceSeed(long fallback) {
+        String fixed = System.getProperty(SEED_PROPERTY);
+        if (fixed == null || fixed.isBlank()) return fallback;
+        try {
+            return Long.parseLong(fixed.trim());
+        } catch (NumberFormatException e) {
+            System.err.println("Ignoring invalid " + SEED_PROPERTY + ": " + fixed);
+            return fallback;
+        }
+    }
+
     // Creates a new Configuration view with proper controller
     public static Configuration createConfiguration(ConfigurationController configController, Runnable onBackToMenu) {
         return new Configuration(configController, onBackToMenu);
@@ -21,6 +21,30 @@ package tetris.model.ai;
  */
 public record AIMove(int targetX, int targetRotation) {
     
+    private static final int MIN_X = -10, MAX_X = 50;
+    
+    // Every valid move, so planners can return one without allocating
+    private static final AIMove[][] INTERNED = new AIMove[4][MAX_X - MIN_X + 1];
+    static {
+        for (int rot = 0; rot < 4; rot++)
+            for (int x = MIN_X; x <= MAX_X; x++)
+                INTERNED[rot][x - MIN_X] = new AIMove(x, rot);
+    }
+    
+    /**
+     * Returns the shared instance for a move (records compare by value, so it is
+     * interchangeable with a new AIMove).
+     * 
+     * @throws IllegalArgumentException if parameters are outside reasonable bounds
+     */
+    public static AIMove of(int targetX, int targetRotation) {
+        if (targetX < MIN_X || targetX > MAX_X || targetRotation < 0 || targetRotation > 3) {
+            return new AIMove(targetX, targetRotation);   // throws with the usual message
+        }
+        return INTERNED[targetRotation][targetX - MIN_X];
+    }
+    
+    
     /**
      * Creates an AIMove with validation to ensure reasonable values.
      * 
@@ -30,7 +54,7 @@ public record AIMove(int targetX, int targetRotation) {
      */
     public AIMove {
         // Allow negative X positions for valid edge placements, but prevent extreme values
-        if (targetX < -10 || targetX > 50) {
+        if (targetX < MIN_X || targetX > MAX_X) {
             throw new IllegalArgumentException("targetX out of reasonable range (-10 to 50): " + targetX);
         }
         // Rotation must be valid (0=0°, 1=90°, 2=180°, 3=270°)
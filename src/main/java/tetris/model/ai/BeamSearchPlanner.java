@@ -0,0 +1,213 @@
+package tetris.model.ai;
+
+import tetris.model.ai.MoveSimulator.SimulationResult;
+import tetris.model.board.IGameBoard;
+import tetris.model.board.Skyline;
+import tetris.model.tetromino.Tetromino;
+import tetris.model.tetromino.TetrominoType;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * BeamSearchPlanner: multi-piece planner that keeps the best boards per depth.
+ *
+ * Search outline:
+ * 1. Place the current piece in every valid position (always completed)
+ * 2. For each following preview piece, extend every board in the beam with all
+ *    of its placements and keep the beamWidth best resulting boards
+ * 3. Once the preview runs out, score each remaining board by its expected value
+ *    over the 7 TetrominoTypes (each unknown piece takes its best placement)
+ * 4. Play the first move of the best board
+ *
+ * A board's score is the BoardEvaluator score of the board itself plus the line
+ * rewards of every placement on the way, so depth 1 is exactly the greedy
+ * TetrisAI search and depth 2 with an unbounded beam is the full two-piece lookahead.
+ * Ties go to the first-ply candidate met first in search order. Expected-value
+ * plies revisit the same boards for every beam entry, so an EvaluationCache pays
+ * off most here.
+ *
+ * The time budget is checked between board expansions; when it runs out the
+ * planner answers from the deepest ply it completed.
+ */
+public class BeamSearchPlanner implements MovePlanner {
+
+    public static final int DEFAULT_BEAM_WIDTH = 8;
+    public static final int DEFAULT_DEPTH = 3;
+    public static final long DEFAULT_TIME_BUDGET_MS = 50;
+
+    // Added to a board on which some piece cannot be placed at all
+    private static final int DEAD_END_PENALTY = -1_000_000;
+    private static final TetrominoType[] ALL_TYPES = TetrominoType.values();
+
+    private final BoardEvaluator evaluator;
+    private final int beamWidth;
+    private final int depth;
+    private final long timeBudgetNanos;
+
+    /**
+     * One board in the beam.
+     *
+     * @param board Board after the placements so far (lines cleared)
+     * @param firstMove Placement of the current piece this board descends from
+     * @param firstOrder Search order of that placement (tie-breaker)
+     * @param rewards Line rewards collected on the way
+     * @param score rewards + evaluation of the board itself
+     * @param order Generation order within the ply (tie-breaker)
+     */
+    private record Node(int[][] board, AIMove firstMove, int firstOrder, int rewards, int score, int order) {}
+
+    private static final Comparator<Node> BEST_FIRST =
+            Comparator.comparingInt(Node::score).reversed()
+                    .thenComparingInt(Node::firstOrder)
+                    .thenComparingInt(Node::order);
+
+    public BeamSearchPlanner() {
+        this(DEFAULT_BEAM_WIDTH, DEFAULT_DEPTH, DEFAULT_TIME_BUDGET_MS);
+    }
+
+    /**
+     * @param beamWidth Boards kept per depth (at least 1)
+     * @param depth Pieces planned ahead including the current one (at least 1)
+     * @param timeBudgetMillis Hard time budget per decision in milliseconds (at least 1)
+     */
+    public BeamSearchPlanner(int beamWidth, int depth, long timeBudgetMillis) {
+        this(beamWidth, depth, timeBudgetMillis, null);
+    }
+
+    /**
+     * @param beamWidth Boards kept per depth (at least 1)
+     * @param depth Pieces planned ahead including the current one (at least 1)
+     * @param timeBudgetMillis Hard time budget per decision in milliseconds (at least 1)
+     * @param cache Evaluation cache kept across decisions (null = no caching)
+     */
+    public BeamSearchPlanner(int beamWidth, int depth, long timeBudgetMillis, EvaluationCache cache) {
+        if (beamWidth < 1) throw new IllegalArgumentException("beamWidth must be >= 1: " + beamWidth);
+        if (depth < 1) throw new IllegalArgumentException("depth must be >= 1: " + depth);
+        if (timeBudgetMillis < 1) throw new IllegalArgumentException("timeBudgetMillis must be >= 1: " + timeBudgetMillis);
+        this.beamWidth = beamWidth;
+        this.depth = depth;
+        this.timeBudgetNanos = timeBudgetMillis * 1_000_000L;
+        this.evaluator = new BoardEvaluator(cache);
+    }
+
+    public int getBeamWidth() { return beamWidth; }
+    public int getDepth() { return depth; }
+    public long getTimeBudgetMillis() { return timeBudgetNanos / 1_000_000L; }
+
+    /** The evaluation cache in use (for hit-rate metrics), or null. */
+    public EvaluationCache getEvaluationCache() { return evaluator.getCache(); }
+
+    @Override
+    public AIMove planMove(IGameBoard board, Tetromino current, List<TetrominoType> preview) {
+        if (current == null) return null;
+        long deadline = System.nanoTime() + timeBudgetNanos;
+        int width = board.getWidth();
+
+        // Ply 1: every placement of the current piece, regardless of the budget
+        Node root = new Node(board.cells(), null, 0, 0, 0, 0);
+        List<Node> beam = expand(List.of(root), current.type, width, Long.MAX_VALUE);
+        if (beam.isEmpty()) return null;
+
+        for (int ply = 1; ply < depth; ply++) {
+            if (ply <= preview.size()) {
+                List<Node> next = expand(beam, preview.get(ply - 1), width, deadline);
+                // Out of time, or no board survives the next piece: keep the last complete ply
+                if (next == null || next.isEmpty()) break;
+                beam = next;
+            } else {
+                Node best = bestByExpectedValue(beam, depth - ply, width, deadline);
+                if (best != null) return best.firstMove();
+                break;
+            }
+        }
+        return beam.get(0).firstMove();
+    }
+
+    /**
+     * Extends every board of the beam with all placements of the given piece.
+     *
+     * @return The beamWidth best children, best first; null if the deadline passed
+     */
+    private List<Node> expand(List<Node> beam, TetrominoType type, int width, long deadline) {
+        List<Node> children = new ArrayList<>();
+        int order = 0;
+        for (Node parent : beam) {
+            if (System.nanoTime() >= deadline) return null;
+            Skyline skyline = Skyline.of(parent.board());
+            for (AIMove move : MoveSimulator.generateCandidates(width, skyline, type)) {
+                SimulationResult result = MoveSimulator.simulateMoveWithLineCount(parent.board(), skyline, type,
+                        move.targetX(), move.targetRotation());
+                if (result == null) continue;
+
+                int rewards = parent.rewards() + evaluator.scoreLineClears(result.linesCleared());
+                int score = rewards + evaluator.evaluateBoardWithLines(result.board(), 0);
+                boolean firstPly = parent.firstMove() == null;
+                children.add(new Node(result.board(),
+                        firstPly ? move : parent.firstMove(),
+                        firstPly ? order : parent.firstOrder(),
+                        rewards, score, order));
+                order++;
+            }
+        }
+        children.sort(BEST_FIRST);
+        return children.size() > beamWidth ? new ArrayList<>(children.subList(0, beamWidth)) : children;
+    }
+
+    /**
+     * Ranks the beam by expected value over the remaining unknown pieces.
+     *
+     * @return The best node of the beam, or null if the deadline passed
+     */
+    private Node bestByExpectedValue(List<Node> beam, int unknownPieces, int width, long deadline) {
+        Node best = null;
+        double bestValue = Double.NEGATIVE_INFINITY;
+        // Beam is sorted best first, so a strict comparison keeps the tie-breaking order
+        for (Node node : beam) {
+            double value = expectedValue(node, unknownPieces, width, deadline);
+            if (Double.isNaN(value)) return null;
+            if (value > bestValue) {
+                bestValue = value;
+                best = node;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Average over all piece types of the score after that piece's best placement,
+     * recursively for the given number of unknown pieces.
+     *
+     * @return Expected score, or NaN if the deadline passed
+     */
+    private double expectedValue(Node node, int unknownPieces, int width, long deadline) {
+        if (unknownPieces == 0) return node.score();
+        if (System.nanoTime() >= deadline) return Double.NaN;
+
+        Skyline skyline = Skyline.of(node.board());
+        double total = 0;
+        for (TetrominoType type : ALL_TYPES) {
+            Node best = null;
+            for (AIMove move : MoveSimulator.generateCandidates(width, skyline, type)) {
+                SimulationResult result = MoveSimulator.simulateMoveWithLineCount(node.board(), skyline, type,
+                        move.targetX(), move.targetRotation());
+                if (result == null) continue;
+
+                int rewards = node.rewards() + evaluator.scoreLineClears(result.linesCleared());
+                int score = rewards + evaluator.evaluateBoardWithLines(result.board(), 0);
+                if (best == null || score > best.score()) {
+                    best = new Node(result.board(), node.firstMove(), node.firstOrder(), rewards, score, 0);
+                }
+            }
+            if (best == null) {
+                total += node.score() + DEAD_END_PENALTY;
+                continue;
+            }
+            double value = expectedValue(best, unknownPieces - 1, width, deadline);
+            if (Double.isNaN(value)) return Double.NaN;
+            total += value;
+        }
+        return total / ALL_TYPES.length;
+    }
+}
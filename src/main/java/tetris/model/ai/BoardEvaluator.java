@@ -2,6 +2,8 @@ package tetris.model.ai;
 
 import tetris.model.board.BoardUtils;
 
+import java.util.function.ToIntFunction;
+
 /**
  * BoardEvaluator evaluates Tetris board states using multiple sophisticated heuristics.
  * This class implements a weighted scoring system that considers:
@@ -14,6 +16,16 @@ import tetris.model.board.BoardUtils;
  * 
  * Higher scores indicate better board positions for the AI.
  * Weights are carefully tuned for optimal AI performance achieving 500+ points.
+ * 
+ * All features are extracted in one column-major sweep (see scoreBoard); the
+ * original one-pass-per-feature implementation is kept as scoreBoardReference
+ * and both must produce bit-identical scores.
+ * 
+ * For search, evaluatePlacement scores a placement from the features of the board
+ * before it (see BoardFeatures), rescanning only the columns the piece touched.
+ * 
+ * Board scores can optionally be memoized in an EvaluationCache; the line reward
+ * is added outside the cache, so a board is cached once whatever cleared to reach it.
  */
 public class BoardEvaluator {
     
@@ -26,6 +38,27 @@ public class BoardEvaluator {
     private static final int WELLS_WEIGHT = -15;         // Penalize deep wells that trap pieces
     private static final int TETRIS_BONUS = 200;         // Massive bonus for tetris (4 lines) opportunities
     
+    private final EvaluationCache cache;                 // null = always evaluate
+    private final ToIntFunction<int[][]> scorer = this::scoreBoard;
+    
+    public BoardEvaluator() {
+        this(null);
+    }
+    
+    /**
+     * Creates an evaluator that memoizes board scores.
+     * 
+     * @param cache Shared evaluation cache (null = no caching)
+     */
+    public BoardEvaluator(EvaluationCache cache) {
+        this.cache = cache;
+    }
+    
+    /** The evaluation cache in use, or null when caching is off. */
+    public EvaluationCache getCache() {
+        return cache;
+    }
+    
     /**
      * Evaluates the board state and returns a composite score.
      * Combines multiple heuristics with weighted importance to guide AI decisions.
@@ -46,23 +79,140 @@ public class BoardEvaluator {
      * @return Score representing board quality (higher = better position for AI)
      */
     public int evaluateBoardWithLines(int[][] board, int linesCleared) {
+        int boardScore = (cache != null) ? cache.computeIfAbsent(board, scorer) : scoreBoard(board);
+        return boardScore + scoreLineClears(linesCleared);
+    }
+    
+    /**
+     * evaluateBoardWithLines of the scratch board's last placement; the cache key
+     * is taken from the row masks the scratch board keeps, so nothing is rescanned.
+     * 
+     * @param scratch Scratch board holding the placement
+     * @param linesCleared The number of lines the placement cleared
+     * @return Score representing board quality (higher = better position for AI)
+     */
+    int evaluateResult(ScratchBoard scratch, int linesCleared) {
+        int[][] board = scratch.result();
+        if (cache == null || !scratch.masked()) return evaluateBoardWithLines(board, linesCleared);
+        int boardScore = cache.computeIfAbsent(board, scratch.resultRows(), scratch.resultHash(), scorer);
+        return boardScore + scoreLineClears(linesCleared);
+    }
+    
+    /**
+     * Incremental evaluation of a placement, equal to evaluateBoardWithLines(after, linesCleared).
+     * Without line clears only the touched columns are rescanned; a clear shifts
+     * every column, so the board is then evaluated in full.
+     * 
+     * @param before Features of the board before the placement
+     * @param after The board after the placement and line clearing
+     * @param fromCol Leftmost column the piece occupies
+     * @param toCol Rightmost column the piece occupies
+     * @param linesCleared The number of lines the placement cleared
+     * @return Score representing board quality (higher = better position for AI)
+     */
+    public int evaluatePlacement(BoardFeatures before, int[][] after, int fromCol, int toCol, int linesCleared) {
+        if (linesCleared > 0) return evaluateBoardWithLines(after, linesCleared);
+        return before.scoreAfterPlacement(after, fromCol, toCol);
+    }
+    
+    /**
+     * Combines board features with their respective weights.
+     * 
+     * @return Weighted board score (without line reward)
+     */
+    static int weigh(int maxHeight, int holes, int bumpiness, int wells) {
+        return (HEIGHT_WEIGHT * maxHeight) + 
+               (HOLES_WEIGHT * holes) + 
+               (BUMPINESS_WEIGHT * bumpiness) + 
+               (WELLS_WEIGHT * wells);
+    }
+    
+    /**
+     * Scores the shape of the board itself (everything except the line reward).
+     * 
+     * Single column-major sweep computing the same features as the reference passes:
+     * - column height: first filled cell from the top
+     * - holes: every empty cell below it, weighted by the filled cells above
+     * - bumpiness: height difference to the previous column
+     * - wells: maximal vertical runs of empty cells walled on both sides, length squared
+     * 
+     * @param board The game board after line clearing
+     * @return Weighted sum of height, holes, bumpiness and wells
+     */
+    int scoreBoard(int[][] board) {
+        int rows = board.length;
+        int cols = board[0].length;
+        int maxHeight = 0, holes = 0, bumpiness = 0, wells = 0;
+        int prevHeight = 0;
+        
+        for (int x = 0; x < cols; x++) {
+            int colHeight = 0;
+            int blocksAbove = 0;
+            int wellRun = 0;
+            
+            for (int y = 0; y < rows; y++) {
+                if (board[y][x] != 0) {
+                    if (blocksAbove == 0) colHeight = rows - y;
+                    blocksAbove++;
+                    wells += wellRun * wellRun;
+                    wellRun = 0;
+                    continue;
+                }
+                // Empty cell: a hole once any block is above it
+                if (blocksAbove > 0) holes += blocksAbove;
+                
+                boolean walled = (x == 0 || board[y][x - 1] != 0)
+                              && (x == cols - 1 || board[y][x + 1] != 0);
+                if (walled) {
+                    wellRun++;
+                } else {
+                    wells += wellRun * wellRun;
+                    wellRun = 0;
+                }
+            }
+            wells += wellRun * wellRun;
+            
+            maxHeight = Math.max(maxHeight, colHeight);
+            if (x > 0) bumpiness += Math.abs(prevHeight - colHeight);
+            prevHeight = colHeight;
+        }
+        
+        return weigh(maxHeight, holes, bumpiness, wells);
+    }
+    
+    /**
+     * Reference implementation of scoreBoard: one full-board pass per feature.
+     * Kept as the specification the fused sweep is tested against.
+     * 
+     * @param board The game board after line clearing
+     * @return Weighted sum of height, holes, bumpiness and wells
+     */
+    int scoreBoardReference(int[][] board) {
         // Calculate individual heuristic scores
         int height = calculateMaxHeight(board);           // How tall is the tallest stack?
         int holes = countHoles(board);                    // How many unreachable empty spaces?
         int bumpiness = calculateBumpiness(board);        // How uneven is the surface?
         int wells = countWells(board);                    // How many dangerous deep gaps?
         
-        // Special bonus for tetris (4 lines cleared simultaneously)
-        // This encourages the AI to set up tetris opportunities for maximum points
-        int tetrisBonus = (linesCleared == 4) ? TETRIS_BONUS : 0;
-        
         // Combine all factors with their respective weights
         return (HEIGHT_WEIGHT * height) + 
-               (LINES_WEIGHT * linesCleared) + 
                (HOLES_WEIGHT * holes) + 
                (BUMPINESS_WEIGHT * bumpiness) + 
-               (WELLS_WEIGHT * wells) + 
-               tetrisBonus;
+               (WELLS_WEIGHT * wells);
+    }
+    
+    /**
+     * Reward for clearing the given number of lines with one placement.
+     * Used on its own by multi-piece searches to credit clears made before the final board.
+     * 
+     * @param linesCleared Lines cleared by a single placement
+     * @return Line reward including the tetris bonus
+     */
+    public int scoreLineClears(int linesCleared) {
+        // Special bonus for tetris (4 lines cleared simultaneously)
+        // This encourages the AI to set up tetris opportunities for maximum points
+        int tetrisBonus = (linesCleared == 4) ? TETRIS_BONUS : 0;
+        return (LINES_WEIGHT * linesCleared) + tetrisBonus;
     }
     
     /**
@@ -0,0 +1,143 @@
+package tetris.model.ai;
+
+/**
+ * BoardFeatures: per-column evaluation features of one board, for incremental scoring.
+ *
+ * Stores for every column its height, its weighted hole count and its well
+ * score (sum of squared lengths of walled empty runs), plus the board totals
+ * BoardEvaluator weighs. A placement that clears no line only adds cells, so
+ * the score of the resulting board can be derived from these features by
+ * rescanning just the touched columns:
+ * - heights and holes: the piece's columns
+ * - wells: the piece's columns and one neighbour on each side (walls changed)
+ * - bumpiness: the column pairs involving a touched column
+ * - max height: can only grow, so old max vs. new touched heights
+ *
+ * Cost is proportional to piece width x board height instead of board area.
+ * Placements that clear lines shift every column and need a full evaluation.
+ *
+ * Instances are immutable after construction and can be shared between threads.
+ */
+public final class BoardFeatures {
+    private final int width, height;
+    private final int[] heights;
+    private final int[] holes;
+    private final int[] wells;
+    private final int maxHeight, totalHoles, bumpiness, totalWells;
+
+    private BoardFeatures(int[][] board) {
+        this.height = board.length;
+        this.width = board[0].length;
+        this.heights = new int[width];
+        this.holes = new int[width];
+        this.wells = new int[width];
+
+        int max = 0, holeSum = 0, bump = 0, wellSum = 0;
+        for (int x = 0; x < width; x++) {
+            heights[x] = columnHeight(board, x);
+            holes[x] = columnHoles(board, x);
+            wells[x] = columnWells(board, x);
+            max = Math.max(max, heights[x]);
+            holeSum += holes[x];
+            wellSum += wells[x];
+            if (x > 0) bump += Math.abs(heights[x - 1] - heights[x]);
+        }
+        this.maxHeight = max;
+        this.totalHoles = holeSum;
+        this.bumpiness = bump;
+        this.totalWells = wellSum;
+    }
+
+    /** Computes the features of a board from scratch. */
+    public static BoardFeatures of(int[][] board) {
+        return new BoardFeatures(board);
+    }
+
+    public int getWidth() { return width; }
+    public int getHeight() { return height; }
+    public int maxHeight() { return maxHeight; }
+    public int holes() { return totalHoles; }
+    public int bumpiness() { return bumpiness; }
+    public int wells() { return totalWells; }
+    public int columnHeight(int x) { return heights[x]; }
+
+    /** Board score (without line reward) of the board these features describe. */
+    int score() {
+        return BoardEvaluator.weigh(maxHeight, totalHoles, bumpiness, totalWells);
+    }
+
+    /**
+     * Board score (without line reward) after cells were added to columns
+     * fromCol..toCol of this board, with no line cleared.
+     *
+     * @param after The board after the placement
+     * @param fromCol Leftmost column that received cells
+     * @param toCol Rightmost column that received cells
+     * @return Same value as a full evaluation of the board after the placement
+     */
+    int scoreAfterPlacement(int[][] after, int fromCol, int toCol) {
+        int max = maxHeight;
+        int holeSum = totalHoles;
+        int bump = bumpiness;
+        int wellSum = totalWells;
+
+        // Heights, holes and the bumpiness pairs they take part in (rolling over columns)
+        int prevOld = fromCol > 0 ? heights[fromCol - 1] : 0;
+        int prevNew = prevOld;
+        for (int x = fromCol; x <= toCol; x++) {
+            int h = columnHeight(after, x);
+            max = Math.max(max, h);
+            holeSum += columnHoles(after, x) - holes[x];
+            if (x > 0) bump += Math.abs(prevNew - h) - Math.abs(prevOld - heights[x]);
+            prevOld = heights[x];
+            prevNew = h;
+        }
+        if (toCol < width - 1) {
+            int right = heights[toCol + 1];
+            bump += Math.abs(prevNew - right) - Math.abs(prevOld - right);
+        }
+
+        // Wells also depend on the walls next to them
+        for (int x = Math.max(0, fromCol - 1); x <= Math.min(width - 1, toCol + 1); x++) {
+            wellSum += columnWells(after, x) - wells[x];
+        }
+
+        return BoardEvaluator.weigh(max, holeSum, bump, wellSum);
+    }
+
+    /** Height of column x measured from the floor (0 = empty). */
+    static int columnHeight(int[][] board, int x) {
+        for (int y = 0; y < board.length; y++) {
+            if (board[y][x] != 0) return board.length - y;
+        }
+        return 0;
+    }
+
+    /** Empty cells below the column top, each weighted by the filled cells above it. */
+    static int columnHoles(int[][] board, int x) {
+        int holes = 0, blocksAbove = 0;
+        for (int[] row : board) {
+            if (row[x] != 0) blocksAbove++;
+            else holes += blocksAbove;
+        }
+        return holes;
+    }
+
+    /** Sum of squared lengths of the maximal runs of empty cells walled on both sides. */
+    static int columnWells(int[][] board, int x) {
+        int last = board[0].length - 1;
+        int wells = 0, run = 0;
+        for (int[] row : board) {
+            boolean walled = row[x] == 0
+                    && (x == 0 || row[x - 1] != 0)
+                    && (x == last || row[x + 1] != 0);
+            if (walled) {
+                run++;
+            } else {
+                wells += run * run;
+                run = 0;
+            }
+        }
+        return wells + run * run;
+    }
+}
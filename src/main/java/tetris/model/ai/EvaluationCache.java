@@ -0,0 +1,274 @@
+package tetris.model.ai;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToIntFunction;
+
+/**
+ * EvaluationCache: bounded memo of board evaluation scores keyed by occupancy.
+ *
+ * The evaluator only looks at whether a cell is filled, so the key is the board's
+ * occupancy as one bitmask per row (bit x set = cell filled) plus its width. Identical
+ * resulting boards are common across candidates of one decision (different
+ * rotations landing the same cells) and across the plies of lookahead and beam
+ * searches, which re-reach the same boards through different move orders.
+ *
+ * The hash is the XOR of rowHash over the rows, so a search that keeps row masks
+ * (see ScratchBoard) updates it for the few rows a placement touches instead of
+ * rescanning the board; a plain int[][] is scanned into a per-thread buffer.
+ *
+ * Design:
+ * - Bounded: at most capacity entries, never grows
+ * - CLOCK eviction (second chance): a hit sets the entry's reference bit, the
+ *   clock hand clears bits until it finds an unreferenced victim
+ * - Thread-safe: entries are spread over independently locked segments by hash,
+ *   so a parallel search rarely contends on the same lock
+ * - Allocation-free lookups: each segment indexes its slots with an open-addressed
+ *   int table, and row masks are copied (into the slot's reused array) only on insert
+ * - Hit, miss and eviction counters for metrics (see stats())
+ *
+ * Entries keep their full row masks, so hash collisions never return a wrong score.
+ * Boards wider than MAX_WIDTH (one long per row) are evaluated without caching.
+ */
+public class EvaluationCache {
+
+    public static final int DEFAULT_CAPACITY = 1 << 16;
+    public static final int MAX_WIDTH = Long.SIZE;
+    private static final int SEGMENTS = 16;
+    private static final ThreadLocal<long[]> ROWS = ThreadLocal.withInitial(() -> new long[0]);
+
+    private final Segment[] segments = new Segment[SEGMENTS];
+    private final int capacity;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Snapshot of the cache counters.
+     *
+     * @param hits Lookups answered from the cache
+     * @param misses Lookups that had to evaluate the board
+     * @param evictions Entries replaced to stay within capacity
+     * @param size Entries currently held
+     */
+    public record Stats(long hits, long misses, long evictions, int size) {
+        /** Fraction of lookups answered from the cache (0 when unused). */
+        public double hitRate() {
+            long lookups = hits + misses;
+            return lookups == 0 ? 0.0 : (double) hits / lookups;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("EvaluationCache{hits=%d, misses=%d, hitRate=%.1f%%, evictions=%d, size=%d}",
+                    hits, misses, hitRate() * 100, evictions, size);
+        }
+    }
+
+    public EvaluationCache() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity Maximum number of cached boards (at least 1 per segment is kept)
+     */
+    public EvaluationCache(int capacity) {
+        if (capacity < 1) throw new IllegalArgumentException("capacity must be >= 1: " + capacity);
+        int perSegment = Math.max(1, (capacity + SEGMENTS - 1) / SEGMENTS);
+        for (int i = 0; i < SEGMENTS; i++) segments[i] = new Segment(perSegment);
+        this.capacity = perSegment * SEGMENTS;
+    }
+
+    /** Maximum number of entries (capacity rounded up to a whole number per segment). */
+    public int capacity() { return capacity; }
+
+    /**
+     * Returns the cached score of the board, computing and storing it on a miss.
+     *
+     * @param board Board to score (only occupancy matters)
+     * @param evaluator Computes the score on a miss
+     * @return The board's score
+     */
+    public int computeIfAbsent(int[][] board, ToIntFunction<int[][]> evaluator) {
+        int height = board.length;
+        int width = board[0].length;
+        if (width > MAX_WIDTH) return evaluator.applyAsInt(board);
+
+        long[] rows = ROWS.get();
+        if (rows.length != height) {
+            rows = new long[height];
+            ROWS.set(rows);
+        }
+        long hash = 0;
+        for (int y = 0; y < height; y++) {
+            long bits = 0;
+            int[] row = board[y];
+            for (int x = 0; x < width; x++) {
+                if (row[x] != 0) bits |= 1L << x;
+            }
+            rows[y] = bits;
+            hash ^= rowHash(y, bits);
+        }
+        return computeIfAbsent(board, rows, hash, evaluator);
+    }
+
+    /**
+     * computeIfAbsent for a caller that already keeps the board's row masks and hash.
+     *
+     * @param board Board to score on a miss
+     * @param rows Occupancy of each row of the board (copied only when stored)
+     * @param hash XOR of rowHash over the rows
+     * @param evaluator Computes the score on a miss
+     * @return The board's score
+     */
+    int computeIfAbsent(int[][] board, long[] rows, long hash, ToIntFunction<int[][]> evaluator) {
+        int width = board[0].length;
+        Segment segment = segments[(int) (hash >>> 60)];
+
+        long cached = segment.lookup(hash, width, rows);
+        if (cached != Segment.MISS) {
+            hits.increment();
+            return (int) cached;
+        }
+        misses.increment();
+        int score = evaluator.applyAsInt(board);
+        if (segment.store(hash, width, rows, score)) evictions.increment();
+        return score;
+    }
+
+    /**
+     * Hash contribution of row y with the given occupancy; a board hashes to the
+     * XOR over its rows, so changing one row updates the hash with two calls.
+     */
+    static long rowHash(int y, long bits) {
+        long h = (bits + y) * 0x9E3779B97F4A7C15L;
+        h = (h ^ (h >>> 32) ^ y) * 0xD6E8FEB86659FD93L;
+        return h ^ (h >>> 29);
+    }
+
+    /** Current counters and size. */
+    public Stats stats() {
+        int size = 0;
+        for (Segment s : segments) size += s.size();
+        return new Stats(hits.sum(), misses.sum(), evictions.sum(), size);
+    }
+
+    /** Drops every entry and resets the counters. */
+    public void clear() {
+        for (Segment s : segments) s.clear();
+        hits.reset();
+        misses.reset();
+        evictions.reset();
+    }
+
+    /**
+     * One lock's share of the cache: fixed slot arrays, evicted by CLOCK, indexed by
+     * a linear-probing table of slot + 1 (0 = free) at most half full.
+     */
+    private static final class Segment {
+        static final long MISS = Long.MIN_VALUE;
+
+        private final int[] table;
+        private final int mask;
+        private final long[] hashes;
+        private final int[] widths;
+        private final long[][] rows;
+        private final int[] values;
+        private final boolean[] referenced;
+        private int size;
+        private int hand;
+
+        Segment(int capacity) {
+            this.table = new int[Integer.highestOneBit(capacity) << 2];
+            this.mask = table.length - 1;
+            this.hashes = new long[capacity];
+            this.widths = new int[capacity];
+            this.rows = new long[capacity][];
+            this.values = new int[capacity];
+            this.referenced = new boolean[capacity];
+        }
+
+        synchronized long lookup(long hash, int width, long[] occupancy) {
+            int slot = find(hash, width, occupancy);
+            if (slot < 0) return MISS;
+            referenced[slot] = true;
+            return values[slot];
+        }
+
+        /** Stores the score; returns true if another entry had to be evicted. */
+        synchronized boolean store(long hash, int width, long[] occupancy, int value) {
+            int existing = find(hash, width, occupancy);
+            if (existing >= 0) {             // another thread got here first
+                values[existing] = value;
+                return false;
+            }
+
+            boolean evicted = false;
+            int slot;
+            if (size < hashes.length) {
+                slot = size++;
+            } else {
+                // Second chance: skip (and clear) recently hit entries
+                while (referenced[hand]) {
+                    referenced[hand] = false;
+                    hand = (hand + 1) % hashes.length;
+                }
+                slot = hand;
+                hand = (hand + 1) % hashes.length;
+                unlink(slot);
+                evicted = true;
+            }
+            hashes[slot] = hash;
+            widths[slot] = width;
+            if (rows[slot] == null || rows[slot].length != occupancy.length) {
+                rows[slot] = occupancy.clone();
+            } else {
+                System.arraycopy(occupancy, 0, rows[slot], 0, occupancy.length);
+            }
+            values[slot] = value;
+            referenced[slot] = false;
+
+            int i = (int) hash & mask;
+            while (table[i] != 0) i = (i + 1) & mask;
+            table[i] = slot + 1;
+            return evicted;
+        }
+
+        private int find(long hash, int width, long[] occupancy) {
+            for (int i = (int) hash & mask; table[i] != 0; i = (i + 1) & mask) {
+                int slot = table[i] - 1;
+                if (hashes[slot] == hash && widths[slot] == width && Arrays.equals(rows[slot], occupancy)) {
+                    return slot;
+                }
+            }
+            return -1;
+        }
+
+        // Removes the slot from the table, shifting later entries of its probe run back
+        private void unlink(int slot) {
+            int i = (int) hashes[slot] & mask;
+            while (table[i] != slot + 1) i = (i + 1) & mask;
+            for (int j = (i + 1) & mask; table[j] != 0; j = (j + 1) & mask) {
+                int home = (int) hashes[table[j] - 1] & mask;
+                // The entry at j may move to i only if its home is not in (i, j]
+                boolean stays = (i <= j) ? (i < home && home <= j) : (i < home || home <= j);
+                if (!stays) {
+                    table[i] = table[j];
+                    i = j;
+                }
+            }
+            table[i] = 0;
+        }
+
+        synchronized int size() {
+            return size;
+        }
+
+        synchronized void clear() {
+            Arrays.fill(table, 0);
+            Arrays.fill(referenced, false);
+            size = 0;
+            hand = 0;
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package tetris.model.ai;
+
+import tetris.model.board.IGameBoard;
+import tetris.model.tetromino.Tetromino;
+import tetris.model.tetromino.TetrominoType;
+
+import java.util.List;
+
+/**
+ * MovePlanner: an AI engine that decides where the current piece should go.
+ *
+ * AIController asks its planner for one move per piece and then executes it
+ * action by action, so engines can be swapped without touching the game loop
+ * (JavaFX or headless). Implementations:
+ * - TetrisAI: greedy one-piece search (optionally with a next-piece lookahead)
+ * - BeamSearchPlanner: multi-piece beam search under a time budget
+ */
+public interface MovePlanner {
+
+    /**
+     * Plans the placement of the current piece.
+     *
+     * @param board The current game board state (not modified)
+     * @param current The tetromino piece to place
+     * @param preview Known upcoming piece types, next piece first (may be empty)
+     * @return The chosen move, or null if no valid move exists
+     */
+    AIMove planMove(IGameBoard board, Tetromino current, List<TetrominoType> preview);
+}
@@ -0,0 +1,140 @@
+package tetris.model.ai;
+
+import tetris.model.board.BoardUtils;
+import tetris.model.board.Skyline;
+import tetris.model.tetromino.PieceShape;
+import tetris.model.tetromino.Tetromino;
+import tetris.model.tetromino.TetrominoType;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * MoveSimulator: placement generation and drop simulation shared by the AI engines.
+ *
+ * Both TetrisAI and BeamSearchPlanner enumerate the same candidate placements in
+ * the same order (rotation first, then left to right) and simulate them the same
+ * way, so their scores are directly comparable.
+ */
+final class MoveSimulator {
+
+    /**
+     * Board reached by one placement, after line clearing, and the lines it cleared.
+     */
+    record SimulationResult(int[][] board, int linesCleared) {}
+
+    // Lowest accepted landing origin row: pieces may stick into the spawn area
+    static final int MIN_LANDING_Y = -3;
+
+    private MoveSimulator() {}
+
+    /**
+     * Lists every valid placement in sequential search order.
+     *
+     * @param width Board width
+     * @param skyline Column tops of the board
+     * @param type Type of the piece to place
+     * @return Candidate moves, rotation first, then left to right
+     */
+    static List<AIMove> generateCandidates(int width, Skyline skyline, TetrominoType type) {
+        // Optimize by checking only necessary rotations for each piece type
+        int maxRotations = getMaxRotationsForPiece(type);
+
+        return IntStream.range(0, maxRotations)
+                .boxed()
+                .flatMap(rotation ->
+                        // Range comes from the rotation's bounding box: the 4x4 origin may sit
+                        // partially off-board as long as every occupied cell stays inside.
+                        // This is crucial for edge placements (especially left side)
+                        columnRange(type.pieceShape(rotation), width)
+                                .filter(targetX -> isValidPlacement(skyline, type, targetX, rotation))
+                                .mapToObj(targetX -> new AIMove(targetX, rotation))
+                )
+                .toList();
+    }
+
+    /**
+     * Target X positions that keep every block of the rotation inside the walls.
+     *
+     * @param shape Precomputed geometry of the rotation
+     * @param width Board width
+     * @return Stream of candidate origin columns, left to right
+     */
+    private static IntStream columnRange(PieceShape shape, int width) {
+        return IntStream.rangeClosed(-shape.minCol(), width - 1 - shape.maxCol());
+    }
+
+    /**
+     * Gets the maximum number of unique rotations for a piece type.
+     * Performance optimization: avoids checking redundant rotations for symmetric pieces.
+     *
+     * @param type The tetromino type to check
+     * @return Number of unique rotation states (1-4)
+     */
+    static int getMaxRotationsForPiece(TetrominoType type) {
+        return switch (type) {
+            case O -> 1;        // Square: all rotations identical
+            case I, S, Z -> 2;  // Line/S/Z pieces: 2 unique orientations (0°/90° same as 180°/270°)
+            case T, L, J -> 4;  // T/L/J pieces: all 4 rotations unique
+        };
+    }
+
+    /**
+     * Checks if a piece can be placed at the target position with given rotation.
+     * Validates that the piece can legally drop and land without going off-board.
+     *
+     * The piece starts well above the board (origin row -4), so nothing can block
+     * its fall except the column tops: the landing row is read from the skyline
+     * and the bottom profile of the rotation instead of stepping down row by row.
+     *
+     * @param skyline Column tops of the current board
+     * @param type Type of the piece to test
+     * @param targetX Target X position (can be negative for edge placements)
+     * @param rotation Target rotation state
+     * @return true if placement is valid and piece can land successfully
+     */
+    private static boolean isValidPlacement(Skyline skyline, TetrominoType type, int targetX, int rotation) {
+        // Final validation: piece must land at reasonable position
+        // Allow pieces to extend slightly above board (spawn area)
+        return skyline.landingY(type.pieceShape(rotation), targetX) >= MIN_LANDING_Y;
+    }
+
+    /**
+     * Simulates dropping a piece at the target position and returns the result with line count.
+     * This is the core simulation method that predicts the outcome of a move.
+     *
+     * @param cells Current board cells (not modified)
+     * @param skyline Column tops of the current board
+     * @param type Type of the piece to simulate placing
+     * @param targetX Target X coordinate for placement
+     * @param rotation Target rotation for the piece
+     * @return SimulationResult with board state and lines cleared, or null if invalid
+     */
+    static SimulationResult simulateMoveWithLineCount(int[][] cells, Skyline skyline, TetrominoType type, int targetX, int rotation) {
+        try {
+            // Create a deep copy of the current board for simulation
+            int[][] boardCopy = BoardUtils.copyBoard(cells);
+
+            // Simulate gravity: place the piece directly on its landing row
+            Tetromino simPiece = new Tetromino(type, targetX,
+                    skyline.landingY(type.pieceShape(rotation), targetX));
+            simPiece.rot = rotation;
+
+            // Lock the piece into the simulated board
+            BoardUtils.lockPieceIntoBoard(boardCopy, simPiece);
+
+            // Clear the lines the placement completed and keep their count:
+            // this is what the AI should be rewarded for creating.
+            // Only the piece's own rows can have become full, so only those are checked.
+            PieceShape shape = simPiece.pieceShape();
+            int linesCleared = BoardUtils.clearFullLines(boardCopy, null,
+                    simPiece.y() + shape.minRow(), simPiece.y() + shape.maxRow());
+
+            // Return both the final board state and the count of cleared lines
+            return new SimulationResult(boardCopy, linesCleared);
+        } catch (Exception e) {
+            // Defensive programming: return null if any simulation error occurs
+            return null;
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package tetris.model.ai;
+
+import tetris.model.board.BoardUtils;
+import tetris.model.board.Skyline;
+import tetris.model.tetromino.PieceShape;
+import tetris.model.tetromino.TetrominoType;
+
+/**
+ * ScratchBoard: reusable per-thread simulation buffers for the AI search.
+ *
+ * Instead of copying the board for every candidate, the search loads the board
+ * once into a scratch buffer, then for each candidate:
+ * 1. place()  : writes the piece cells into the buffer (remembering them)
+ * 2. result() : board to evaluate (the buffer itself, or a line-cleared copy)
+ * 3. undo()   : erases exactly the cells place() wrote
+ *
+ * Placements that complete lines are cleared in a second pooled buffer, so the
+ * loaded board is never compacted and undo stays a handful of writes.
+ * Buffers are resized only when the board dimensions change, so steady-state
+ * planning allocates nothing here.
+ *
+ * For boards up to EvaluationCache.MAX_WIDTH wide, the buffers also keep one
+ * occupancy mask per row and their EvaluationCache hash, updated per placed cell,
+ * so a cached evaluation never rescans the board to build its key.
+ *
+ * Each thread owns one ScratchBoard per search level (see forThread), so the
+ * parallel search and nested lookahead plies never share buffers.
+ *
+ * A parallel search scores its candidates one task at a time, each on the
+ * scratch board of whichever worker runs it. Such a search creates one Search
+ * and passes it to load(Search) for every candidate: a worker copies the board
+ * only for the first candidate of that Search it sees.
+ */
+final class ScratchBoard {
+
+    /**
+     * One search over one board that stays unchanged while the search runs.
+     * Create a new instance per search; load(Search) recognizes it by identity.
+     *
+     * @param cells Board being searched (not modified)
+     * @param features Features of that board for incremental scoring (null = full evaluation)
+     * @param skyline Column tops of that board
+     */
+    record Search(int[][] cells, BoardFeatures features, Skyline skyline) {
+    }
+
+    private static final int LEVELS = 2;
+    private static final ThreadLocal<ScratchBoard[]> POOL = ThreadLocal.withInitial(() -> {
+        ScratchBoard[] levels = new ScratchBoard[LEVELS];
+        for (int i = 0; i < LEVELS; i++) levels[i] = new ScratchBoard();
+        return levels;
+    });
+
+    private int[][] work = new int[0][0];       // loaded board + current placement
+    private int[][] cleared = new int[0][0];    // placement with full lines removed
+    private int[][] result;
+    private long[] workRows = new long[0];      // occupancy masks of work (when masked)
+    private long[] clearedRows = new long[0];   // occupancy masks of cleared
+    private long[] resultRows;
+    private long workHash, clearedHash, resultHash;
+    private long fullRow;
+    private boolean masked;                     // width fits one long per row
+    private Search loadedFor;                   // search whose board the buffer holds, if any
+    private final int[] placedRows = new int[PieceShape.GRID * PieceShape.GRID];
+    private final int[] placedCols = new int[PieceShape.GRID * PieceShape.GRID];
+    private int placedCount;
+
+    private ScratchBoard() {}
+
+    /**
+     * Scratch buffer of the calling thread for the given search level
+     * (0 = current piece, 1 = lookahead piece).
+     */
+    static ScratchBoard forThread(int level) {
+        return POOL.get()[level];
+    }
+
+    /**
+     * Copies the board of the search into the buffer, unless it already holds it
+     * for that same search (and no placement is pending).
+     */
+    void load(Search search) {
+        if (search == loadedFor && placedCount == 0) return;
+        copy(search.cells());
+        loadedFor = search;
+    }
+
+    /**
+     * Copies the board into the buffer.
+     *
+     * @param cells Board to load (not modified)
+     */
+    void load(int[][] cells) {
+        copy(cells);
+        loadedFor = null;
+    }
+
+    private void copy(int[][] cells) {
+        int height = cells.length, width = cells[0].length;
+        if (work.length != height || work[0].length != width) {
+            work = new int[height][width];
+            cleared = new int[height][width];
+            masked = width <= EvaluationCache.MAX_WIDTH;
+            workRows = new long[masked ? height : 0];
+            clearedRows = new long[masked ? height : 0];
+            fullRow = (width == Long.SIZE) ? -1L : (1L << width) - 1;
+        }
+        for (int y = 0; y < height; y++) System.arraycopy(cells[y], 0, work[y], 0, width);
+        if (masked) {
+            workHash = 0;
+            for (int y = 0; y < height; y++) {
+                long bits = 0;
+                for (int x = 0; x < width; x++) {
+                    if (cells[y][x] != 0) bits |= 1L << x;
+                }
+                workRows[y] = bits;
+                workHash ^= EvaluationCache.rowHash(y, bits);
+            }
+        }
+        placedCount = 0;
+        showWork();
+    }
+
+    /**
+     * Writes the piece at its landing position and clears the lines it completes.
+     *
+     * @return Number of lines cleared by the placement
+     */
+    int place(TetrominoType type, int rotation, int x, int y) {
+        PieceShape shape = type.pieceShape(rotation);
+        int colorId = type.colorId;
+        int height = work.length;
+        placedCount = 0;
+
+        for (int i = 0; i < shape.cellCount(); i++) {
+            int by = y + shape.cellRow(i);
+            if (by < 0 || by >= height) continue;     // spawn area above the board
+            int bx = x + shape.cellCol(i);
+            work[by][bx] = colorId;
+            if (masked) setCell(by, workRows[by] | (1L << bx));
+            placedRows[placedCount] = by;
+            placedCols[placedCount] = bx;
+            placedCount++;
+        }
+
+        // Only the piece's own rows can have become full
+        int from = Math.max(0, y + shape.minRow());
+        int to = Math.min(height - 1, y + shape.maxRow());
+        boolean anyFull = false;
+        for (int r = from; r <= to && !anyFull; r++) anyFull = masked ? workRows[r] == fullRow : isFull(work[r]);
+        if (!anyFull) {
+            showWork();
+            return 0;
+        }
+
+        int width = work[0].length;
+        for (int r = 0; r < height; r++) System.arraycopy(work[r], 0, cleared[r], 0, width);
+        result = cleared;
+        if (masked) clearRows(from, to);
+        return BoardUtils.clearFullLines(cleared, null, from, to);
+    }
+
+    // Row masks and hash of cleared: work's rows without the full ones in [from, to]
+    private void clearRows(int from, int to) {
+        int write = workRows.length - 1;
+        for (int r = write; r >= 0; r--) {
+            if (r >= from && r <= to && workRows[r] == fullRow) continue;
+            clearedRows[write--] = workRows[r];
+        }
+        while (write >= 0) clearedRows[write--] = 0;
+        clearedHash = 0;
+        for (int y = 0; y < clearedRows.length; y++) clearedHash ^= EvaluationCache.rowHash(y, clearedRows[y]);
+        resultRows = clearedRows;
+        resultHash = clearedHash;
+    }
+
+    private void setCell(int y, long bits) {
+        workHash ^= EvaluationCache.rowHash(y, workRows[y]) ^ EvaluationCache.rowHash(y, bits);
+        workRows[y] = bits;
+    }
+
+    private void showWork() {
+        result = work;
+        resultRows = workRows;
+        resultHash = workHash;
+    }
+
+    /** Board after the last placement (valid until the next place or undo). */
+    int[][] result() {
+        return result;
+    }
+
+    /** Whether resultRows and resultHash are kept (board at most EvaluationCache.MAX_WIDTH wide). */
+    boolean masked() {
+        return masked;
+    }
+
+    /** Occupancy masks of result(), one per row (valid like result; only when masked). */
+    long[] resultRows() {
+        return resultRows;
+    }
+
+    /** EvaluationCache hash of result() (only when masked). */
+    long resultHash() {
+        return resultHash;
+    }
+
+    /** Removes the cells written by the last placement. */
+    void undo() {
+        for (int i = 0; i < placedCount; i++) {
+            int y = placedRows[i], x = placedCols[i];
+            work[y][x] = 0;
+            if (masked) setCell(y, workRows[y] & ~(1L << x));
+        }
+        placedCount = 0;
+        showWork();
+    }
+
+    private static boolean isFull(int[] row) {
+        for (int cell : row) if (cell == 0) return false;
+        return true;
+    }
+}
@@ -1,11 +1,16 @@
 package tetris.model.ai;
 
 import tetris.model.board.IGameBoard;
+import tetris.model.tetromino.PieceShape;
 import tetris.model.tetromino.Tetromino;
 import tetris.model.tetromino.TetrominoType;
-import tetris.model.board.BoardUtils;
-import java.util.stream.IntStream;
+import tetris.model.board.Skyline;
 import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.function.Function;
+import java.util.stream.IntStream;
 
 /**
  * TetrisAI is the main AI decision engine that implements intelligent Tetris gameplay.
@@ -20,28 +25,165 @@ import java.util.Comparator;
  * - Considers all board positions including edge placements
  * - Optimized rotation checking (avoids redundant rotations for symmetric pieces)
  * - Robust move validation with error handling
- * - Efficient board simulation and line clearing
+ * - Efficient board simulation and line clearing: candidates are placed into a
+ *   per-thread ScratchBoard, evaluated and undone, so the sequential greedy
+ *   search allocates nothing per decision once warmed up
+ * - Optional parallel candidate evaluation on a dedicated ForkJoinPool
+ *   (same result as the sequential search, ties broken by search order)
+ * - Optional evaluation cache shared across candidates, plies and pieces
+ * - Optional incremental evaluation: each candidate is scored from the features
+ *   of the board before it, rescanning only the columns the piece touched
+ * - Optional two-piece lookahead using the next-piece preview, pruned to the
+ *   best few placements of the current piece to keep latency bounded
  *
  * Performance: Capable of achieving 500+ points consistently.
  */
-public class TetrisAI {
+public class TetrisAI implements MovePlanner {
+
+    // Below this many candidates the fork/join overhead outweighs the gain
+    public static final int DEFAULT_PARALLEL_THRESHOLD = 16;
 
-    private final BoardEvaluator evaluator = new BoardEvaluator();
+    // First-ply placements kept for the lookahead search (top-k by greedy score)
+    public static final int DEFAULT_LOOKAHEAD_WIDTH = 5;
+
+    // Added to a placement after which the next piece cannot be placed at all
+    private static final int DEAD_END_PENALTY = -1_000_000;
+
+    private final BoardEvaluator evaluator;
+    private final ForkJoinPool searchPool;      // null = sequential search
+    private final int parallelThreshold;
+    private final boolean incremental;          // score candidates from BoardFeatures deltas
 
     /**
-     * Helper record to store simulation results with line count.
+     * Helper record to pair moves with their evaluation scores.
+     * Used internally for Stream-based move selection; order is the candidate's
+     * position in the sequential search (rotation first, then left to right).
      */
-    private record SimulationResult(int[][] board, int linesCleared) {}
+    private record ScoredMove(AIMove move, int score, int order) {}
 
     /**
-     * Helper record to pair moves with their evaluation scores.
-     * Used internally for Stream-based move selection.
+     * Ranking of scored moves: highest score wins, ties go to the candidate the
+     * sequential search meets first. Total order, so parallel and sequential
+     * searches always pick the same move.
+     */
+    private static final Comparator<ScoredMove> BEST_FIRST =
+            Comparator.comparingInt(ScoredMove::score)
+                    .thenComparing(ScoredMove::order, Comparator.reverseOrder());
+
+    /** Sequential search (default). */
+    public TetrisAI() {
+        this(null, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Opt-in parallel search: candidates are evaluated on the given pool once
+     * there are at least parallelThreshold of them, otherwise sequentially.
+     *
+     * @param searchPool Dedicated pool for candidate evaluation (null = sequential)
+     * @param parallelThreshold Minimum candidate count for going parallel
+     */
+    public TetrisAI(ForkJoinPool searchPool, int parallelThreshold) {
+        this(searchPool, parallelThreshold, null);
+    }
+
+    /**
+     * Full configuration: parallel search plus memoized board evaluation.
+     *
+     * @param searchPool Dedicated pool for candidate evaluation (null = sequential)
+     * @param parallelThreshold Minimum candidate count for going parallel
+     * @param cache Evaluation cache kept across decisions (null = no caching)
+     */
+    public TetrisAI(ForkJoinPool searchPool, int parallelThreshold, EvaluationCache cache) {
+        this(searchPool, parallelThreshold, cache, false);
+    }
+
+    /**
+     * Full configuration including the evaluation mode.
+     *
+     * Incremental evaluation pays off on wide custom fields, where rescanning a
+     * few columns is much cheaper than the whole board. Boards reached by a line
+     * clear are still evaluated in full (through the cache, if any).
+     *
+     * @param searchPool Dedicated pool for candidate evaluation (null = sequential)
+     * @param parallelThreshold Minimum candidate count for going parallel
+     * @param cache Evaluation cache kept across decisions (null = no caching)
+     * @param incremental Score candidates incrementally from the pre-placement features
+     */
+    public TetrisAI(ForkJoinPool searchPool, int parallelThreshold, EvaluationCache cache, boolean incremental) {
+        this.searchPool = searchPool;
+        this.parallelThreshold = Math.max(1, parallelThreshold);
+        this.evaluator = new BoardEvaluator(cache);
+        this.incremental = incremental;
+    }
+
+    /**
+     * Creates a sequential TetrisAI with incremental candidate evaluation.
+     */
+    public static TetrisAI incremental() {
+        return new TetrisAI(null, Integer.MAX_VALUE, null, true);
+    }
+
+    /**
+     * Creates a sequential TetrisAI that memoizes board evaluations.
+     *
+     * @param cache Evaluation cache kept across decisions
+     */
+    public static TetrisAI cached(EvaluationCache cache) {
+        return new TetrisAI(null, Integer.MAX_VALUE, cache);
+    }
+
+    /** The evaluation cache in use (for hit-rate metrics), or null. */
+    public EvaluationCache getEvaluationCache() {
+        return evaluator.getCache();
+    }
+
+    /**
+     * Creates a TetrisAI that searches in parallel on the shared AI search pool.
+     */
+    public static TetrisAI parallel() {
+        return new TetrisAI(SearchPool.INSTANCE, DEFAULT_PARALLEL_THRESHOLD);
+    }
+
+    /**
+     * Lazily created pool shared by all parallel TetrisAI instances.
+     * Kept apart from the common pool so game/UI work never competes with search.
+     */
+    private static final class SearchPool {
+        static final ForkJoinPool INSTANCE = new ForkJoinPool(
+                Runtime.getRuntime().availableProcessors(),
+                pool -> {
+                    ForkJoinWorkerThread t = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+                    t.setName("TetrisAI-Search-" + t.getPoolIndex());
+                    t.setDaemon(true);
+                    return t;
+                },
+                null, false);
+    }
+
+    /**
+     * Greedy planning: the preview is not used (see withLookahead).
      */
-    private record ScoredMove(AIMove move, int score) {}
+    @Override
+    public AIMove planMove(IGameBoard board, Tetromino current, List<TetrominoType> preview) {
+        return findBestMove(board, current);
+    }
+
+    /**
+     * Planner that looks one piece ahead using the first preview piece.
+     *
+     * @param lookaheadWidth Number of first-ply placements to expand (0 = this greedy planner)
+     * @return A planner backed by this AI
+     */
+    public MovePlanner withLookahead(int lookaheadWidth) {
+        if (lookaheadWidth <= 0) return this;
+        return (board, current, preview) -> findBestMove(board, current,
+                preview.isEmpty() ? null : preview.get(0), lookaheadWidth);
+    }
 
     /**
      * Finds the best move for the current piece on the given board.
-     * Uses exhaustive search with Stream + Lambda to evaluate all possible placements and rotations.
+     * Uses exhaustive search over all possible placements and rotations: a plain loop on a
+     * scratch board when sequential, a parallel Stream on the search pool otherwise.
      *
      * @param gameBoard The current game board state
      * @param currentPiece The tetromino piece to place
@@ -50,138 +192,190 @@ public class TetrisAI {
     public AIMove findBestMove(IGameBoard gameBoard, Tetromino currentPiece) {
         if (currentPiece == null) return null;
 
-        // Optimize by checking only necessary rotations for each piece type
-        int maxRotations = getMaxRotationsForPiece(currentPiece.type);
-
-        // Stream-based exhaustive search: evaluate all rotation and position combinations
-        return IntStream.range(0, maxRotations)
-                .boxed()
-                .flatMap(rotation ->
-                        // Extended range allows pieces to be placed partially off-board
-                        // This is crucial for edge placements (especially left side)
-                        IntStream.rangeClosed(-3, gameBoard.getWidth() + 2)
-                                .filter(targetX -> isValidPlacement(gameBoard, currentPiece, targetX, rotation))
-                                .mapToObj(targetX -> evaluateMove(gameBoard, currentPiece, targetX, rotation))
-                                .filter(scoredMove -> scoredMove != null)
-                )
-                .max(Comparator.comparingInt(ScoredMove::score))
+        // Column tops are shared by every candidate: landing rows come straight from them
+        Skyline skyline = gameBoard.skyline();
+        int[][] cells = gameBoard.cells();
+        int width = gameBoard.getWidth();
+        BoardFeatures features = incremental ? BoardFeatures.of(cells) : null;
+
+        if (searchPool == null) {
+            long best = searchBest(ScratchBoard.forThread(0), cells, features, skyline, currentPiece.type, width);
+            return best == NO_MOVE ? null : AIMove.of(bestX(best), bestRotation(best));
+        }
+
+        List<AIMove> candidates = MoveSimulator.generateCandidates(width, skyline, currentPiece.type);
+        ScratchBoard.Search search = new ScratchBoard.Search(cells, features, skyline);
+
+        // Each candidate is scored independently on its thread's scratch board, so the
+        // evaluation parallelizes trivially; the ranking keeps the result deterministic.
+        return search(candidates.size(), candidates.size(), indices -> indices
+                .mapToObj(i -> evaluateMove(search, currentPiece.type, candidates.get(i), i))
+                .max(BEST_FIRST)
                 .map(ScoredMove::move)
-                .orElse(null);
+                .orElse(null));
     }
 
     /**
-     * Evaluates a single move by simulating it and scoring the result.
-     * Lambda-friendly helper method for Stream processing.
+     * Finds the best move for the current piece, looking one piece ahead.
      *
-     * @param gameBoard Current game board state
-     * @param currentPiece Piece to evaluate
-     * @param targetX Target X position
-     * @param rotation Target rotation
-     * @return ScoredMove with move and its evaluation, or null if invalid
-     */
-    private ScoredMove evaluateMove(IGameBoard gameBoard, Tetromino currentPiece, int targetX, int rotation) {
-        // Simulate the move with proper line counting
-        SimulationResult result = simulateMoveWithLineCount(gameBoard, currentPiece, targetX, rotation);
-
-        if (result != null) {
-            // Evaluate using the correct line count
-            int score = evaluator.evaluateBoardWithLines(result.board, result.linesCleared);
-            return new ScoredMove(new AIMove(targetX, rotation), score);
-        }
+     * Every placement of the current piece is scored as in findBestMove; only the
+     * lookaheadWidth best of them are expanded. For each kept placement the next
+     * piece is tried in every position on the resulting board, and the placement
+     * is ranked by the best final board plus the lines it cleared itself.
+     * Cost is roughly (1 + lookaheadWidth) greedy searches.
+     *
+     * @param gameBoard The current game board state
+     * @param currentPiece The tetromino piece to place
+     * @param nextType Type of the following piece (null = no preview, greedy search)
+     * @param lookaheadWidth Number of first-ply placements to expand (0 = greedy search)
+     * @return The optimal move (position + rotation), or null if no valid moves exist
+     */
+    public AIMove findBestMove(IGameBoard gameBoard, Tetromino currentPiece,
+                               TetrominoType nextType, int lookaheadWidth) {
+        if (nextType == null || lookaheadWidth <= 0) return findBestMove(gameBoard, currentPiece);
+        if (currentPiece == null) return null;
+
+        Skyline skyline = gameBoard.skyline();
+        int[][] cells = gameBoard.cells();
+        int width = gameBoard.getWidth();
+        BoardFeatures features = incremental ? BoardFeatures.of(cells) : null;
+        List<AIMove> candidates = MoveSimulator.generateCandidates(width, skyline, currentPiece.type);
+        ScratchBoard.Search search = new ScratchBoard.Search(cells, features, skyline);
 
-        return null;
+        // First ply: greedy scores, best first, pruned to the lookahead width
+        List<ScoredMove> firstPly = search(candidates.size(), candidates.size(), indices -> indices
+                .mapToObj(i -> evaluateMove(search, currentPiece.type, candidates.get(i), i))
+                .sorted(BEST_FIRST.reversed())
+                .limit(lookaheadWidth)
+                .toList());
+
+        // Second ply: each kept placement is worth the best continuation it allows
+        return search(firstPly.size(), firstPly.size() * candidates.size(), indices -> indices
+                .mapToObj(i -> expandMove(cells, skyline, width, currentPiece.type, firstPly.get(i), nextType))
+                .max(BEST_FIRST)
+                .map(ScoredMove::move)
+                .orElse(null));
     }
 
     /**
-     * Gets the maximum number of unique rotations for a piece type.
-     * Performance optimization: avoids checking redundant rotations for symmetric pieces.
-     *
-     * @param type The tetromino type to check
-     * @return Number of unique rotation states (1-4)
+     * Runs a search over task indices, in parallel on the search pool when the
+     * amount of work (in candidate evaluations) reaches the parallel threshold.
      */
-    private int getMaxRotationsForPiece(TetrominoType type) {
-        return switch (type) {
-            case O -> 1;        // Square: all rotations identical
-            case I, S, Z -> 2;  // Line/S/Z pieces: 2 unique orientations (0°/90° same as 180°/270°)
-            case T, L, J -> 4;  // T/L/J pieces: all 4 rotations unique
-        };
+    private <T> T search(int tasks, int work, Function<IntStream, T> body) {
+        if (searchPool != null && work >= parallelThreshold) {
+            return searchPool.submit(() -> body.apply(IntStream.range(0, tasks).parallel())).join();
+        }
+        return body.apply(IntStream.range(0, tasks));
     }
 
     /**
-     * Checks if a piece can be placed at the target position with given rotation.
-     * Validates that the piece can legally drop and land without going off-board.
+     * Scores a first-ply placement by the best placement of the next piece after it.
      *
-     * @param board The current game board
-     * @param piece The piece to test
-     * @param targetX Target X position (can be negative for edge placements)
-     * @param rotation Target rotation state
-     * @return true if placement is valid and piece can land successfully
-     */
-    private boolean isValidPlacement(IGameBoard board, Tetromino piece, int targetX, int rotation) {
-        // Create a test piece starting well above the board
-        Tetromino testPiece = new Tetromino(piece.type, targetX, -4);
-        testPiece.rot = rotation;
-
-        // First check: can piece be placed at starting position?
-        if (!board.canMove(testPiece, 0, 0, rotation)) {
-            return false; // Piece would collide immediately
-        }
+     * The placement is applied to this thread's level-0 scratch board, the next
+     * piece is searched on the level-1 board, and the placement is undone again.
+     *
+     * @param cells Current board cells
+     * @param skyline Column tops of the current board
+     * @param width Board width
+     * @param type Type of the current piece
+     * @param first Scored first-ply placement
+     * @param nextType Type of the next piece
+     * @return The first-ply move with its combined score and original search order
+     */
+    private ScoredMove expandMove(int[][] cells, Skyline skyline, int width, TetrominoType type,
+                                  ScoredMove first, TetrominoType nextType) {
+        AIMove move = first.move();
+        ScratchBoard placed = ScratchBoard.forThread(0);
+        placed.load(cells);
+        int lines = placed.place(type, move.targetRotation(), move.targetX(),
+                skyline.landingY(type.pieceShape(move.targetRotation()), move.targetX()));
 
-        // Simulate dropping the piece until it lands
-        while (board.canMove(testPiece, 0, 1, rotation)) {
-            testPiece.moveBy(0, 1);
-        }
+        int[][] board = placed.result();
+        BoardFeatures nextFeatures = incremental ? BoardFeatures.of(board) : null;
+        long bestNext = searchBest(ScratchBoard.forThread(1), board, nextFeatures, Skyline.of(board), nextType, width);
+        placed.undo();
 
-        // Final validation: piece must land at reasonable position
-        // Allow pieces to extend slightly above board (spawn area)
-        return testPiece.y() >= -3;
+        // Nowhere to put the next piece: keep the greedy order among dead ends
+        if (bestNext == NO_MOVE) {
+            return new ScoredMove(move, first.score() + DEAD_END_PENALTY, first.order());
+        }
+        return new ScoredMove(move, bestScore(bestNext) + evaluator.scoreLineClears(lines), first.order());
     }
 
     /**
-     * Simulates dropping a piece at the target position and returns the result with line count.
-     * This is the core simulation method that predicts the outcome of a move.
+     * Sequential search over every valid placement, in candidate order, on a scratch board.
+     * The first candidate wins ties, exactly as with BEST_FIRST.
      *
-     * @param gameBoard Current game board state
-     * @param currentPiece Piece to simulate placing
-     * @param targetX Target X coordinate for placement
-     * @param rotation Target rotation for the piece
-     * @return SimulationResult with board state and lines cleared, or null if invalid
-     */
-    private SimulationResult simulateMoveWithLineCount(IGameBoard gameBoard, Tetromino currentPiece, int targetX, int rotation) {
-        try {
-            // Create a deep copy of the current board for simulation
-            int[][] boardCopy = BoardUtils.copyBoard(gameBoard.cells());
-
-            // Create simulation piece starting above the board
-            Tetromino simPiece = new Tetromino(currentPiece.type, targetX, -4);
-            simPiece.rot = rotation;
-
-            // Validate that piece can be placed initially
-            if (!BoardUtils.canMovePiece(boardCopy, simPiece, 0, 0, rotation)) {
-                return null; // Invalid placement - piece would collide
-            }
-
-            // Simulate gravity: drop piece until it can't move down
-            while (BoardUtils.canMovePiece(boardCopy, simPiece, 0, 1, rotation)) {
-                simPiece.moveBy(0, 1);
+     * @param scratch Scratch board to simulate on (loaded here)
+     * @param cells Board to place on
+     * @param features Features of that board for incremental scoring (null = full evaluation)
+     * @param skyline Column tops of that board
+     * @param type Type of the piece to place
+     * @param width Board width
+     * @return The best placement packed as (score, rotation, x), or NO_MOVE if there is none
+     */
+    private long searchBest(ScratchBoard scratch, int[][] cells, BoardFeatures features,
+                            Skyline skyline, TetrominoType type, int width) {
+        scratch.load(cells);
+        long best = NO_MOVE;
+        int bestScore = Integer.MIN_VALUE;
+        int maxRotations = MoveSimulator.getMaxRotationsForPiece(type);
+        for (int rotation = 0; rotation < maxRotations; rotation++) {
+            PieceShape shape = type.pieceShape(rotation);
+            for (int x = -shape.minCol(); x <= width - 1 - shape.maxCol(); x++) {
+                int y = skyline.landingY(shape, x);
+                if (y < MoveSimulator.MIN_LANDING_Y) continue;
+                int score = scorePlacement(scratch, features, type, rotation, x, y);
+                if (best == NO_MOVE || score > bestScore) {
+                    bestScore = score;
+                    best = ((long) score << 32) | ((long) rotation << 16) | (x + X_BIAS);
+                }
             }
+        }
+        return best;
+    }
 
-            // Lock the piece into the simulated board
-            BoardUtils.lockPieceIntoBoard(boardCopy, simPiece);
-
-            // CRITICAL FIX: Count full lines BEFORE clearing them
-            // This is what the AI should be rewarded for creating
-            int linesCleared = BoardUtils.countFullLines(boardCopy);
+    // Packing of searchBest results: score in the high word, rotation and biased x below
+    private static final long NO_MOVE = Long.MIN_VALUE;
+    private static final int X_BIAS = 1 << 15;
 
-            // Now clear the lines to get final board state for other evaluations
-            BoardUtils.clearFullLines(boardCopy);
+    private static int bestScore(long packed)    { return (int) (packed >> 32); }
+    private static int bestRotation(long packed) { return (int) (packed >>> 16) & 0xFFFF; }
+    private static int bestX(long packed)        { return (int) (packed & 0xFFFF) - X_BIAS; }
 
-            // Return both the final board state and the count of cleared lines
-            return new SimulationResult(boardCopy, linesCleared);
-        } catch (Exception e) {
-            // Defensive programming: return null if any simulation error occurs
-            return null;
+    /**
+     * Places a piece on the loaded scratch board, scores the result and undoes the placement.
+     */
+    private int scorePlacement(ScratchBoard scratch, BoardFeatures features, TetrominoType type,
+                               int rotation, int x, int y) {
+        int lines = scratch.place(type, rotation, x, y);
+        int score;
+        if (features != null && lines == 0) {
+            PieceShape shape = type.pieceShape(rotation);
+            score = evaluator.evaluatePlacement(features, scratch.result(),
+                    x + shape.minCol(), x + shape.maxCol(), lines);
+        } else {
+            score = evaluator.evaluateResult(scratch, lines);
         }
+        scratch.undo();
+        return score;
     }
 
-}
\ No newline at end of file
+    /**
+     * Evaluates a single move by simulating it on this thread's scratch board.
+     * Lambda-friendly helper method for Stream processing.
+     *
+     * @param search The running search (its board is copied once per worker thread)
+     * @param type Type of the piece to evaluate
+     * @param move Target position and rotation (a valid candidate)
+     * @param order Position of the candidate in the sequential search
+     * @return ScoredMove with move and its evaluation
+     */
+    private ScoredMove evaluateMove(ScratchBoard.Search search, TetrominoType type, AIMove move, int order) {
+        ScratchBoard scratch = ScratchBoard.forThread(0);
+        scratch.load(search);
+        int rotation = move.targetRotation();
+        int y = search.skyline().landingY(type.pieceShape(rotation), move.targetX());
+        return new ScoredMove(move, scorePlacement(scratch, search.features(), type, rotation, move.targetX(), y), order);
+    }
+}
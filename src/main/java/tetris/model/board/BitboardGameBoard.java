@@ -0,0 +1,213 @@
+package tetris.model.board;
+
+import tetris.model.tetromino.PieceGenerator;
+import tetris.model.tetromino.PieceShape;
+import tetris.model.tetromino.Tetromino;
+import tetris.model.tetromino.TetrominoType;
+
+/**
+ * BitboardGameBoard: IGameBoard backed by one occupancy bitmask per row.
+ *
+ * Bit x of rows[y] is set when cell (x, y) is filled, so collision, locking and
+ * full-line tests become a handful of shifts and AND/OR operations per piece row
+ * instead of a 4x4 cell walk. A separate color plane (same layout as GameBoard)
+ * is kept only for rendering and for callers of cells().
+ *
+ * GameBoard remains the reference implementation; both boards must produce
+ * identical games for the same PieceGenerator seed.
+ *
+ * Limitation: width must be between 1 and 64 (one long per row).
+ */
+public class BitboardGameBoard implements IGameBoard {
+    public static final int MAX_WIDTH = Long.SIZE;
+
+    private final int width, height;
+    private final long fullRow;
+    private final long[] rows;      // occupancy plane
+    private final int[][] colors;   // color plane (0 = empty, >0 = colorId)
+    private final Skyline skyline;   // column tops, kept in sync on lock/clear/reset
+    private Tetromino current;
+    private final PieceGenerator generator;
+
+    public BitboardGameBoard(int width, int height, PieceGenerator generator) {
+        if (width < 1 || width > MAX_WIDTH) {
+            throw new IllegalArgumentException("width must be 1-" + MAX_WIDTH + ": " + width);
+        }
+        this.width = width;
+        this.height = height;
+        this.generator = generator;
+        this.fullRow = (width == MAX_WIDTH) ? -1L : (1L << width) - 1;
+        this.rows = new long[height];
+        this.colors = new int[height][width];
+        this.skyline = new Skyline(width, height);
+    }
+
+    @Override public int[][] cells(){ return colors; }
+    @Override public Tetromino current(){ return current; }
+    @Override public Skyline skyline(){ return skyline; }
+    @Override public int getWidth()  { return width; }
+    @Override public int getHeight() { return height; }
+
+    @Override
+    public TetrominoType getNextTetrominoType() {
+        return generator != null ? generator.peekNext() : null;
+    }
+
+    @Override
+    public TetrominoType peekTetrominoType(int ahead) {
+        return generator != null ? generator.peek(ahead) : null;
+    }
+
+    /** Occupancy mask of row y (bit x set = cell filled). */
+    public long rowMask(int y) { return rows[y]; }
+
+    @Override
+    public boolean newPiece() {
+        TetrominoType t;
+        if (generator != null) t = generator.next();
+        else {
+            TetrominoType[] tt = TetrominoType.values();
+            t = tt[java.util.concurrent.ThreadLocalRandom.current().nextInt(tt.length)];
+        }
+
+        Tetromino next = new Tetromino(t, (width/2)-2, -2);
+
+        if (!canMove(next, 0, 0, next.rot)) {
+            current = null;
+            return false;
+        }
+        current = next;
+        return true;
+    }
+
+    @Override
+    public boolean canMove(Tetromino t, int dx, int dy, int newRot) {
+        PieceShape shape = t.type.pieceShape(newRot);
+        int x = t.x() + dx;
+        int y = t.y() + dy;
+
+        // Walls and floor only need the bounding box of the rotation
+        if (x + shape.minCol() < 0 || x + shape.maxCol() >= width) return false;
+        if (y + shape.maxRow() >= height) return false;
+
+        for (int r = shape.minRow(); r <= shape.maxRow(); r++) {
+            int by = y + r;
+            if (by < 0) continue;                  // spawn area above the board
+            if ((rows[by] & placeRow(shape.rowMask(r), x)) != 0) return false;
+        }
+        return true;
+    }
+
+    @Override
+    public void moveLeft(){
+        if (current!=null && canMove(current,-1,0,current.rot))
+            current.moveBy(-1,0);
+    }
+
+    @Override
+    public void moveRight(){
+        if (current!=null && canMove(current, +1,0,current.rot))
+            current.moveBy(1,0);
+    }
+
+    @Override
+    public void rotateCW(){
+        if (current==null) return;
+        int nr = (current.rot+1) & 3;
+        if (canMove(current, 0,0, nr)) current.rot = nr;
+    }
+
+    @Override
+    public boolean softDropStep(){
+        if (current==null) return false;
+        if (canMove(current,0,1,current.rot)) {
+            current.moveBy(0,1); return true;
+        }
+        return false;
+    }
+
+    @Override
+    public void hardDrop() {
+        if (current == null) return;
+        PieceShape shape = current.pieceShape();
+        if (skyline.isAbove(shape, current.x(), current.y())) {
+            current.setPos(current.x(), skyline.landingY(shape, current.x()));
+        } else {
+            while (canMove(current, 0, 1, current.rot)) current.moveBy(0,1);
+        }
+    }
+
+    /** Locks the current tetromino into both planes */
+    @Override
+    public boolean lockCurrent(){
+        if (current==null) return false;
+
+        PieceShape shape = current.pieceShape();
+        int x = current.x();
+        int colorId = current.colorId();
+        boolean overflow = false;
+
+        for (int r = shape.minRow(); r <= shape.maxRow(); r++) {
+            int by = current.y() + r;
+            if (by < 0) { overflow = true; continue; }
+            if (by >= height) continue;
+
+            long shifted = placeRow(shape.rowMask(r), x);
+            rows[by] |= shifted;
+            int[] colorRow = colors[by];
+            for (long bits = shifted; bits != 0; bits &= bits - 1) {
+                colorRow[Long.numberOfTrailingZeros(bits)] = colorId;
+            }
+        }
+        skyline.onLock(current);
+        current = null;
+
+        return !overflow;
+    }
+
+    /** Removes full lines (rows equal to the full mask) and shifts lines above down */
+    @Override
+    public int clearFullLines(){
+        int write = height - 1, cleared = 0;
+
+        for (int read = height - 1; read >= 0; read--) {
+            if (rows[read] == fullRow) {
+                cleared++;
+                continue;
+            }
+            if (write != read) {
+                rows[write] = rows[read];
+                int[] kept = colors[read];          // recycle color rows by reference
+                colors[read] = colors[write];
+                colors[write] = kept;
+            }
+            write--;
+        }
+        for (int y = write; y >= 0; y--) {
+            rows[y] = 0L;
+            java.util.Arrays.fill(colors[y], 0);
+        }
+        if (cleared > 0) skyline.onLinesCleared(colors);
+        return cleared;
+    }
+
+    /** Game Restart */
+    @Override
+    public void reset() {
+        for (int y = 0; y < height; y++) {
+            rows[y] = 0L;
+            java.util.Arrays.fill(colors[y], 0);
+        }
+        skyline.reset();
+        current = null;
+    }
+
+    /**
+     * Places a 4-bit shape row mask at board column x.
+     * Callers have already checked the rotation's bounding box against the walls,
+     * so a negative x only ever shifts out empty grid columns.
+     */
+    private static long placeRow(int mask, int x) {
+        return x >= 0 ? ((long) mask) << x : ((long) mask) >>> -x;
+    }
+}
@@ -1,5 +1,6 @@
 package tetris.model.board;
 
+import tetris.model.tetromino.PieceShape;
 import tetris.model.tetromino.Tetromino;
 
 /**
@@ -36,29 +37,23 @@ public class BoardUtils {
      * @return true if the move is valid (no collisions), false otherwise
      */
     public static boolean canMovePiece(int[][] board, Tetromino piece, int dx, int dy, int rotation) {
-        int[][] shape = piece.type.rot[rotation];
-        
-        // Check each block of the piece shape
-        for (int r = 0; r < 4; r++) {
-            for (int c = 0; c < 4; c++) {
-                if (shape[r][c] == 0) continue; // Skip empty spaces in piece
-                
-                // Calculate world coordinates for this block
-                int worldX = piece.x() + c + dx;
-                int worldY = piece.y() + r + dy;
-                
-                // Check horizontal boundaries
-                if (worldX < 0 || worldX >= board[0].length) return false;
-                
-                // Check bottom boundary
-                if (worldY >= board.length) return false;
-                
-                // Allow pieces to exist above the visible board (spawn area)
-                if (worldY < 0) continue;
-                
-                // Check collision with existing pieces
-                if (board[worldY][worldX] != 0) return false;
-            }
+        PieceShape shape = piece.type.pieceShape(rotation);
+        int baseX = piece.x() + dx;
+        int baseY = piece.y() + dy;
+
+        // Walls and floor only need the bounding box of the rotation
+        if (baseX + shape.minCol() < 0 || baseX + shape.maxCol() >= board[0].length) return false;
+        if (baseY + shape.maxRow() >= board.length) return false;
+
+        // Check each occupied block of the piece
+        for (int i = 0; i < shape.cellCount(); i++) {
+            int worldY = baseY + shape.cellRow(i);
+
+            // Allow pieces to exist above the visible board (spawn area)
+            if (worldY < 0) continue;
+
+            // Check collision with existing pieces
+            if (board[worldY][baseX + shape.cellCol(i)] != 0) return false;
         }
         return true; // No collisions detected
     }
@@ -71,21 +66,31 @@ public class BoardUtils {
      * @param piece The piece to lock into place
      */
     public static void lockPieceIntoBoard(int[][] board, Tetromino piece) {
-        int[][] shape = piece.shape();
+        lockPieceIntoBoard(board, null, piece);
+    }
+    
+    /**
+     * Locks a tetromino piece into the board and updates per-row fill counters.
+     * The counters let line detection check a row in O(1) instead of scanning it.
+     * 
+     * @param board The game board to modify
+     * @param rowFill Filled-cell count per row (updated in place), or null if not tracked
+     * @param piece The piece to lock into place
+     */
+    public static void lockPieceIntoBoard(int[][] board, int[] rowFill, Tetromino piece) {
+        PieceShape shape = piece.pieceShape();
+        int colorId = piece.colorId();
         
-        // Place each block of the piece onto the board
-        for (int r = 0; r < 4; r++) {
-            for (int c = 0; c < 4; c++) {
-                if (shape[r][c] == 0) continue; // Skip empty spaces in piece
-                
-                int boardX = piece.x() + c;
-                int boardY = piece.y() + r;
-                
-                // Only place blocks within board boundaries
-                if (boardY >= 0 && boardY < board.length && 
-                    boardX >= 0 && boardX < board[0].length) {
-                    board[boardY][boardX] = piece.colorId();
-                }
+        // Place each occupied block of the piece onto the board
+        for (int i = 0; i < shape.cellCount(); i++) {
+            int boardX = piece.x() + shape.cellCol(i);
+            int boardY = piece.y() + shape.cellRow(i);
+            
+            // Only place blocks within board boundaries
+            if (boardY >= 0 && boardY < board.length && 
+                boardX >= 0 && boardX < board[0].length) {
+                if (rowFill != null && board[boardY][boardX] == 0) rowFill[boardY]++;
+                board[boardY][boardX] = colorId;
             }
         }
     }
@@ -127,37 +132,75 @@ public class BoardUtils {
      * Implementation uses a two-pointer approach:
      * - Read pointer scans from bottom to top
      * - Write pointer tracks where to place kept lines
-     * - Full lines are automatically discarded by not copying them
+     * - Full lines are automatically discarded by not keeping them
+     * 
+     * The outer board array is used as a row-index table: kept rows are moved by
+     * swapping row references and the cleared row arrays bubble up to the top,
+     * where they are zeroed and recycled. Cost is O(height) reference swaps plus
+     * O(lines cleared x width), instead of copying every shifted row's cells.
      * 
      * @param board The game board to modify
      * @return Number of lines that were cleared
      */
     public static int clearFullLines(int[][] board) {
-        int height = board.length;
-        int width = board[0].length;
-        int write = height-1, cleared = 0;
+        return clearFullLines(board, null, 0, board.length - 1);
+    }
+    
+    /**
+     * Clears complete lines that lie within the given row range and shifts the
+     * rows above them down. Only rows touched by the last lock can become full,
+     * so callers pass the piece's row span instead of rescanning the whole board;
+     * rows below the lowest cleared row are never moved, and rows above it are
+     * moved by reference (see clearFullLines(int[][])).
+     * 
+     * @param board The game board to modify
+     * @param rowFill Filled-cell count per row (kept in sync), or null to scan the rows
+     * @param fromRow Topmost row that may have become full (inclusive)
+     * @param toRow Lowest row that may have become full (inclusive)
+     * @return Number of lines that were cleared
+     */
+    public static int clearFullLines(int[][] board, int[] rowFill, int fromRow, int toRow) {
+        int top = Math.max(0, fromRow);
+        int bottom = Math.min(board.length - 1, toRow);
         
-        for (int read = height-1; read>=0; read--){
-            boolean full = true;
-            for (int x=0;x<width;x++){ 
-                if (board[read][x]==0){ 
-                    full=false; 
-                    break; 
-                } 
-            }
-            if (!full){
-                if (write != read) System.arraycopy(board[read],0,board[write],0,width);
-                write--;
-            } else {
+        // Find the lowest full row; nothing below it has to move
+        int lowest = -1;
+        for (int y = bottom; y >= top; y--) {
+            if (isRowFull(board, rowFill, y)) { lowest = y; break; }
+        }
+        if (lowest < 0) return 0;
+        
+        int write = lowest, cleared = 0;
+        for (int read = lowest; read >= 0; read--) {
+            if (read >= top && isRowFull(board, rowFill, read)) {
                 cleared++;
+                continue;
+            }
+            if (write != read) {
+                // Swap references: the kept row moves down, the cleared array moves up
+                int[] kept = board[read];
+                board[read] = board[write];
+                board[write] = kept;
+                if (rowFill != null) rowFill[write] = rowFill[read];
             }
+            write--;
         }
-        for (int y=write; y>=0; y--){
-            for (int x=0;x<width;x++) board[y][x]=0;
+        // Rows 0..write now hold the recycled (cleared) arrays
+        for (int y = write; y >= 0; y--) {
+            java.util.Arrays.fill(board[y], 0);
+            if (rowFill != null) rowFill[y] = 0;
         }
         return cleared;
     }
     
+    private static boolean isRowFull(int[][] board, int[] rowFill, int y) {
+        if (rowFill != null) return rowFill[y] == board[y].length;
+        for (int cell : board[y]) {
+            if (cell == 0) return false;
+        }
+        return true;
+    }
+    
     /**
      * Creates a deep copy of a game board.
      * Essential for AI simulation to avoid modifying the real game state.
@@ -1,12 +1,18 @@
 package tetris.model.board;
 
 import tetris.model.tetromino.PieceGenerator;
+import tetris.model.tetromino.PieceShape;
 import tetris.model.tetromino.Tetromino;
 import tetris.model.tetromino.TetrominoType;
 
+import java.util.Arrays;
+
 public class GameBoard implements IGameBoard {
     private final int width, height;
     private final int[][] board;
+    private final Skyline skyline;   // column tops, kept in sync on lock/clear/reset
+    private final int[] rowFill;     // filled cells per row, kept in sync on lock/clear/reset
+    private int lockTop, lockBottom; // rows touched by locks since the last line clear
     private Tetromino current; // Currently falling block
     private final PieceGenerator generator;
 
@@ -15,17 +21,27 @@ public class GameBoard implements IGameBoard {
         this.height = height;
         this.generator = generator;
         this.board  = new int[height][width];
+        this.skyline = new Skyline(width, height);
+        this.rowFill = new int[height];
+        resetLockRange();
     }
 
     @Override public int[][] cells(){ return board; }
     @Override public Tetromino current(){ return current; }
+    @Override public Skyline skyline(){ return skyline; }
     @Override public int getWidth()  { return width; }
     @Override public int getHeight() { return height; }
 
+    @Override
     public TetrominoType getNextTetrominoType() {
         return generator != null ? generator.peekNext() : null;
     }
 
+    @Override
+    public TetrominoType peekTetrominoType(int ahead) {
+        return generator != null ? generator.peek(ahead) : null;
+    }
+
     @Override
     public boolean newPiece() {
         TetrominoType t;
@@ -83,7 +99,14 @@ public class GameBoard implements IGameBoard {
     public void hardDrop() {
         if (current == null) return;
         // Drop piece to bottom position - let game state handle locking
-        while (canMove(current, 0, 1, current.rot)) current.moveBy(0,1);
+        PieceShape shape = current.pieceShape();
+        if (skyline.isAbove(shape, current.x(), current.y())) {
+            // Nothing can block a straight drop: land directly on the column tops
+            current.setPos(current.x(), skyline.landingY(shape, current.x()));
+        } else {
+            // Piece is tucked under an overhang - step down row by row
+            while (canMove(current, 0, 1, current.rot)) current.moveBy(0,1);
+        }
         // Don't lock here - let the game state handle locking and line clearing consistently
     }
 
@@ -93,22 +116,14 @@ public class GameBoard implements IGameBoard {
         if (current==null) return false;
         
         // Check for overflow before locking (any part above board)
-        boolean overflow = false;
-        int[][] s = current.shape();
-        for (int r=0;r<4;r++){
-            for (int c=0;c<4;c++){
-                if (s[r][c]==0) continue;
-                int by = current.y() + r;
-                if (by < 0) { 
-                    overflow = true; 
-                    break; 
-                }
-            }
-            if (overflow) break;
-        }
+        boolean overflow = current.y() + current.pieceShape().minRow() < 0;
         
         // Use centralized locking logic
-        BoardUtils.lockPieceIntoBoard(board, current);
+        BoardUtils.lockPieceIntoBoard(board, rowFill, current);
+        skyline.onLock(current);
+        PieceShape shape = current.pieceShape();
+        lockTop = Math.min(lockTop, current.y() + shape.minRow());
+        lockBottom = Math.max(lockBottom, current.y() + shape.maxRow());
         current = null;
         
         return !overflow;
@@ -117,8 +132,34 @@ public class GameBoard implements IGameBoard {
     /** Removes full lines from the board and shifts lines above down */
     @Override
     public int clearFullLines(){
-        // Delegate to centralized utility - single source of truth for line clearing
-        return BoardUtils.clearFullLines(board);
+        // Delegate to centralized utility - single source of truth for line clearing.
+        // Only rows touched by the last lock can be full, and their fill counters answer in O(1).
+        int cleared = BoardUtils.clearFullLines(board, rowFill, lockTop, lockBottom);
+        resetLockRange();
+        if (cleared > 0) skyline.onLinesCleared(board);
+        return cleared;
+    }
+
+    /**
+     * Replaces the settled cells with a copy of the given grid and rebuilds the
+     * skyline and row fill counters from it. Every row counts as freshly locked,
+     * so a following clearFullLines also removes rows the grid already had full.
+     *
+     * @param cells Grid of the same dimensions (0 = empty; not modified)
+     */
+    public void load(int[][] cells) {
+        for (int y = 0; y < height; y++) {
+            int filled = 0;
+            for (int x = 0; x < width; x++) {
+                board[y][x] = cells[y][x];
+                if (cells[y][x] != 0) filled++;
+            }
+            rowFill[y] = filled;
+        }
+        skyline.recompute(board);
+        lockTop = 0;
+        lockBottom = height - 1;
+        current = null;
     }
 
     /** Game Restart */
@@ -127,6 +168,14 @@ public class GameBoard implements IGameBoard {
         for (int y = 0; y < height; y++) {
             for (int x = 0; x < width; x++) board[y][x] = 0;
         }
+        skyline.reset();
+        Arrays.fill(rowFill, 0);
+        resetLockRange();
         current = null;
     }
+
+    private void resetLockRange() {
+        lockTop = height;
+        lockBottom = -1;
+    }
 }
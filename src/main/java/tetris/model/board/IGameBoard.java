@@ -1,6 +1,7 @@
 package tetris.model.board;
 
 import tetris.model.tetromino.Tetromino;
+import tetris.model.tetromino.TetrominoType;
 
 /**
  * IGameBoard: abstraction for the Tetris playfield & core game logic.
@@ -24,6 +25,24 @@ public interface IGameBoard {
     /** Currently falling tetromino or null if none. */
     Tetromino current();
 
+    /**
+     * Column height map of the settled cells (read-only view).
+     * Boards that maintain one incrementally return it directly; the default
+     * builds a fresh snapshot from cells().
+     */
+    default Skyline skyline() { return Skyline.of(cells()); }
+
+    /** Type of the piece that will spawn after the current one, or null if unknown. */
+    default TetrominoType getNextTetrominoType() { return null; }
+
+    /**
+     * Type of a piece further down the preview: ahead = 0 is the next piece,
+     * 1 the one after it, and so on. Null if the board cannot see that far.
+     */
+    default TetrominoType peekTetrominoType(int ahead) {
+        return ahead == 0 ? getNextTetrominoType() : null;
+    }
+
     /** Dimensions so callers don’t depend on concrete constants. */
     int getWidth();
     int getHeight();
@@ -0,0 +1,112 @@
+package tetris.model.board;
+
+import tetris.model.tetromino.PieceShape;
+import tetris.model.tetromino.Tetromino;
+
+/**
+ * Skyline: per-column height map of the settled cells of a board.
+ *
+ * For every column it stores the row index of the highest filled cell
+ * (or the board height when the column is empty). Boards keep it up to date
+ * on lock, line clear and reset, so the landing row of a piece dropped from
+ * above the stack can be computed directly from the piece's bottom profile:
+ *
+ *   landingY = min over piece columns c of (top[x + c] - 1 - bottomRow(c))
+ *
+ * instead of stepping the piece down one row at a time (O(height x cells)).
+ *
+ * The shortcut is only exact while every column of the piece is still above
+ * the skyline; a piece tucked under an overhang must fall back to stepping
+ * (see isAbove).
+ */
+public final class Skyline {
+    private final int height;
+    private final int[] tops;
+
+    public Skyline(int width, int height) {
+        this.height = height;
+        this.tops = new int[width];
+        reset();
+    }
+
+    /** Builds a skyline from scratch for the given board. */
+    public static Skyline of(int[][] board) {
+        Skyline s = new Skyline(board[0].length, board.length);
+        s.recompute(board);
+        return s;
+    }
+
+    /** Row index of the highest filled cell in column x, or the board height if empty. */
+    public int top(int x) { return tops[x]; }
+
+    /** Column height measured from the floor (0 = empty column). */
+    public int columnHeight(int x) { return height - tops[x]; }
+
+    public int getWidth() { return tops.length; }
+    public int getHeight() { return height; }
+
+    /** Marks every column empty. */
+    public void reset() {
+        java.util.Arrays.fill(tops, height);
+    }
+
+    /** Rescans the whole board (used on construction or after external edits). */
+    public void recompute(int[][] board) {
+        for (int x = 0; x < tops.length; x++) {
+            int y = 0;
+            while (y < height && board[y][x] == 0) y++;
+            tops[x] = y;
+        }
+    }
+
+    /** Raises the affected columns after a piece was locked at its current position. */
+    public void onLock(Tetromino piece) {
+        PieceShape shape = piece.pieceShape();
+        for (int i = 0; i < shape.cellCount(); i++) {
+            int x = piece.x() + shape.cellCol(i);
+            int y = piece.y() + shape.cellRow(i);
+            if (y < 0 || y >= height || x < 0 || x >= tops.length) continue;
+            if (y < tops[x]) tops[x] = y;
+        }
+    }
+
+    /**
+     * Lowers columns after lines were cleared and the board compacted.
+     * Clearing only moves cells down, so each column's new top is found by
+     * scanning down from its old top; the work is proportional to the lines
+     * cleared rather than to the board height.
+     */
+    public void onLinesCleared(int[][] board) {
+        for (int x = 0; x < tops.length; x++) {
+            int y = tops[x];
+            while (y < height && board[y][x] == 0) y++;
+            tops[x] = y;
+        }
+    }
+
+    /**
+     * True if every block column of the shape at origin (x, y) is strictly above
+     * that column's top, i.e. a straight drop cannot be blocked by an overhang.
+     */
+    public boolean isAbove(PieceShape shape, int x, int y) {
+        for (int c = shape.minCol(); c <= shape.maxCol(); c++) {
+            int bottom = shape.bottomRow(c);
+            if (bottom >= 0 && y + bottom >= tops[x + c]) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Origin row at which the shape comes to rest when dropped straight down at
+     * column x from above the stack. The shape must fit between the walls.
+     */
+    public int landingY(PieceShape shape, int x) {
+        int landing = Integer.MAX_VALUE;
+        for (int c = shape.minCol(); c <= shape.maxCol(); c++) {
+            int bottom = shape.bottomRow(c);
+            if (bottom < 0) continue;
+            landing = Math.min(landing, tops[x + c] - 1 - bottom);
+        }
+        return landing;
+    }
+}
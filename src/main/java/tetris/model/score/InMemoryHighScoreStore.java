@@ -0,0 +1,23 @@
+package tetris.model.score;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * HighScoreStore kept in memory only.
+ * Used by headless games and tests, which must not touch the high score file.
+ */
+public class InMemoryHighScoreStore implements HighScoreStore {
+    private final List<ScoreEntry> scores = new ArrayList<>();
+
+    @Override
+    public synchronized List<ScoreEntry> load() {
+        return new ArrayList<>(scores);
+    }
+
+    @Override
+    public synchronized void save(List<ScoreEntry> scores) {
+        this.scores.clear();
+        this.scores.addAll(scores);
+    }
+}
@@ -31,4 +31,15 @@ public class PieceGenerator {
         if (bag.isEmpty()) refill();
         return bag.peekFirst();
     }
+
+    // Type of the piece 'ahead' pieces after the next one (0 = peekNext()).
+    // Bags are shuffled in order, so peeking further never changes the sequence.
+    public TetrominoType peek(int ahead) {
+        while (bag.size() <= ahead) refill();
+        int i = 0;
+        for (TetrominoType t : bag) {
+            if (i++ == ahead) return t;
+        }
+        throw new IllegalStateException("bag shorter than " + (ahead + 1));
+    }
 }
\ No newline at end of file
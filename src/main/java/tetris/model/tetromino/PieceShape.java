@@ -0,0 +1,69 @@
+package tetris.model.tetromino;
+
+/**
+ * PieceShape : Precomputed geometry of one rotation state of a TetrominoType.
+ *
+ * Built once at enum initialisation from the 4x4 rot matrix so that collision,
+ * locking, drop simulation and rendering only touch the occupied cells:
+ * - cell offsets (row, column) inside the 4x4 grid, in row-major order
+ * - one 4-bit column mask per grid row (bit c = column c)
+ * - bounding box (min/max row and column)
+ * - lowest filled row per column (bottom profile), -1 for empty columns
+ *
+ * Immutable: arrays never leave this class, accessors return single values.
+ */
+public final class PieceShape {
+    public static final int GRID = 4;
+
+    private final int[] cellRows;
+    private final int[] cellCols;
+    private final int[] rowMasks = new int[GRID];
+    private final int[] bottomRows = new int[GRID];
+    private final int minRow, maxRow, minCol, maxCol;
+
+    PieceShape(int[][] grid) {
+        int count = 0;
+        for (int[] row : grid)
+            for (int cell : row)
+                if (cell != 0) count++;
+
+        cellRows = new int[count];
+        cellCols = new int[count];
+        java.util.Arrays.fill(bottomRows, -1);
+
+        int i = 0, rMin = GRID, rMax = -1, cMin = GRID, cMax = -1;
+        for (int r = 0; r < GRID; r++) {
+            for (int c = 0; c < GRID; c++) {
+                if (grid[r][c] == 0) continue;
+                cellRows[i] = r;
+                cellCols[i] = c;
+                i++;
+                rowMasks[r] |= 1 << c;
+                bottomRows[c] = r;   // rows are scanned top-down, so the last hit is the lowest
+                rMin = Math.min(rMin, r); rMax = Math.max(rMax, r);
+                cMin = Math.min(cMin, c); cMax = Math.max(cMax, c);
+            }
+        }
+        minRow = rMin; maxRow = rMax;
+        minCol = cMin; maxCol = cMax;
+    }
+
+    /** Number of occupied cells (4 for every standard tetromino). */
+    public int cellCount()      { return cellRows.length; }
+    public int cellRow(int i)   { return cellRows[i]; }
+    public int cellCol(int i)   { return cellCols[i]; }
+
+    /** Column mask of grid row r (bit c set = cell (r, c) occupied). */
+    public int rowMask(int r)   { return rowMasks[r]; }
+
+    /** Lowest occupied grid row in column c, or -1 when the column is empty. */
+    public int bottomRow(int c) { return bottomRows[c]; }
+
+    public int minRow() { return minRow; }
+    public int maxRow() { return maxRow; }
+    public int minCol() { return minCol; }
+    public int maxCol() { return maxCol; }
+
+    public int width()  { return maxCol - minCol + 1; }
+    public int height() { return maxRow - minRow + 1; }
+}
@@ -5,25 +5,33 @@ import tetris.model.board.Position;
 /**
  * Tetromino : State falling Tetris piece currently
  * TetrominoType contains the static shape/rotation/color definitions.
+ *
+ * Position is stored as primitive x/y fields so moveBy/setPos never allocate;
+ * board drops and AI simulations call them in tight loops.
  */
 public class Tetromino {
     public TetrominoType type;  // piece type (I, O, T, S, Z, J, L)
-    public Position pos;            // position
+    private int x, y;           // position of the 4x4 grid origin
     public int rot;             // rotation state
 
     public Tetromino(TetrominoType type, int spawnX, int spawnY) {
         this.type = type;
-        this.pos  = new Position(spawnX, spawnY);
+        this.x = spawnX;
+        this.y = spawnY;
         this.rot = 0;
     }
 
     public int[][] shape(){ return type.rot[rot]; }
+    public PieceShape pieceShape(){ return type.pieceShape(rot); }
     public int colorId(){ return type.colorId; }
 
-    public int x() { return pos.x(); }
-    public int y() { return pos.y(); }
+    public int x() { return x; }
+    public int y() { return y; }
 
-    public void setPos(int x, int y) { this.pos = new Position(x, y); }
-    public void moveBy(int dx, int dy) { this.pos = new Position(pos.x() + dx, pos.y() + dy); }
+    /** Compatibility accessor: snapshot of the current position as a Position record. */
+    public Position pos() { return new Position(x, y); }
 
-}
\ No newline at end of file
+    public void setPos(int x, int y) { this.x = x; this.y = y; }
+    public void moveBy(int dx, int dy) { this.x += dx; this.y += dy; }
+
+}
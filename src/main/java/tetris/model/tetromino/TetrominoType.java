@@ -3,6 +3,7 @@ package tetris.model.tetromino;
 /**
  * TetrominoType : Defining tetris pieces
  * For each type, stores : color ID, rotation states (0°, 90°, 180°, 270°)
+ * and the precomputed PieceShape (cells, row masks, bounds) of every rotation.
  */
 public enum TetrominoType {
     I(1, new int[][]{
@@ -51,6 +52,8 @@ public enum TetrominoType {
     public final int colorId;
     // rot[rotationIndex][row-4][column-4]
     public final int[][][] rot;
+    // shapes[rotationIndex] : precomputed geometry of rot[rotationIndex]
+    private final PieceShape[] shapes;
 
     TetrominoType(int colorId, int[][] base0) {
         this.colorId = colorId;
@@ -59,6 +62,15 @@ public enum TetrominoType {
         for (int r = 1; r < 4; r++) {
             this.rot[r] = rotateCW(this.rot[r-1]);
         }
+        this.shapes = new PieceShape[4];
+        for (int r = 0; r < 4; r++) {
+            this.shapes[r] = new PieceShape(this.rot[r]);
+        }
+    }
+
+    /** Precomputed geometry of the given rotation state (0-3). */
+    public PieceShape pieceShape(int rotation) {
+        return shapes[rotation];
     }
 
     // rotate block clockwise
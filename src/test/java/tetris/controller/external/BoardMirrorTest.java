@@ -0,0 +1,69 @@
+package tetris.controller.external;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import tetris.model.external.PureGame;
+import tetris.model.tetromino.TetrominoType;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Placement, line clearing and checksums of the delta-session board replica.
+ */
+class BoardMirrorTest {
+
+    @Test
+    @DisplayName("Dropping, locking and clearing match the game rules")
+    void lockAndClear() {
+        int[][] cells = new int[4][4];
+        cells[3] = new int[]{0, 2, 3, 4};
+        cells[2] = new int[]{0, 0, 5, 0};
+        BoardMirror mirror = BoardMirror.of(new PureGame(4, 4, cells, null, null));
+
+        // Vertical I (rotation 1 occupies grid column 2) into the left column
+        int y = mirror.dropRow(TetrominoType.I, 1, -2);
+        assertEquals(0, y);
+        assertArrayEquals(new int[]{3}, mirror.lock(TetrominoType.I, 1, -2, y));
+        assertTrue(mirror.clearRows(new int[]{3}));
+
+        int[][] expected = {
+                {0, 0, 0, 0},
+                {1, 0, 0, 0},
+                {1, 0, 0, 0},
+                {1, 0, 1, 0}};
+        assertTrue(mirror.matches(4, 4, expected));
+        assertArrayEquals(expected, mirror.toCells());
+    }
+
+    @Test
+    @DisplayName("Clearing rejects rows that are not full or a missing full row")
+    void clearRowsValidates() {
+        int[][] cells = new int[3][3];
+        cells[2] = new int[]{1, 1, 1};
+        BoardMirror mirror = BoardMirror.of(new PureGame(3, 3, cells, null, null));
+        long before = mirror.checksum();
+
+        assertFalse(mirror.clearRows(new int[0]));
+        assertFalse(mirror.clearRows(new int[]{1}));
+        assertEquals(before, mirror.checksum());
+        assertNull(mirror.lock(TetrominoType.O, 0, -1, 1));   // overlaps the full row
+    }
+
+    @Test
+    @DisplayName("Checksums differ for boards differing in one cell")
+    void checksumSeesOneCell() {
+        int[][] cells = new int[20][10];
+        BoardMirror empty = BoardMirror.of(new PureGame(10, 20, cells, null, null));
+        cells[7][3] = 1;
+        BoardMirror one = BoardMirror.of(new PureGame(10, 20, cells, null, null));
+
+        assertNotEquals(empty.checksum(), one.checksum());
+        assertEquals(one.checksum(), one.copy().checksum());
+    }
+
+    @Test
+    @DisplayName("Boards wider than 64 columns are not mirrored")
+    void tooWide() {
+        assertNull(BoardMirror.of(new PureGame(65, 2, new int[2][65], null, null)));
+    }
+}
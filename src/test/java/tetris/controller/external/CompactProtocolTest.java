@@ -0,0 +1,139 @@
+package tetris.controller.external;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import tetris.model.external.OpMove;
+import tetris.model.external.PureGame;
+import tetris.model.tetromino.TetrominoType;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Round trips of the binary frames and the line helpers they share a stream with.
+ */
+class CompactProtocolTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @Test
+    @DisplayName("Game frames keep occupancy, dimensions and piece rotations")
+    void gameRoundTrip() throws IOException {
+        int[][] cells = new int[20][10];
+        cells[19] = new int[]{1, 2, 3, 4, 5, 6, 7, 0, 1, 2};
+        cells[18][9] = 7;
+        PureGame game = new PureGame(10, 20, cells, TetrominoType.T.rot[3], TetrominoType.I.rot[0]);
+
+        byte[] frame = CompactProtocol.encodeGame(game);
+        assertNotNull(frame);
+        assertEquals(4 + 1 + 4 + 4 + 20 * 2, frame.length);
+        assertTrue(frame.length * 8 < mapper.writeValueAsBytes(game).length);
+
+        PureGame decoded = CompactProtocol.decodeGame(read(frame), mapper);
+        assertEquals(10, decoded.getWidth());
+        assertEquals(20, decoded.getHeight());
+        assertArrayEquals(new int[]{1, 1, 1, 1, 1, 1, 1, 0, 1, 1}, decoded.getCells()[19]);
+        assertEquals(1, decoded.getCells()[18][9]);
+        assertEquals(0, Arrays.stream(decoded.getCells()).limit(18).flatMapToInt(Arrays::stream).sum());
+        assertArrayEquals(TetrominoType.T.rot[3], decoded.getCurrentShape());
+        assertArrayEquals(TetrominoType.I.rot[0], decoded.getNextShape());
+    }
+
+    @Test
+    @DisplayName("States the binary frame cannot carry travel as JSON frames")
+    void unknownShapeFallsBackToJson() throws IOException {
+        int[][] oddShape = {{1, 1, 1}};
+        PureGame game = new PureGame(4, 2, new int[2][4], oddShape, null);
+        assertNull(CompactProtocol.encodeGame(game));
+
+        byte[] frame = CompactProtocol.jsonFrame(mapper.writeValueAsBytes(game));
+        PureGame decoded = CompactProtocol.decodeGame(read(frame), mapper);
+        assertArrayEquals(oddShape, decoded.getCurrentShape());
+        assertNull(decoded.getNextShape());
+    }
+
+    @Test
+    @DisplayName("Move frames round trip, negative positions included")
+    void moveRoundTrip() throws IOException {
+        assertEquals(new OpMove(-1, 3), CompactProtocol.decodeMove(read(CompactProtocol.encodeMove(new OpMove(-1, 3)))));
+        assertEquals(new OpMove(37, 0), CompactProtocol.decodeMove(read(CompactProtocol.encodeMove(new OpMove(37, 0)))));
+    }
+
+    @Test
+    @DisplayName("Tagged frames carry their correlation id and inner frame")
+    void taggedRoundTrip() throws IOException {
+        byte[] payload = read(CompactProtocol.tag(123456, CompactProtocol.encodeMove(new OpMove(4, 2))));
+        assertEquals(CompactProtocol.TAGGED, payload[0]);
+        assertEquals(123456, CompactProtocol.tagOf(payload));
+        assertEquals(new OpMove(4, 2), CompactProtocol.decodeMove(CompactProtocol.untag(payload)));
+        assertThrows(IOException.class, () -> CompactProtocol.tagOf(read(CompactProtocol.encodeMove(new OpMove(0, 0)))));
+    }
+
+    @Test
+    @DisplayName("Batch frames keep every entry's id and payload, in order")
+    void batchRoundTrip() throws IOException {
+        PureGame game = new PureGame(10, 20, new int[20][10], TetrominoType.S.rot[1], null);
+        byte[] batch = CompactProtocol.encodeBatch(new int[]{7, -3},
+                new byte[][]{CompactProtocol.encodeGame(game), CompactProtocol.encodeMove(new OpMove(5, 1))});
+
+        byte[] payload = read(batch);
+        CompactProtocol.Entry[] entries = CompactProtocol.decodeBatch(payload);
+        assertEquals(2, entries.length);
+        assertEquals(7, entries[0].id());
+        assertArrayEquals(TetrominoType.S.rot[1], CompactProtocol.decodeGame(entries[0].payload(), new ObjectMapper()).getCurrentShape());
+        assertEquals(-3, entries[1].id());
+        assertEquals(new OpMove(5, 1), CompactProtocol.decodeMove(entries[1].payload()));
+
+        assertThrows(IOException.class, () -> CompactProtocol.decodeBatch(Arrays.copyOf(payload, payload.length - 1)));
+    }
+
+    @Test
+    @DisplayName("Delta frames round trip with cleared rows and checksum")
+    void deltaRoundTrip() throws IOException {
+        CompactProtocol.Delta delta = new CompactProtocol.Delta(TetrominoType.L, 2, -1, 17, new int[]{18, 19},
+                TetrominoType.S.rot[1], null, true, 0x1234_5678_9abc_def0L);
+        byte[] frame = CompactProtocol.encodeDelta(delta);
+        assertEquals(4 + 8 + 4 + 4 + 1 + 8, frame.length);
+
+        CompactProtocol.Delta decoded = CompactProtocol.decodeDelta(read(frame));
+        assertEquals(TetrominoType.L, decoded.placed());
+        assertEquals(2, decoded.rotation());
+        assertEquals(-1, decoded.x());
+        assertEquals(17, decoded.y());
+        assertArrayEquals(new int[]{18, 19}, decoded.clearedRows());
+        assertArrayEquals(TetrominoType.S.rot[1], decoded.currentShape());
+        assertNull(decoded.nextShape());
+        assertTrue(decoded.hasChecksum());
+        assertEquals(0x1234_5678_9abc_def0L, decoded.checksum());
+    }
+
+    @Test
+    @DisplayName("A frame can follow a line on the same stream")
+    void lineThenFrame() throws IOException {
+        byte[] line = (CompactProtocol.HELLO + "\n").getBytes();
+        byte[] frame = CompactProtocol.encodeMove(new OpMove(4, 1));
+        byte[] stream = Arrays.copyOf(line, line.length + frame.length);
+        System.arraycopy(frame, 0, stream, line.length, frame.length);
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(stream));
+        assertEquals(CompactProtocol.HELLO, CompactProtocol.readLine(in));
+        assertEquals(new OpMove(4, 1), CompactProtocol.decodeMove(CompactProtocol.readFrame(in)));
+        assertNull(CompactProtocol.readFrame(in));
+    }
+
+    @Test
+    @DisplayName("Oversized frame lengths are rejected")
+    void rejectsBadLength() {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(new byte[]{0x7f, 0, 0, 0, 'M'}));
+        assertThrows(IOException.class, () -> CompactProtocol.readFrame(in));
+    }
+
+    private static byte[] read(byte[] frame) throws IOException {
+        return CompactProtocol.readFrame(new DataInputStream(new ByteArrayInputStream(frame)));
+    }
+}
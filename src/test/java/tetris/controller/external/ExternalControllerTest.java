@@ -0,0 +1,229 @@
+package tetris.controller.external;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import tetris.controller.game.GameController;
+import tetris.controller.score.ScoreController;
+import tetris.controller.state.DefaultPlayStateFactory;
+import tetris.model.board.GameBoard;
+import tetris.model.external.OpMove;
+import tetris.model.external.PureGame;
+import tetris.model.score.HighScoreService;
+import tetris.model.score.InMemoryHighScoreStore;
+import tetris.model.setting.GameSetting;
+import tetris.model.setting.PlayerType;
+import tetris.model.tetromino.PieceGenerator;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * External planning must never block the game thread and must ignore replies
+ * that arrive after their piece was placed.
+ */
+class ExternalControllerTest {
+
+    /** Client whose replies are released by the test, one per permit. */
+    private static class GatedClient extends TetrisServerClient {
+        final Semaphore replies = new Semaphore(0);
+        final AtomicInteger requests = new AtomicInteger();
+
+        @Override
+        public OpMove getOptimalMove(PureGame gameState) {
+            int n = requests.incrementAndGet();
+            try {
+                if (!replies.tryAcquire(5, TimeUnit.SECONDS)) return null;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+            return new OpMove(n, 0);
+        }
+
+        @Override
+        public boolean isServerAvailable() {
+            return true;
+        }
+    }
+
+    private ExecutorService executor;
+    private GameController game;
+    private ScoreController scores;
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newSingleThreadExecutor();
+        scores = new ScoreController(new HighScoreService(new InMemoryHighScoreStore()));
+        GameBoard board = new GameBoard(10, 20, new PieceGenerator(1L));
+        game = new GameController(board, new GameSetting(), PlayerType.HUMAN, new DefaultPlayStateFactory(), scores);
+        assertTrue(board.newPiece());
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+        scores.shutdown();
+    }
+
+    @Test
+    @DisplayName("Planning returns immediately and picks up the reply on a later tick")
+    void planningDoesNotBlock() throws Exception {
+        GatedClient client = new GatedClient();
+        ExternalController controller = new ExternalController(client, executor);
+
+        long start = System.nanoTime();
+        controller.planNextMove(game);
+        controller.planNextMove(game);
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(1), "planNextMove blocked");
+        assertNull(controller.getPlannedMove());
+
+        client.replies.release();
+        awaitReply(controller);
+        assertEquals(1, client.requests.get());
+        controller.planNextMove(game);
+
+        assertEquals(new OpMove(1, 0), controller.getPlannedMove());
+    }
+
+    @Test
+    @DisplayName("Replies for an already placed piece are discarded")
+    void staleRepliesAreDiscarded() throws Exception {
+        GatedClient client = new GatedClient();
+        ExternalController controller = new ExternalController(client, executor);
+
+        controller.planNextMove(game);
+        controller.onPiecePlaced();          // the piece locked before the server answered
+        client.replies.release(2);
+        awaitReply(controller);
+
+        controller.planNextMove(game);       // discards reply 1, requests again
+        assertNull(controller.getPlannedMove());
+        awaitReply(controller);
+        assertEquals(2, client.requests.get());
+        controller.planNextMove(game);
+
+        assertEquals(new OpMove(2, 0), controller.getPlannedMove());
+    }
+
+    @Test
+    @DisplayName("Prefetched moves are used when the next piece spawns on the predicted board")
+    void prefetchHits() throws Exception {
+        RecordingClient client = new RecordingClient();
+        ExternalController controller = new ExternalController(client, executor);
+
+        for (int piece = 0; piece < 4; piece++) {
+            plan(controller);
+            assertNotNull(controller.getPlannedMove(), "piece " + piece);
+            awaitIdle();
+            play(controller);
+        }
+        plan(controller);
+
+        assertEquals(4, controller.getPrefetchHits());
+        assertEquals(0, controller.getPrefetchMisses());
+        // One real request for the first piece, every later one was speculative
+        PureGame lastSpeculative = client.games.get(4);
+        assertArrayEquals(game.board().cells(), lastSpeculative.getCells());
+        assertArrayEquals(game.board().current().shape(), lastSpeculative.getCurrentShape());
+    }
+
+    @Test
+    @DisplayName("A prefetch for a board that turned out differently is dropped")
+    void prefetchMiss() throws Exception {
+        RecordingClient client = new RecordingClient();
+        ExternalController controller = new ExternalController(client, executor);
+
+        plan(controller);
+        awaitIdle();
+        int before = client.requests.get();
+        game.board().cells()[19][0] = 1;   // garbage the prediction could not know about
+        play(controller);
+        plan(controller);
+
+        assertEquals(0, controller.getPrefetchHits());
+        assertEquals(1, controller.getPrefetchMisses());
+        assertTrue(client.requests.get() > before);
+        assertNotNull(controller.getPlannedMove());
+    }
+
+    @Test
+    @DisplayName("Prediction matches locking the piece on the real board")
+    void predictionMatchesRealPlacement() {
+        GameBoard board = (GameBoard) game.board();
+        OpMove move = new OpMove(0, 1);
+        int[][] predicted = ExternalController.predictPlacement(board.cells(), board.current(), move);
+
+        while (board.current().rot != 1) board.rotateCW();
+        while (board.current().x() > 0) board.moveLeft();
+        board.hardDrop();
+        assertTrue(board.lockCurrent());
+        board.clearFullLines();
+
+        assertArrayEquals(board.cells(), predicted);
+    }
+
+    /** Client answering every request at once with a straight drop, recording what it was sent. */
+    private static class RecordingClient extends TetrisServerClient {
+        final java.util.List<PureGame> games = new java.util.concurrent.CopyOnWriteArrayList<>();
+        final AtomicInteger requests = new AtomicInteger();
+
+        @Override
+        public OpMove getOptimalMove(PureGame gameState) {
+            requests.incrementAndGet();
+            games.add(gameState);
+            return new OpMove(3, 0);
+        }
+
+        @Override
+        public boolean isServerAvailable() {
+            return true;
+        }
+    }
+
+    // Plans until a move is available (bounded)
+    private void plan(ExternalController controller) throws InterruptedException {
+        controller.planNextMove(game);
+        for (int i = 0; i < 500 && controller.getPlannedMove() == null; i++) {
+            Thread.sleep(5);
+            controller.planNextMove(game);
+        }
+    }
+
+    // Executes the planned move like ExternalPlayingState, up to the next spawn
+    private void play(ExternalController controller) {
+        GameBoard board = (GameBoard) game.board();
+        for (int step = 0; step < 20; step++) {
+            tetris.common.Action action = controller.getNextAction(game);
+            assertNotNull(action);
+            switch (action) {
+                case ROTATE_CW -> board.rotateCW();
+                case MOVE_LEFT -> board.moveLeft();
+                case MOVE_RIGHT -> board.moveRight();
+                case HARD_DROP -> {
+                    board.hardDrop();
+                    assertTrue(board.lockCurrent());
+                    controller.onPiecePlaced();
+                    board.clearFullLines();
+                    assertTrue(board.newPiece());
+                    return;
+                }
+                default -> fail("unexpected " + action);
+            }
+        }
+        fail("move never dropped");
+    }
+
+    // Waits until the executor has finished every submitted request (the prefetch included)
+    private void awaitIdle() throws Exception {
+        executor.submit(() -> { }).get(5, TimeUnit.SECONDS);
+    }
+
+    private static void awaitReply(ExternalController controller) throws InterruptedException {
+        for (int i = 0; i < 500 && controller.isRequestPending(); i++) Thread.sleep(10);
+        assertFalse(controller.isRequestPending(), "server reply never arrived");
+    }
+}
@@ -0,0 +1,153 @@
+package tetris.controller.external;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import tetris.model.board.BoardUtils;
+import tetris.model.external.OpMove;
+import tetris.model.external.PureGame;
+import tetris.model.tetromino.PieceGenerator;
+import tetris.model.tetromino.Tetromino;
+import tetris.model.tetromino.TetrominoType;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The embeddable server against the real client: every protocol, many
+ * concurrent connections, latency and failure injection.
+ */
+class LocalTetrisServerTest {
+
+    private LocalTetrisServer server;
+
+    @AfterEach
+    void stopServer() {
+        if (server != null) server.close();
+    }
+
+    @Test
+    @DisplayName("TetrisAI moves over JSON keep a game going")
+    void playsWithTetrisAI() throws IOException {
+        server = new LocalTetrisServer(0).start();
+        try (TetrisServerClient client = new TetrisServerClient("localhost", server.getPort(),
+                TetrisServerClient.Mode.PERSISTENT, TetrisServerClient.Protocol.JSON)) {
+            play(client, 30);
+            assertFalse(client.isBinaryConnection());
+        }
+        assertEquals(30, server.getRequests());
+        assertEquals(1, server.getTotalConnections());
+    }
+
+    @Test
+    @DisplayName("Delta sessions are served from the connection's replica")
+    void servesDeltas() throws IOException {
+        server = new LocalTetrisServer(0).start();
+        try (TetrisServerClient client = new TetrisServerClient("localhost", server.getPort(),
+                TetrisServerClient.Mode.PERSISTENT, TetrisServerClient.Protocol.DELTA)) {
+            play(client, 30);
+            assertEquals(TetrisServerClient.Protocol.DELTA, client.getProtocol());
+            assertEquals(29, client.getDeltasSent());
+            assertEquals(0, client.getResyncs());
+        }
+    }
+
+    @Test
+    @DisplayName("One selector thread serves hundreds of concurrent clients")
+    void manyClients() throws Exception {
+        int clients = 200;
+        int requestsEach = 5;
+        server = new LocalTetrisServer(0, game -> new OpMove(4, 1),
+                LocalTetrisServer.Options.DEFAULT.withLatency(5, 20)).start();
+        ExecutorService players = Executors.newFixedThreadPool(clients);
+        try {
+            List<Future<Integer>> answered = new ArrayList<>();
+            for (int i = 0; i < clients; i++) {
+                TetrisServerClient.Protocol protocol = TetrisServerClient.Protocol.values()[i % 3];
+                answered.add(players.submit(() -> {
+                    int ok = 0;
+                    try (TetrisServerClient client = new TetrisServerClient("localhost", server.getPort(),
+                            TetrisServerClient.Mode.PERSISTENT, protocol)) {
+                        for (int r = 0; r < requestsEach; r++) {
+                            if (new OpMove(4, 1).equals(client.getOptimalMove(game()))) ok++;
+                        }
+                    }
+                    return ok;
+                }));
+            }
+            int total = 0;
+            for (Future<Integer> f : answered) total += f.get(60, TimeUnit.SECONDS);
+            assertEquals(clients * requestsEach, total);
+        } finally {
+            players.shutdownNow();
+        }
+        assertEquals(clients, server.getTotalConnections());
+        long serverThreads = Thread.getAllStackTraces().keySet().stream()
+                .filter(t -> t.getName().startsWith("tetris-server-")).count();
+        assertTrue(serverThreads <= Runtime.getRuntime().availableProcessors() + 2, "threads: " + serverThreads);
+    }
+
+    @Test
+    @DisplayName("Artificial latency delays every reply")
+    void addsLatency() throws IOException {
+        server = new LocalTetrisServer(0, game -> new OpMove(0, 0),
+                LocalTetrisServer.Options.DEFAULT.withLatency(150, 150)).start();
+        try (TetrisServerClient client = new TetrisServerClient("localhost", server.getPort())) {
+            long start = System.nanoTime();
+            assertNotNull(client.getOptimalMove(game()));
+            assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(150));
+        }
+    }
+
+    @Test
+    @DisplayName("Injected failures surface as failed requests")
+    void injectsFailures() throws IOException {
+        for (LocalTetrisServer.Failure failure : List.of(LocalTetrisServer.Failure.CLOSE, LocalTetrisServer.Failure.BAD_REPLY)) {
+            server = new LocalTetrisServer(0, game -> new OpMove(0, 0),
+                    LocalTetrisServer.Options.DEFAULT.withFailures(1.0, failure)).start();
+            try (TetrisServerClient client = new TetrisServerClient("localhost", server.getPort())) {
+                assertNull(client.getOptimalMove(game()), failure.name());
+                assertFalse(client.isServerAvailable());
+            }
+            assertTrue(server.getInjectedFailures() >= 1, failure.name());
+            server.close();
+        }
+    }
+
+    @Test
+    @DisplayName("A failing strategy still gets the client an answer")
+    void strategyFailure() throws IOException {
+        server = new LocalTetrisServer(0, game -> {
+            throw new IllegalStateException("boom");
+        }, LocalTetrisServer.Options.DEFAULT).start();
+        try (TetrisServerClient client = new TetrisServerClient("localhost", server.getPort())) {
+            assertEquals(new OpMove(0, 0), client.getOptimalMove(game()));
+        }
+    }
+
+    // Plays a seeded game with the server's moves, failing if one does not fit
+    private static void play(TetrisServerClient client, int pieces) {
+        PieceGenerator generator = new PieceGenerator(3L);
+        int[][] cells = new int[20][10];
+        for (int i = 0; i < pieces; i++) {
+            Tetromino current = new Tetromino(generator.next(), 3, 0);
+            PureGame game = new PureGame(10, 20, BoardUtils.copyBoard(cells), current.shape(),
+                    generator.peekNext().rot[0]);
+            OpMove move = client.getOptimalMove(game);
+            assertNotNull(move, "piece " + i);
+            cells = ExternalController.predictPlacement(cells, current, move);
+            assertNotNull(cells, "piece " + i + " does not fit");
+        }
+    }
+
+    private static PureGame game() {
+        return new PureGame(10, 20, new int[20][10], TetrominoType.T.rot[0], TetrominoType.I.rot[0]);
+    }
+}
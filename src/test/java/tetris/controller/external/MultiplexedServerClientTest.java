@@ -0,0 +1,357 @@
+package tetris.controller.external;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import tetris.common.UiGameState;
+import tetris.controller.ai.AIController;
+import tetris.controller.game.GameController;
+import tetris.controller.score.ScoreController;
+import tetris.controller.state.DefaultPlayStateFactory;
+import tetris.model.board.GameBoard;
+import tetris.model.external.OpMove;
+import tetris.model.external.PureGame;
+import tetris.model.score.HighScoreService;
+import tetris.model.score.InMemoryHighScoreStore;
+import tetris.model.setting.GameSetting;
+import tetris.model.setting.PlayerType;
+import tetris.model.tetromino.PieceGenerator;
+import tetris.model.tetromino.Tetromino;
+import tetris.model.tetromino.TetrominoType;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * One shared runtime carrying the requests of many games over a few
+ * connections: correlation, backpressure, deadlines and fallback.
+ */
+class MultiplexedServerClientTest {
+
+    private LocalTetrisServer server;
+    private MultiplexedServerClient client;
+
+    @AfterEach
+    void tearDown() {
+        if (client != null) client.close();
+        if (server != null) server.close();
+    }
+
+    @Test
+    @DisplayName("Hundreds of concurrent requests share a small connection pool")
+    void multiplexesOverPool() throws Exception {
+        server = new LocalTetrisServer(0, MultiplexedServerClientTest::echoFilled,
+                LocalTetrisServer.Options.DEFAULT.withLatency(0, 30)).start();
+        client = new MultiplexedServerClient("localhost", server.getPort(),
+                MultiplexedServerClient.Options.DEFAULT.withConnections(3));
+
+        List<CompletableFuture<OpMove>> moves = new ArrayList<>();
+        for (int i = 0; i < 300; i++) moves.add(client.requestMove(game(i % 10 + 1, i / 10)));
+        for (int i = 0; i < moves.size(); i++) {
+            // Latency varies per request, so replies come back out of order: each must find its game
+            assertEquals(new OpMove(i % 10 + 1, i / 10 % 4), moves.get(i).get(10, TimeUnit.SECONDS), "request " + i);
+        }
+        assertTrue(client.isMultiplexed());
+        assertTrue(client.isServerAvailable());
+        assertEquals(3, server.getTotalConnections());
+        assertEquals(300, server.getRequests());
+        assertEquals(0, client.getInFlight());
+    }
+
+    @Test
+    @DisplayName("Requests queued within the window travel as batches and are demultiplexed")
+    void batchesRequests() throws Exception {
+        server = new LocalTetrisServer(0, MultiplexedServerClientTest::echoFilled,
+                LocalTetrisServer.Options.DEFAULT.withLatency(0, 10)).start();
+        client = new MultiplexedServerClient("localhost", server.getPort(),
+                MultiplexedServerClient.Options.DEFAULT.withConnections(1).withBatching(50, 20));
+
+        List<CompletableFuture<OpMove>> moves = new ArrayList<>();
+        for (int i = 0; i < 200; i++) moves.add(client.requestMove(game(i % 10 + 1, i / 10)));
+        for (int i = 0; i < moves.size(); i++) {
+            assertEquals(new OpMove(i % 10 + 1, i / 10 % 4), moves.get(i).get(10, TimeUnit.SECONDS), "request " + i);
+        }
+        assertEquals(200, server.getRequests());
+        assertTrue(client.getBatchesSent() >= 4, "batches: " + client.getBatchesSent());
+        assertTrue(client.getBatchesSent() < 100, "batches: " + client.getBatchesSent());
+        assertEquals(client.getBatchesSent(), server.getBatches());
+    }
+
+    @Test
+    @DisplayName("A full batch goes out at once; a lone request waits out the window")
+    void batchLimits() throws Exception {
+        server = new LocalTetrisServer(0, MultiplexedServerClientTest::echoFilled, LocalTetrisServer.Options.DEFAULT).start();
+        client = new MultiplexedServerClient("localhost", server.getPort(),
+                MultiplexedServerClient.Options.DEFAULT.withConnections(1).withBatching(8, 200));
+        // Connect first: a request shorter than the window only opens the connection
+        assertThrows(ExecutionException.class, () -> client.requestMove(game(1, 0), 50).get(5, TimeUnit.SECONDS));
+        for (int i = 0; i < 200 && !client.isServerAvailable(); i++) sleep(10);
+
+        long sent = client.getBatchesSent(), received = server.getBatches();
+        List<CompletableFuture<OpMove>> full = new ArrayList<>();
+        for (int i = 0; i < 8; i++) full.add(client.requestMove(game(i + 1, 0)));
+        for (int i = 0; i < 8; i++) assertEquals(new OpMove(i + 1, 0), full.get(i).get(5, TimeUnit.SECONDS));
+        assertEquals(sent + 1, client.getBatchesSent());
+        assertEquals(received + 1, server.getBatches());
+
+        long start = System.nanoTime();
+        assertEquals(new OpMove(3, 0), client.requestMove(game(3, 0)).get(5, TimeUnit.SECONDS));
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(190), "lone request skipped the window");
+    }
+
+    @Test
+    @DisplayName("A server without batch support gets tagged requests")
+    void noBatchSupport() throws Exception {
+        server = new LocalTetrisServer(0, MultiplexedServerClientTest::echoFilled,
+                LocalTetrisServer.Options.DEFAULT.withMultiplexing(true, false)).start();
+        client = new MultiplexedServerClient("localhost", server.getPort(),
+                MultiplexedServerClient.Options.DEFAULT.withConnections(1).withBatching(16, 5));
+
+        List<CompletableFuture<OpMove>> moves = new ArrayList<>();
+        for (int i = 0; i < 40; i++) moves.add(client.requestMove(game(i % 10 + 1, 0)));
+        for (int i = 0; i < moves.size(); i++) assertEquals(new OpMove(i % 10 + 1, 0), moves.get(i).get(5, TimeUnit.SECONDS));
+        assertTrue(client.isMultiplexed());
+        assertEquals(0, client.getBatchesSent());
+        assertEquals(0, server.getBatches());
+    }
+
+    @Test
+    @DisplayName("Concurrent submitters always wake a selector parked for its sweep interval")
+    void concurrentSubmittersWakeSelector() throws Exception {
+        server = new LocalTetrisServer(0, MultiplexedServerClientTest::echoFilled, LocalTetrisServer.Options.DEFAULT).start();
+        // With a one-minute sweep, a missed wakeup leaves its requests queued for a minute
+        client = new MultiplexedServerClient("localhost", server.getPort(),
+                MultiplexedServerClient.Options.DEFAULT.withConnections(1), 60_000);
+        assertNotNull(client.requestMove(game(1, 0)).get(5, TimeUnit.SECONDS));
+
+        int submitters = 8;
+        ExecutorService games = Executors.newFixedThreadPool(submitters);
+        try {
+            for (int round = 0; round < 40; round++) {
+                // Idle first, so the selector parks in its sweep select
+                sleep(15);
+                CyclicBarrier together = new CyclicBarrier(submitters);
+                List<Future<CompletableFuture<OpMove>>> sent = new ArrayList<>();
+                for (int i = 0; i < submitters; i++) {
+                    int bottom = i + 1;
+                    sent.add(games.submit(() -> {
+                        together.await();
+                        return client.requestMove(game(bottom, 0), 120_000);
+                    }));
+                }
+                for (int i = 0; i < submitters; i++) {
+                    assertEquals(new OpMove(i + 1, 0), sent.get(i).get(5, TimeUnit.SECONDS).get(5, TimeUnit.SECONDS),
+                            "round " + round + " request " + i);
+                }
+            }
+        } finally {
+            games.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Requests beyond maxInFlight are refused, not queued")
+    void appliesBackpressure() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        server = new LocalTetrisServer(0, game -> {
+            await(release);
+            return new OpMove(1, 0);
+        }, LocalTetrisServer.Options.DEFAULT).start();
+        client = new MultiplexedServerClient("localhost", server.getPort(),
+                MultiplexedServerClient.Options.DEFAULT.withConnections(1).withMaxInFlight(2));
+
+        CompletableFuture<OpMove> first = client.requestMove(game(1, 0));
+        CompletableFuture<OpMove> second = client.requestMove(game(2, 0));
+        CompletableFuture<OpMove> third = client.requestMove(game(3, 0));
+        ExecutionException refused = assertThrows(ExecutionException.class, () -> third.get(1, TimeUnit.SECONDS));
+        assertInstanceOf(RejectedExecutionException.class, refused.getCause());
+        assertEquals(1, client.getRejected());
+        assertEquals(2, client.getInFlight());
+
+        release.countDown();
+        assertNotNull(first.get(5, TimeUnit.SECONDS));
+        assertNotNull(second.get(5, TimeUnit.SECONDS));
+        assertNotNull(client.requestMove(game(4, 0)).get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    @DisplayName("A request past its deadline fails; its late reply is dropped")
+    void enforcesDeadlines() throws Exception {
+        server = new LocalTetrisServer(0, game -> {
+            if (filled(game) == 1) sleep(400);
+            return new OpMove(filled(game), 0);
+        }, LocalTetrisServer.Options.DEFAULT).start();
+        client = new MultiplexedServerClient("localhost", server.getPort(),
+                MultiplexedServerClient.Options.DEFAULT.withConnections(1));
+
+        CompletableFuture<OpMove> slow = client.requestMove(game(1, 0), 100);
+        ExecutionException late = assertThrows(ExecutionException.class, () -> slow.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(TimeoutException.class, late.getCause());
+        assertEquals(1, client.getTimedOut());
+
+        // The connection stays usable, and the slow reply does not answer a later request
+        Thread.sleep(400);
+        assertEquals(new OpMove(2, 0), client.requestMove(game(2, 0)).get(5, TimeUnit.SECONDS));
+        assertEquals(1, server.getTotalConnections());
+    }
+
+    @Test
+    @DisplayName("A server that does not multiplex is served over blocking connections")
+    void fallsBackWithoutMultiplexing() throws Exception {
+        for (LocalTetrisServer.Options options : List.of(
+                LocalTetrisServer.Options.DEFAULT.withMultiplexing(false, false),
+                LocalTetrisServer.Options.DEFAULT.withProtocols(false, false))) {
+            server = new LocalTetrisServer(0, MultiplexedServerClientTest::echoFilled, options).start();
+            client = new MultiplexedServerClient("localhost", server.getPort(),
+                    MultiplexedServerClient.Options.DEFAULT.withConnections(2));
+
+            List<CompletableFuture<OpMove>> moves = new ArrayList<>();
+            for (int i = 0; i < 20; i++) moves.add(client.requestMove(game(i % 10 + 1, 0)));
+            for (int i = 0; i < moves.size(); i++) {
+                assertEquals(new OpMove(i % 10 + 1, 0), moves.get(i).get(10, TimeUnit.SECONDS), options + " request " + i);
+            }
+            assertFalse(client.isMultiplexed());
+            client.close();
+            server.close();
+        }
+    }
+
+    @Test
+    @DisplayName("Requests fail fast while the server is down")
+    void serverDown() throws Exception {
+        int port;
+        try (ServerSocket free = new ServerSocket(0)) {
+            port = free.getLocalPort();
+        }
+        client = new MultiplexedServerClient("localhost", port, MultiplexedServerClient.Options.DEFAULT);
+
+        ExecutionException down = assertThrows(ExecutionException.class,
+                () -> client.requestMove(game(1, 0)).get(5, TimeUnit.SECONDS));
+        assertInstanceOf(IOException.class, down.getCause());
+        assertFalse(client.isServerAvailable());
+        assertTrue(client.requestMove(game(1, 0)).isCompletedExceptionally());
+    }
+
+    @Test
+    @DisplayName("A failed I/O thread fails its requests and the next request starts a new one")
+    void recoversFromIoFailure() throws Exception {
+        server = new LocalTetrisServer(0, MultiplexedServerClientTest::echoFilled,
+                LocalTetrisServer.Options.DEFAULT.withLatency(300, 300)).start();
+        client = new MultiplexedServerClient("localhost", server.getPort(),
+                MultiplexedServerClient.Options.DEFAULT.withConnections(1));
+        assertEquals(new OpMove(1, 0), client.requestMove(game(1, 0)).get(5, TimeUnit.SECONDS));
+
+        CompletableFuture<OpMove> pending = client.requestMove(game(2, 0), 10_000);
+        sleep(50);
+        client.breakSelector();
+        ExecutionException failed = assertThrows(ExecutionException.class, () -> pending.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(IOException.class, failed.getCause());
+        for (int i = 0; i < 100 && client.isServerAvailable(); i++) sleep(20);
+        assertFalse(client.isServerAvailable());
+
+        assertEquals(new OpMove(3, 0), client.requestMove(game(3, 0)).get(5, TimeUnit.SECONDS));
+        assertTrue(client.isServerAvailable());
+    }
+
+    @Test
+    @DisplayName("Many headless external games play through one shared runtime")
+    void headlessLeague() {
+        int games = 40;
+        server = new LocalTetrisServer(0, MoveStrategy.tetrisAI(), LocalTetrisServer.Options.DEFAULT);
+        assertDoesNotThrow(server::start);
+        client = new MultiplexedServerClient("localhost", server.getPort(),
+                MultiplexedServerClient.Options.DEFAULT.withConnections(2));
+
+        List<GameController> league = new ArrayList<>();
+        List<ScoreController> scores = new ArrayList<>();
+        DefaultPlayStateFactory states = new DefaultPlayStateFactory(AIController::new,
+                () -> new ExternalController(client));
+        for (int i = 0; i < games; i++) {
+            ScoreController score = new ScoreController(new HighScoreService(new InMemoryHighScoreStore()));
+            GameController game = new GameController(new GameBoard(10, 20, new PieceGenerator(i)),
+                    new GameSetting(), PlayerType.EXTERNAL, states, score);
+            scores.add(score);
+            league.add(game);
+            game.start();
+        }
+        try {
+            int[] pieces = new int[games];
+            Tetromino[] current = new Tetromino[games];
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+            while (Arrays.stream(pieces).min().orElse(0) < 5 && System.nanoTime() < deadline) {
+                for (int i = 0; i < games; i++) {
+                    GameController game = league.get(i);
+                    if (game.state() == UiGameState.GAME_OVER) continue;
+                    game.tick();
+                    Tetromino next = game.board().current();
+                    if (next != current[i]) {
+                        if (current[i] != null) pieces[i]++;
+                        current[i] = next;
+                    }
+                }
+                sleep(1);
+            }
+            for (int i = 0; i < games; i++) assertTrue(pieces[i] >= 5, "game " + i + " locked " + pieces[i]);
+        } finally {
+            scores.forEach(ScoreController::shutdown);
+        }
+        assertEquals(2, server.getTotalConnections());
+        // Every game asked; pieces may also lock by gravity before their move is back
+        assertTrue(server.getRequests() >= games);
+        assertEquals(0, client.getRejected());
+    }
+
+    // Answers opX = occupied cells on the bottom row, opRotate = those on the row above (mod 4)
+    private static OpMove echoFilled(PureGame game) {
+        return new OpMove(filled(game), count(game.getCells()[game.getHeight() - 2]) % 4);
+    }
+
+    private static int filled(PureGame game) {
+        return count(game.getCells()[game.getHeight() - 1]);
+    }
+
+    private static int count(int[] row) {
+        int n = 0;
+        for (int cell : row) if (cell != 0) n++;
+        return n;
+    }
+
+    // Empty board but for `bottom` cells on the last row and `above` cells (mod 4) on the one above
+    private static PureGame game(int bottom, int above) {
+        int[][] cells = new int[20][10];
+        for (int x = 0; x < bottom; x++) cells[19][x] = 1;
+        for (int x = 0; x < above % 4; x++) cells[18][x] = 1;
+        return new PureGame(10, 20, cells, TetrominoType.T.rot[0], TetrominoType.I.rot[0]);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
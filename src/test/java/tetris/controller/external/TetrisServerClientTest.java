@@ -0,0 +1,248 @@
+package tetris.controller.external;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import tetris.model.board.BoardUtils;
+import tetris.model.external.OpMove;
+import tetris.model.external.PureGame;
+import tetris.model.tetromino.PieceGenerator;
+import tetris.model.tetromino.Tetromino;
+import tetris.model.tetromino.TetrominoType;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Connection handling of TetrisServerClient against LocalTetrisServer:
+ * keep-alive reuse, fallback for servers closing after each reply, binary
+ * protocol negotiation, delta sessions, and graceful failure without a server.
+ */
+class TetrisServerClientTest {
+
+    private LocalTetrisServer server;
+    // Boards the server's strategy was asked about, in request order
+    private final List<PureGame> games = new CopyOnWriteArrayList<>();
+
+    @AfterEach
+    void stopServer() {
+        if (server != null) server.close();
+    }
+
+    @Test
+    @DisplayName("Persistent mode sends every request over one connection")
+    void reusesConnection() throws IOException {
+        startServer(g -> new OpMove(3, 1), LocalTetrisServer.Options.DEFAULT);
+        try (TetrisServerClient client = new TetrisServerClient("localhost", server.getPort())) {
+            for (int i = 0; i < 5; i++) {
+                assertEquals(new OpMove(3, 1), client.getOptimalMove(game()));
+            }
+            assertTrue(client.isServerAvailable());
+            assertEquals(TetrisServerClient.Mode.PERSISTENT, client.getMode());
+        }
+        assertEquals(1, server.getTotalConnections());
+    }
+
+    @Test
+    @DisplayName("Falls back to one connection per request when the server closes after replies")
+    void fallsBackToPerRequest() throws IOException {
+        startServer(g -> new OpMove(3, 1), LocalTetrisServer.Options.DEFAULT.withCloseAfterReply(true));
+        try (TetrisServerClient client = new TetrisServerClient("localhost", server.getPort())) {
+            for (int i = 0; i < 6; i++) {
+                assertEquals(new OpMove(3, 1), client.getOptimalMove(game()), "request " + i);
+            }
+            assertEquals(TetrisServerClient.Mode.PER_REQUEST, client.getMode());
+        }
+        assertEquals(6, server.getTotalConnections());
+    }
+
+    @Test
+    @DisplayName("Returns null and backs off without a server")
+    void noServer() throws IOException {
+        int port;
+        try (ServerSocket unused = new ServerSocket(0)) {
+            port = unused.getLocalPort();
+        }
+        try (TetrisServerClient client = new TetrisServerClient("localhost", port)) {
+            assertNull(client.getOptimalMove(game()));
+            assertFalse(client.isServerAvailable());
+            // Within the backoff window no new connection is attempted
+            assertNull(client.getOptimalMove(game()));
+        }
+    }
+
+    @Test
+    @DisplayName("Binary protocol is negotiated and used for every request")
+    void usesBinaryFrames() throws IOException {
+        startServer(g -> new OpMove(g.getWidth() - 4, 2), LocalTetrisServer.Options.DEFAULT);
+        try (TetrisServerClient client = new TetrisServerClient("localhost", server.getPort(),
+                TetrisServerClient.Mode.PERSISTENT, TetrisServerClient.Protocol.BINARY)) {
+            for (int i = 0; i < 3; i++) {
+                assertEquals(new OpMove(6, 2), client.getOptimalMove(game()));
+            }
+            assertTrue(client.isBinaryConnection());
+            assertEquals(TetrisServerClient.Protocol.BINARY, client.getProtocol());
+            assertEquals(3, server.getRequests());
+            assertEquals(1, server.getTotalConnections());
+            assertArrayEquals(game().getCurrentShape(), games.get(0).getCurrentShape());
+        }
+    }
+
+    @Test
+    @DisplayName("Falls back to JSON when the server does not answer the handshake")
+    void fallsBackToJson() throws IOException {
+        startServer(g -> new OpMove(1, 1), LocalTetrisServer.Options.DEFAULT.withProtocols(false, false));
+        try (TetrisServerClient client = new TetrisServerClient("localhost", server.getPort(),
+                TetrisServerClient.Mode.PERSISTENT, TetrisServerClient.Protocol.BINARY)) {
+            for (int i = 0; i < 3; i++) {
+                assertEquals(new OpMove(1, 1), client.getOptimalMove(game()));
+            }
+            assertFalse(client.isBinaryConnection());
+            assertEquals(TetrisServerClient.Protocol.JSON, client.getProtocol());
+            assertEquals(3, server.getRequests());
+            // One connection refused the handshake, the next one carried every request
+            assertEquals(2, server.getTotalConnections());
+        }
+    }
+
+    @Test
+    @DisplayName("Delta sessions send only placements and keep the server replica in step")
+    void sendsDeltas() throws IOException {
+        startServer(TetrisServerClientTest::lowestDrop, LocalTetrisServer.Options.DEFAULT);
+        try (TetrisServerClient client = deltaClient()) {
+            int[][] cells = new int[20][10];
+            for (int y = 16; y < 20; y++) Arrays.fill(cells[y], 1, 10, 1);   // a well for an I piece
+            cells = playPieces(client, new PieceGenerator(5L), cells, 30, true);
+
+            assertEquals(TetrisServerClient.Protocol.DELTA, client.getProtocol());
+            assertEquals(29, client.getDeltasSent());
+            assertEquals(0, client.getResyncs());
+            assertEquals(29, server.getDeltas());
+            assertEquals(0, server.getResyncs());
+            // The server board matched every step, so the deltas' cleared rows were replayed too
+            assertTrue(filled(cells) < 4 * 9 + 30 * 4, "no placement cleared a row");
+        }
+    }
+
+    @Test
+    @DisplayName("A board the delta does not explain is sent in full")
+    void sendsSnapshotOnUnexpectedBoard() throws IOException {
+        startServer(TetrisServerClientTest::lowestDrop, LocalTetrisServer.Options.DEFAULT);
+        try (TetrisServerClient client = deltaClient()) {
+            PieceGenerator pieces = new PieceGenerator(6L);
+            int[][] cells = playPieces(client, pieces, new int[20][10], 5, true);
+            cells[0][9] = 1;    // garbage the server could not know about
+            playPieces(client, pieces, cells, 5, true);
+
+            assertEquals(8, client.getDeltasSent());
+            assertEquals(0, client.getResyncs());
+        }
+    }
+
+    @Test
+    @DisplayName("A checksum mismatch makes the server ask for a full snapshot")
+    void resyncsOnChecksumMismatch() throws IOException {
+        startServer(TetrisServerClientTest::lowestDrop, LocalTetrisServer.Options.DEFAULT);
+        try (TetrisServerClient client = deltaClient()) {
+            PieceGenerator pieces = new PieceGenerator(7L);
+            int[][] cells = playPieces(client, pieces, new int[20][10], 3, true);
+            server.divergeNextReplica();
+            // The server plays on a wrong board until the next checksum catches it
+            cells = playPieces(client, pieces, cells, DeltaSession.CHECKSUM_INTERVAL, false);
+            playPieces(client, pieces, cells, 2, true);
+
+            assertEquals(1, client.getResyncs());
+            assertEquals(1, server.getResyncs());
+        }
+    }
+
+    @Test
+    @DisplayName("Falls back to full binary frames when the server keeps no delta sessions")
+    void fallsBackToFullFrames() throws IOException {
+        startServer(TetrisServerClientTest::lowestDrop, LocalTetrisServer.Options.DEFAULT.withProtocols(true, false));
+        try (TetrisServerClient client = deltaClient()) {
+            playPieces(client, new PieceGenerator(8L), new int[20][10], 5, true);
+
+            assertEquals(TetrisServerClient.Protocol.BINARY, client.getProtocol());
+            assertTrue(client.isBinaryConnection());
+            assertEquals(0, client.getDeltasSent());
+            assertEquals(0, server.getDeltas());
+            assertEquals(5, server.getRequests());
+        }
+    }
+
+    private TetrisServerClient deltaClient() {
+        return new TetrisServerClient("localhost", server.getPort(),
+                TetrisServerClient.Mode.PERSISTENT, TetrisServerClient.Protocol.DELTA);
+    }
+
+    /**
+     * Asks for a move per piece and plays it like ExternalController would,
+     * optionally checking that the server saw each board; returns the final board.
+     */
+    private int[][] playPieces(TetrisServerClient client, PieceGenerator pieces,
+                               int[][] cells, int count, boolean checkServer) {
+        for (int i = 0; i < count; i++) {
+            Tetromino current = new Tetromino(pieces.next(), 3, 0);
+            PureGame game = new PureGame(10, 20, BoardUtils.copyBoard(cells), current.shape(),
+                    pieces.peekNext().rot[0]);
+            OpMove move = client.getOptimalMove(game);
+            assertNotNull(move, "piece " + i);
+            if (checkServer) assertOccupancy(cells, games.get(games.size() - 1).getCells());
+            cells = ExternalController.predictPlacement(cells, current, move);
+            assertNotNull(cells, "piece " + i + " does not fit");
+        }
+        return cells;
+    }
+
+    // Stand-in strategy: most cleared lines first, then the placement whose top lands lowest
+    private static OpMove lowestDrop(PureGame game) {
+        BoardMirror board = BoardMirror.of(game);
+        TetrominoType type = CompactProtocol.typeOf(game.getCurrentShape());
+        OpMove best = new OpMove(0, 0);
+        int bestScore = Integer.MIN_VALUE;
+        for (int rotation = 0; rotation < 4; rotation++) {
+            for (int x = -2; x < game.getWidth(); x++) {
+                int y = board.dropRow(type, rotation, x);
+                if (y == Integer.MIN_VALUE) continue;
+                int score = board.copy().lock(type, rotation, x, y).length * 100 + y + type.pieceShape(rotation).minRow();
+                if (score > bestScore) {
+                    best = new OpMove(x, rotation);
+                    bestScore = score;
+                }
+            }
+        }
+        return best;
+    }
+
+    private static void assertOccupancy(int[][] expected, int[][] actual) {
+        for (int y = 0; y < expected.length; y++) {
+            for (int x = 0; x < expected[y].length; x++) {
+                assertEquals(expected[y][x] != 0, actual[y][x] != 0, "cell " + x + "," + y);
+            }
+        }
+    }
+
+    private static int filled(int[][] cells) {
+        int filled = 0;
+        for (int[] row : cells) for (int cell : row) if (cell != 0) filled++;
+        return filled;
+    }
+
+    // Starts the server with a strategy that also records every board it is asked about
+    private void startServer(MoveStrategy strategy, LocalTetrisServer.Options options) throws IOException {
+        server = new LocalTetrisServer(0, game -> {
+            games.add(game);
+            return strategy.chooseMove(game);
+        }, options).start();
+    }
+
+    private static PureGame game() {
+        return new PureGame(10, 20, new int[20][10], TetrominoType.O.rot[0], null);
+    }
+}
@@ -0,0 +1,55 @@
+package tetris.controller.headless;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import tetris.controller.ai.AIController;
+import tetris.model.setting.GameSetting;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * A batch must play every seed exactly as a single HeadlessGame would,
+ * independent of how the games are spread over the worker threads.
+ */
+class BatchRunnerTest {
+
+    @Test
+    @DisplayName("Parallel batch reproduces the per-seed results of single games")
+    void parallelBatchMatchesSingleGames() {
+        GameSetting settings = new GameSetting();
+        settings.setLevel(10);
+
+        BatchRunner.Summary summary = new BatchRunner(settings, AIController::new, 4).run(10L, 8, 60);
+
+        assertEquals(8, summary.games());
+        assertEquals(4, summary.parallelism());
+        long pieces = 0, lines = 0;
+        for (int i = 0; i < 8; i++) {
+            HeadlessGame.Result batch = summary.results().get(i);
+            HeadlessGame.Result single = new HeadlessGame(settings, 10L + i, new AIController()).run(60);
+            assertEquals(10L + i, batch.seed());
+            assertEquals(single.pieces(), batch.pieces());
+            assertEquals(single.linesCleared(), batch.linesCleared());
+            assertEquals(single.score(), batch.score());
+            pieces += single.pieces();
+            lines += single.linesCleared();
+        }
+        assertEquals(pieces, summary.totalPieces());
+        assertEquals(lines, summary.totalLines());
+        assertTrue(summary.minScore() <= summary.meanScore() && summary.meanScore() <= summary.maxScore());
+        assertTrue(summary.piecesPerSecond() > 0);
+        assertTrue(summary.report().contains("games=8"));
+    }
+
+    @Test
+    @DisplayName("Rejects invalid parallelism and handles empty batches")
+    void edgeCases() {
+        GameSetting settings = new GameSetting();
+        assertThrows(IllegalArgumentException.class, () -> new BatchRunner(settings, AIController::new, 0));
+
+        BatchRunner.Summary empty = new BatchRunner(settings, AIController::new, 2).run(1L, 0, 10);
+        assertEquals(0, empty.games());
+        assertEquals(0, empty.totalPieces());
+        assertEquals(0.0, empty.meanScore());
+    }
+}
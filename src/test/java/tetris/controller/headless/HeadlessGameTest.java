@@ -0,0 +1,64 @@
+package tetris.controller.headless;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import tetris.controller.ai.AIController;
+import tetris.model.ai.TetrisAI;
+import tetris.model.board.BitboardGameBoard;
+import tetris.model.setting.GameSetting;
+import tetris.model.tetromino.PieceGenerator;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Headless games must run without JavaFX, stop at the piece limit or game over,
+ * and replay identically for the same seed.
+ */
+class HeadlessGameTest {
+
+    @Test
+    @DisplayName("Runs to the piece limit and replays identically for a seed")
+    void pieceLimitAndDeterminism() {
+        GameSetting settings = new GameSetting();
+        settings.setLevel(10);
+
+        HeadlessGame.Result first = new HeadlessGame(settings, 5L, new AIController()).run(100);
+        HeadlessGame.Result second = new HeadlessGame(settings, 5L, new AIController()).run(100);
+
+        assertEquals(100, first.pieces());
+        assertFalse(first.gameOver());
+        assertTrue(first.linesCleared() > 0);
+        assertTrue(first.score() > 0);
+        assertEquals(first.linesCleared(), second.linesCleared());
+        assertEquals(first.score(), second.score());
+        assertEquals(first.ticks(), second.ticks());
+    }
+
+    @Test
+    @DisplayName("Stops at game over on a cramped field")
+    void stopsAtGameOver() {
+        GameSetting settings = new GameSetting();
+        settings.setFieldWidth(6);
+        settings.setFieldHeight(8);
+
+        HeadlessGame.Result result = new HeadlessGame(settings, 7L, new AIController()).run(100_000);
+
+        assertTrue(result.gameOver());
+        assertTrue(result.pieces() < 100_000);
+    }
+
+    @Test
+    @DisplayName("Plays on other board implementations with the same outcome")
+    void bitboardMatchesGameBoard() {
+        GameSetting settings = new GameSetting();
+        settings.setLevel(10);
+
+        HeadlessGame.Result reference = new HeadlessGame(settings, 5L, new AIController()).run(200);
+        BitboardGameBoard bitboard = new BitboardGameBoard(10, 20, new PieceGenerator(5L));
+        HeadlessGame.Result bit = new HeadlessGame(bitboard, settings, 5L, new AIController(TetrisAI.incremental())).run(200);
+
+        assertEquals(reference.pieces(), bit.pieces());
+        assertEquals(reference.linesCleared(), bit.linesCleared());
+        assertEquals(reference.score(), bit.score());
+    }
+}
@@ -0,0 +1,61 @@
+package tetris.controller.headless;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import tetris.controller.ai.AIController;
+import tetris.model.setting.GameSetting;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The macro benchmark must measure exactly the games a HeadlessGame plays for
+ * the same seeds, and emit its report as JSON.
+ */
+class MacroBenchmarkTest {
+
+    @Test
+    @DisplayName("Measures the seeded games and reports them as JSON")
+    void reportsSeededGames() throws Exception {
+        GameSetting settings = new GameSetting();
+        settings.setLevel(10);
+        long[] seeds = {5L, 6L};
+
+        MacroBenchmark.Report report = new MacroBenchmark(settings, MacroBenchmark.Planner.GREEDY).run(seeds, 60, 1);
+
+        long pieces = 0, lines = 0;
+        for (long seed : seeds) {
+            HeadlessGame.Result single = new HeadlessGame(settings, seed, new AIController()).run(60);
+            pieces += single.pieces();
+            lines += single.linesCleared();
+        }
+        assertEquals(pieces, report.pieces());
+        assertEquals(lines, report.linesCleared());
+        assertTrue(report.decisions() >= report.pieces());
+        assertTrue(report.p50DecisionMicros() <= report.p99DecisionMicros());
+        assertTrue(report.p99DecisionMicros() <= report.maxDecisionMicros());
+        assertTrue(report.piecesPerSecond() > 0 && report.decisionsPerSecond() > 0);
+
+        JsonNode json = new ObjectMapper().readTree(report.toJson());
+        assertEquals("greedy", json.get("planner").asText());
+        assertEquals(pieces, json.get("pieces").asLong());
+        assertEquals(2, json.get("seeds").size());
+        assertTrue(json.has("p99DecisionMicros"));
+        assertTrue(json.has("bytesPerPiece"));
+    }
+
+    @Test
+    @DisplayName("Decision timer percentiles use nearest rank")
+    void timerPercentiles() {
+        DecisionTimer timer = new DecisionTimer((board, current, preview) -> null);
+        assertEquals(0, timer.percentileNanos(50));
+        for (int i = 0; i < 2000; i++) timer.planMove(null, null, java.util.List.of());
+
+        assertEquals(2000, timer.decisions());
+        assertTrue(timer.percentileNanos(50) <= timer.percentileNanos(99));
+        assertTrue(timer.percentileNanos(99) <= timer.percentileNanos(100));
+        timer.reset();
+        assertEquals(0, timer.decisions());
+    }
+}
@@ -0,0 +1,30 @@
+package tetris.factory;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The tetris.seed system property must pin the piece sequence seed.
+ */
+class GameFactoryTest {
+
+    @AfterEach
+    void clearProperty() {
+        System.clearProperty(GameFactory.SEED_PROPERTY);
+    }
+
+    @Test
+    @DisplayName("Uses the fallback seed unless tetris.seed is set")
+    void seedOverride() {
+        assertEquals(123L, GameFactory.pieceSeed(123L));
+
+        System.setProperty(GameFactory.SEED_PROPERTY, "42");
+        assertEquals(42L, GameFactory.pieceSeed(123L));
+
+        System.setProperty(GameFactory.SEED_PROPERTY, "not-a-number");
+        assertEquals(123L, GameFactory.pieceSeed(123L));
+    }
+}
@@ -0,0 +1,87 @@
+package tetris.model.ai;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import tetris.model.board.GameBoard;
+import tetris.model.tetromino.PieceGenerator;
+import tetris.model.tetromino.TetrominoType;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * BeamSearchPlanner must reduce to the TetrisAI searches at the depths where
+ * they coincide, and must respect its time budget at larger depths.
+ */
+class BeamSearchPlannerTest {
+
+    private static final long NO_DEADLINE_MS = 60_000;
+
+    @Test
+    @DisplayName("Depth 1 plays exactly the greedy TetrisAI move")
+    void depthOneMatchesGreedy() {
+        TetrisAI ai = new TetrisAI();
+        BeamSearchPlanner beam = new BeamSearchPlanner(4, 1, NO_DEADLINE_MS);
+        GameBoard board = new GameBoard(10, 20, new PieceGenerator(21L));
+        for (int piece = 0; piece < 100 && board.newPiece(); piece++) {
+            AIMove expected = ai.findBestMove(board, board.current());
+            assertEquals(expected, beam.planMove(board, board.current(), preview(board)), "piece " + piece);
+            if (!TetrisAITest.place(board, expected)) break;
+        }
+    }
+
+    @Test
+    @DisplayName("Depth 2 with an unbounded beam matches the full two-piece lookahead")
+    void depthTwoMatchesFullLookahead() {
+        TetrisAI ai = new TetrisAI();
+        BeamSearchPlanner beam = new BeamSearchPlanner(Integer.MAX_VALUE, 2, NO_DEADLINE_MS);
+        GameBoard board = new GameBoard(10, 20, new PieceGenerator(5L));
+        for (int piece = 0; piece < 60 && board.newPiece(); piece++) {
+            AIMove expected = ai.findBestMove(board, board.current(), board.getNextTetrominoType(), Integer.MAX_VALUE);
+            assertEquals(expected, beam.planMove(board, board.current(), preview(board)), "piece " + piece);
+            if (!TetrisAITest.place(board, expected)) break;
+        }
+    }
+
+    @Test
+    @DisplayName("Expected-value plies beyond the preview still produce playable moves")
+    void expectedValueBeyondPreview() {
+        BeamSearchPlanner beam = new BeamSearchPlanner(4, 3, NO_DEADLINE_MS);
+        GameBoard board = new GameBoard(10, 20, new PieceGenerator(9L));
+        int placed = 0;
+        for (; placed < 60 && board.newPiece(); placed++) {
+            AIMove move = beam.planMove(board, board.current(), preview(board));
+            assertNotNull(move);
+            if (!TetrisAITest.place(board, move)) break;
+        }
+        assertEquals(60, placed, "beam search topped out early");
+    }
+
+    @Test
+    @DisplayName("Deep searches stop at the time budget and answer from the last complete ply")
+    void timeBudgetBoundsLatency() {
+        BeamSearchPlanner beam = new BeamSearchPlanner(64, 8, 5);
+        GameBoard board = new GameBoard(10, 20, new PieceGenerator(13L));
+        assertTrue(board.newPiece());
+
+        long start = System.nanoTime();
+        AIMove move = beam.planMove(board, board.current(), preview(board));
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+        assertNotNull(move);
+        assertTrue(elapsedMs < 500, "planning took " + elapsedMs + " ms");
+    }
+
+    @Test
+    @DisplayName("Width, depth and budget must be positive")
+    void rejectsInvalidConfiguration() {
+        assertThrows(IllegalArgumentException.class, () -> new BeamSearchPlanner(0, 2, 10));
+        assertThrows(IllegalArgumentException.class, () -> new BeamSearchPlanner(2, 0, 10));
+        assertThrows(IllegalArgumentException.class, () -> new BeamSearchPlanner(2, 2, 0));
+    }
+
+    private static List<TetrominoType> preview(GameBoard board) {
+        return List.of(board.getNextTetrominoType());
+    }
+}
@@ -0,0 +1,108 @@
+package tetris.model.ai;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import tetris.model.board.GameBoard;
+import tetris.model.board.Skyline;
+import tetris.model.tetromino.PieceGenerator;
+import tetris.model.tetromino.PieceShape;
+import tetris.model.tetromino.TetrominoType;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The fused single-pass board score must be bit-identical to the reference
+ * one-pass-per-feature implementation on every board, and incremental placement
+ * scoring must equal a full evaluation of the resulting board.
+ */
+class BoardEvaluatorTest {
+
+    private final BoardEvaluator evaluator = new BoardEvaluator();
+
+    @Test
+    @DisplayName("Fused sweep equals the four-pass reference on random boards")
+    void fusedMatchesReferenceOnRandomBoards() {
+        Random rnd = new Random(20240607L);
+        for (int i = 0; i < 20_000; i++) {
+            int width = 1 + rnd.nextInt(16);
+            int height = 1 + rnd.nextInt(30);
+            int[][] board = new int[height][width];
+            // Mix of densities: sparse garbage, dense stacks with holes, tall towers (wells)
+            int density = 1 + rnd.nextInt(9);
+            int fillFrom = rnd.nextInt(height + 1);
+            for (int y = fillFrom; y < height; y++)
+                for (int x = 0; x < width; x++)
+                    if (rnd.nextInt(10) < density) board[y][x] = 1 + rnd.nextInt(7);
+            if (rnd.nextBoolean()) {
+                int tower = rnd.nextInt(width);
+                for (int y = rnd.nextInt(height); y < height; y++) board[y][tower] = 1;
+            }
+
+            assertEquals(evaluator.scoreBoardReference(board), evaluator.scoreBoard(board),
+                    () -> "board " + java.util.Arrays.deepToString(board));
+        }
+    }
+
+    @Test
+    @DisplayName("Fused sweep equals the reference on every board of AI games")
+    void fusedMatchesReferenceDuringGames() {
+        TetrisAI ai = new TetrisAI();
+        for (long seed = 1; seed <= 3; seed++) {
+            GameBoard board = new GameBoard(10, 20, new PieceGenerator(seed));
+            for (int piece = 0; piece < 150 && board.newPiece(); piece++) {
+                assertEquals(evaluator.scoreBoardReference(board.cells()), evaluator.scoreBoard(board.cells()));
+                AIMove move = ai.findBestMove(board, board.current());
+                if (move == null || !TetrisAITest.place(board, move)) break;
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Empty and full boards score as the reference")
+    void edgeBoards() {
+        int[][] empty = new int[20][10];
+        int[][] full = new int[20][10];
+        for (int[] row : full) java.util.Arrays.fill(row, 3);
+        int[][] column = new int[5][1];
+
+        assertEquals(evaluator.scoreBoardReference(empty), evaluator.scoreBoard(empty));
+        assertEquals(evaluator.scoreBoardReference(full), evaluator.scoreBoard(full));
+        assertEquals(evaluator.scoreBoardReference(column), evaluator.scoreBoard(column));
+    }
+
+    @Test
+    @DisplayName("Incremental placement scores equal full evaluation of the resulting board")
+    void incrementalMatchesFullEvaluation() {
+        Random rnd = new Random(99L);
+        TetrominoType[] types = TetrominoType.values();
+        int clears = 0;
+        for (int i = 0; i < 3000; i++) {
+            int width = 4 + rnd.nextInt(30);
+            int height = 4 + rnd.nextInt(20);
+            int[][] board = new int[height][width];
+            int fillFrom = height - rnd.nextInt(height);
+            for (int y = fillFrom; y < height; y++)
+                for (int x = 0; x < width; x++)
+                    if (rnd.nextInt(8) != 0) board[y][x] = 1;
+
+            BoardFeatures features = BoardFeatures.of(board);
+            assertEquals(evaluator.scoreBoard(board), features.score());
+
+            Skyline skyline = Skyline.of(board);
+            TetrominoType type = types[rnd.nextInt(types.length)];
+            for (AIMove move : MoveSimulator.generateCandidates(width, skyline, type)) {
+                MoveSimulator.SimulationResult result = MoveSimulator.simulateMoveWithLineCount(
+                        board, skyline, type, move.targetX(), move.targetRotation());
+                PieceShape shape = type.pieceShape(move.targetRotation());
+                int expected = evaluator.evaluateBoardWithLines(result.board(), result.linesCleared());
+                assertEquals(expected, evaluator.evaluatePlacement(features, result.board(),
+                        move.targetX() + shape.minCol(), move.targetX() + shape.maxCol(), result.linesCleared()),
+                        () -> type + " " + move + " on " + java.util.Arrays.deepToString(board));
+                if (result.linesCleared() > 0) clears++;
+            }
+        }
+        assertTrue(clears > 0, "fixtures should include line clears");
+    }
+}
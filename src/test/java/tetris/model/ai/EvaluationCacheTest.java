@@ -0,0 +1,195 @@
+package tetris.model.ai;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import tetris.model.board.GameBoard;
+import tetris.model.board.Skyline;
+import tetris.model.tetromino.PieceGenerator;
+import tetris.model.tetromino.PieceShape;
+import tetris.model.tetromino.TetrominoType;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * EvaluationCache must never change a score, must stay within its capacity and
+ * must keep its counters consistent, also under a parallel search.
+ */
+class EvaluationCacheTest {
+
+    @Test
+    @DisplayName("Cached scores equal uncached scores and repeats are hits")
+    void cachedScoresMatchUncached() {
+        Random rnd = new Random(17L);
+        BoardEvaluator plain = new BoardEvaluator();
+        EvaluationCache cache = new EvaluationCache(1024);
+        BoardEvaluator cached = new BoardEvaluator(cache);
+
+        for (int i = 0; i < 200; i++) {
+            int[][] board = randomBoard(rnd, 10, 20);
+            int lines = rnd.nextInt(5);
+            int expected = plain.evaluateBoardWithLines(board, lines);
+            assertEquals(expected, cached.evaluateBoardWithLines(board, lines));
+            // Same occupancy, different colors and line count: still one entry
+            int[][] recolored = recolor(board, rnd);
+            assertEquals(plain.evaluateBoardWithLines(board, 4 - lines), cached.evaluateBoardWithLines(recolored, 4 - lines));
+        }
+
+        EvaluationCache.Stats stats = cache.stats();
+        assertEquals(200, stats.misses());
+        assertEquals(200, stats.hits());
+        assertEquals(0.5, stats.hitRate(), 1e-9);
+    }
+
+    @Test
+    @DisplayName("Size never exceeds capacity and overflow is counted as evictions")
+    void boundedWithEvictions() {
+        Random rnd = new Random(3L);
+        EvaluationCache cache = new EvaluationCache(64);
+        BoardEvaluator plain = new BoardEvaluator();
+        BoardEvaluator cached = new BoardEvaluator(cache);
+
+        for (int i = 0; i < 1000; i++) {
+            int[][] board = randomBoard(rnd, 10, 20);
+            assertEquals(plain.evaluateBoardWithLines(board, 0), cached.evaluateBoardWithLines(board, 0));
+            assertTrue(cache.stats().size() <= cache.capacity());
+        }
+        EvaluationCache.Stats stats = cache.stats();
+        assertEquals(cache.capacity(), stats.size());
+        assertEquals(stats.misses() - stats.size(), stats.evictions());
+
+        cache.clear();
+        assertEquals(new EvaluationCache.Stats(0, 0, 0, 0), cache.stats());
+    }
+
+    @Test
+    @DisplayName("A board just stored is found again while evictions churn the table")
+    void storedEntriesStayReachable() {
+        Random rnd = new Random(11L);
+        EvaluationCache cache = new EvaluationCache(64);
+        BoardEvaluator plain = new BoardEvaluator();
+        BoardEvaluator cached = new BoardEvaluator(cache);
+        int[][][] pool = new int[300][][];
+        for (int i = 0; i < pool.length; i++) pool[i] = randomBoard(rnd, 10, 20);
+
+        for (int i = 0; i < 5000; i++) {
+            int[][] board = pool[rnd.nextInt(pool.length)];
+            int expected = plain.evaluateBoardWithLines(board, 0);
+            assertEquals(expected, cached.evaluateBoardWithLines(board, 0));
+            long hits = cache.stats().hits();
+            assertEquals(expected, cached.evaluateBoardWithLines(board, 0));
+            assertEquals(hits + 1, cache.stats().hits(), "lookup " + i);
+        }
+        assertEquals(cache.stats().misses() - cache.capacity(), cache.stats().evictions());
+    }
+
+    @Test
+    @DisplayName("Boards with equal hashes but different occupancy get their own scores")
+    void hashCollisionsAreVerified() {
+        EvaluationCache cache = new EvaluationCache(64);
+        int[][] a = new int[4][4];
+        int[][] b = new int[4][4];
+        b[3][0] = 1;
+        long[] rowsA = new long[4];
+        long[] rowsB = {0, 0, 0, 1};
+
+        assertEquals(1, cache.computeIfAbsent(a, rowsA, 42L, board -> 1));
+        assertEquals(2, cache.computeIfAbsent(b, rowsB, 42L, board -> 2));
+        assertEquals(1, cache.computeIfAbsent(a, rowsA, 42L, board -> 3));
+        assertEquals(2, cache.computeIfAbsent(b, rowsB, 42L, board -> 3));
+        assertEquals(new EvaluationCache.Stats(2, 2, 0, 2), cache.stats());
+    }
+
+    @Test
+    @DisplayName("Scratch board placements keep the key of the board they produce")
+    void scratchKeysMatchScannedKeys() {
+        Random rnd = new Random(5L);
+        EvaluationCache cache = new EvaluationCache(4096);
+        BoardEvaluator plain = new BoardEvaluator();
+        BoardEvaluator cached = new BoardEvaluator(cache);
+        ScratchBoard scratch = ScratchBoard.forThread(0);
+
+        for (int i = 0; i < 200; i++) {
+            int[][] board = randomBoard(rnd, 10, 20);
+            scratch.load(board);
+            long loaded = scratch.resultHash();
+            assertEquals(hash(board), loaded);
+
+            TetrominoType type = TetrominoType.values()[rnd.nextInt(TetrominoType.values().length)];
+            for (AIMove move : MoveSimulator.generateCandidates(10, Skyline.of(board), type)) {
+                PieceShape shape = type.pieceShape(move.targetRotation());
+                int y = Skyline.of(board).landingY(shape, move.targetX());
+                if (y < MoveSimulator.MIN_LANDING_Y) continue;
+                int lines = scratch.place(type, move.targetRotation(), move.targetX(), y);
+                int[][] result = scratch.result();
+                assertEquals(hash(result), scratch.resultHash());
+                assertArrayEquals(rows(result), scratch.resultRows());
+                assertEquals(plain.evaluateBoardWithLines(result, lines), cached.evaluateResult(scratch, lines));
+                // The scanning path finds the entry the scratch key stored
+                long hits = cache.stats().hits();
+                assertEquals(plain.evaluateBoardWithLines(result, lines), cached.evaluateBoardWithLines(result, lines));
+                assertEquals(hits + 1, cache.stats().hits());
+                scratch.undo();
+                assertEquals(loaded, scratch.resultHash());
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Parallel lookahead with a shared cache plays the uncached game")
+    void parallelCachedSearchMatchesUncached() {
+        TetrisAI reference = new TetrisAI();
+        EvaluationCache cache = new EvaluationCache(4096);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            TetrisAI cached = new TetrisAI(pool, 1, cache);
+            GameBoard board = new GameBoard(10, 20, new PieceGenerator(77L));
+            for (int piece = 0; piece < 80 && board.newPiece(); piece++) {
+                AIMove expected = reference.findBestMove(board, board.current(), board.getNextTetrominoType(), 4);
+                assertEquals(expected, cached.findBestMove(board, board.current(), board.getNextTetrominoType(), 4),
+                        "piece " + piece);
+                if (!TetrisAITest.place(board, expected)) break;
+            }
+        } finally {
+            pool.shutdown();
+        }
+        assertTrue(cache.stats().hits() > 0, cache.stats().toString());
+        assertSame(cache, new TetrisAI(null, 1, cache).getEvaluationCache());
+    }
+
+    private static long[] rows(int[][] board) {
+        long[] rows = new long[board.length];
+        for (int y = 0; y < board.length; y++)
+            for (int x = 0; x < board[y].length; x++)
+                if (board[y][x] != 0) rows[y] |= 1L << x;
+        return rows;
+    }
+
+    private static long hash(int[][] board) {
+        long[] rows = rows(board);
+        long hash = 0;
+        for (int y = 0; y < rows.length; y++) hash ^= EvaluationCache.rowHash(y, rows[y]);
+        return hash;
+    }
+
+    private static int[][] randomBoard(Random rnd, int width, int height) {
+        int[][] board = new int[height][width];
+        int fillFrom = rnd.nextInt(height);
+        for (int y = fillFrom; y < height; y++)
+            for (int x = 0; x < width; x++)
+                if (rnd.nextInt(3) != 0) board[y][x] = 1 + rnd.nextInt(7);
+        return board;
+    }
+
+    private static int[][] recolor(int[][] board, Random rnd) {
+        int[][] copy = new int[board.length][];
+        for (int y = 0; y < board.length; y++) {
+            copy[y] = board[y].clone();
+            for (int x = 0; x < copy[y].length; x++)
+                if (copy[y][x] != 0) copy[y][x] = 1 + rnd.nextInt(7);
+        }
+        return copy;
+    }
+}
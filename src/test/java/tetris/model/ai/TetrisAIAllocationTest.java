@@ -0,0 +1,55 @@
+package tetris.model.ai;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import tetris.model.board.GameBoard;
+import tetris.model.tetromino.PieceGenerator;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Allocation checks for AI planning.
+ * The sequential greedy search simulates every candidate on a per-thread scratch
+ * board, so after warm-up a decision must not allocate at all; copying the board
+ * per candidate would show up as roughly 34 x 21 arrays per decision.
+ */
+class TetrisAIAllocationTest {
+
+    private static final int DECISIONS = 5_000;
+
+    @Test
+    @DisplayName("Steady-state greedy planning allocates nothing per decision")
+    void greedySearchIsAllocationFree() {
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assertTrue(threads.isThreadAllocatedMemorySupported());
+        threads.setThreadAllocatedMemoryEnabled(true);
+
+        // Mid-game board with some stack, so candidates include line clears
+        TetrisAI ai = new TetrisAI();
+        GameBoard board = new GameBoard(10, 20, new PieceGenerator(4L));
+        for (int piece = 0; piece < 40 && board.newPiece(); piece++) {
+            assertTrue(TetrisAITest.place(board, ai.findBestMove(board, board.current())));
+        }
+        assertTrue(board.newPiece());
+
+        // Warm up so the measured loop runs compiled code, then measure
+        AIMove expected = plan(ai, board, DECISIONS);
+        long before = threads.getCurrentThreadAllocatedBytes();
+        AIMove move = plan(ai, board, DECISIONS);
+        long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+
+        assertEquals(expected, move);
+        assertEquals(0, allocated / DECISIONS, "bytes allocated per decision (total " + allocated + ")");
+    }
+
+    private static AIMove plan(TetrisAI ai, GameBoard board, int decisions) {
+        AIMove move = null;
+        for (int i = 0; i < decisions; i++) {
+            move = ai.findBestMove(board, board.current());
+        }
+        return move;
+    }
+}
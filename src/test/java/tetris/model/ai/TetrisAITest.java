@@ -0,0 +1,142 @@
+package tetris.model.ai;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import tetris.model.board.GameBoard;
+import tetris.model.tetromino.PieceGenerator;
+
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Search-mode tests for TetrisAI: alternative search strategies must agree with
+ * the plain sequential search wherever they promise to.
+ */
+class TetrisAITest {
+
+    @Test
+    @DisplayName("Parallel search picks exactly the sequential move")
+    void parallelSearchMatchesSequential() {
+        TetrisAI sequential = new TetrisAI();
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            TetrisAI parallel = new TetrisAI(pool, 1);
+            for (long seed = 1; seed <= 5; seed++) {
+                GameBoard board = new GameBoard(10, 20, new PieceGenerator(seed));
+                for (int piece = 0; piece < 150 && board.newPiece(); piece++) {
+                    AIMove expected = sequential.findBestMove(board, board.current());
+                    assertEquals(expected, parallel.findBestMove(board, board.current()),
+                            "seed " + seed + " piece " + piece);
+                    if (!place(board, expected)) break;
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Empty-board ties resolve to the first candidate in search order")
+    void tiesResolveDeterministically() {
+        GameBoard board = new GameBoard(10, 20, new PieceGenerator(8L));
+        assertTrue(board.newPiece());
+        AIMove first = new TetrisAI().findBestMove(board, board.current());
+        for (int i = 0; i < 20; i++) {
+            assertEquals(first, TetrisAI.parallel().findBestMove(board, board.current()));
+        }
+    }
+
+    @Test
+    @DisplayName("Lookahead without preview or with width 1 degrades to the greedy move")
+    void lookaheadDegradesToGreedy() {
+        TetrisAI ai = new TetrisAI();
+        GameBoard board = new GameBoard(10, 20, new PieceGenerator(3L));
+        for (int piece = 0; piece < 100 && board.newPiece(); piece++) {
+            AIMove greedy = ai.findBestMove(board, board.current());
+            assertEquals(greedy, ai.findBestMove(board, board.current(), null, TetrisAI.DEFAULT_LOOKAHEAD_WIDTH));
+            assertEquals(greedy, ai.findBestMove(board, board.current(), board.getNextTetrominoType(), 0));
+            assertEquals(greedy, ai.findBestMove(board, board.current(), board.getNextTetrominoType(), 1));
+            if (!place(board, greedy)) break;
+        }
+    }
+
+    @Test
+    @DisplayName("Parallel lookahead picks exactly the sequential lookahead move")
+    void parallelLookaheadMatchesSequential() {
+        TetrisAI sequential = new TetrisAI();
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            TetrisAI parallel = new TetrisAI(pool, 1);
+            GameBoard board = new GameBoard(10, 20, new PieceGenerator(11L));
+            for (int piece = 0; piece < 100 && board.newPiece(); piece++) {
+                AIMove expected = sequential.findBestMove(board, board.current(), board.getNextTetrominoType(), 4);
+                assertNotNull(expected);
+                assertEquals(expected, parallel.findBestMove(board, board.current(), board.getNextTetrominoType(), 4),
+                        "piece " + piece);
+                if (!place(board, expected)) break;
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Lookahead clears at least as many lines as greedy over fixed seeds")
+    void lookaheadPlaysAtLeastAsWell() {
+        TetrisAI ai = new TetrisAI();
+        int greedyLines = 0, lookaheadLines = 0;
+        for (long seed = 1; seed <= 4; seed++) {
+            greedyLines += playGame(ai, seed, 0, 300);
+            lookaheadLines += playGame(ai, seed, TetrisAI.DEFAULT_LOOKAHEAD_WIDTH, 300);
+        }
+        assertTrue(lookaheadLines >= greedyLines, "lookahead " + lookaheadLines + " < greedy " + greedyLines);
+    }
+
+    @Test
+    @DisplayName("Incremental evaluation picks exactly the full-evaluation move")
+    void incrementalSearchMatchesFull() {
+        TetrisAI full = new TetrisAI();
+        TetrisAI incremental = TetrisAI.incremental();
+        for (int width : new int[] {10, 40}) {
+            GameBoard board = new GameBoard(width, 20, new PieceGenerator(width));
+            for (int piece = 0; piece < 150 && board.newPiece(); piece++) {
+                AIMove expected = full.findBestMove(board, board.current(), board.getNextTetrominoType(), 3);
+                assertEquals(expected,
+                        incremental.findBestMove(board, board.current(), board.getNextTetrominoType(), 3),
+                        "width " + width + " piece " + piece);
+                if (!place(board, expected)) break;
+            }
+        }
+    }
+
+    /** Plays up to the given number of pieces and returns the total lines cleared. */
+    private static int playGame(TetrisAI ai, long seed, int lookaheadWidth, int pieces) {
+        GameBoard board = new GameBoard(10, 20, new PieceGenerator(seed));
+        int lines = 0;
+        for (int piece = 0; piece < pieces && board.newPiece(); piece++) {
+            AIMove move = ai.findBestMove(board, board.current(), board.getNextTetrominoType(), lookaheadWidth);
+            if (move == null) break;
+            for (int i = 0; i < 4 && board.current().rot != move.targetRotation(); i++) board.rotateCW();
+            for (int i = 0; i < board.getWidth() && board.current().x() != move.targetX(); i++) {
+                if (board.current().x() < move.targetX()) board.moveRight(); else board.moveLeft();
+            }
+            board.hardDrop();
+            if (!board.lockCurrent()) break;
+            lines += board.clearFullLines();
+        }
+        return lines;
+    }
+
+    /** Applies a planned move to the live board; false when the game is over. */
+    static boolean place(GameBoard board, AIMove move) {
+        for (int i = 0; i < 4 && board.current().rot != move.targetRotation(); i++) board.rotateCW();
+        for (int i = 0; i < board.getWidth() && board.current().x() != move.targetX(); i++) {
+            if (board.current().x() < move.targetX()) board.moveRight(); else board.moveLeft();
+        }
+        board.hardDrop();
+        if (!board.lockCurrent()) return false;
+        board.clearFullLines();
+        return true;
+    }
+}
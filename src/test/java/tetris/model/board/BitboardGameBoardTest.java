@@ -0,0 +1,136 @@
+package tetris.model.board;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import tetris.model.ai.AIMove;
+import tetris.model.ai.TetrisAI;
+import tetris.model.tetromino.PieceGenerator;
+import tetris.model.tetromino.Tetromino;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Differential tests: BitboardGameBoard must play exactly the same game as the
+ * reference GameBoard when both are fed by PieceGenerators with the same seed.
+ */
+class BitboardGameBoardTest {
+
+    @ParameterizedTest
+    @DisplayName("AI-driven games are identical on both boards")
+    @ValueSource(longs = {1L, 42L, 2024L, 987654321L})
+    void aiGamesMatchReference(long seed) {
+        GameBoard ref = new GameBoard(10, 20, new PieceGenerator(seed));
+        BitboardGameBoard bit = new BitboardGameBoard(10, 20, new PieceGenerator(seed));
+        assertTrue(playAiGame(ref, bit, 300) > 0);
+    }
+
+    /**
+     * Random play exercises soft drops, wall kicks against edges and top-outs,
+     * which the AI rarely produces.
+     */
+    @ParameterizedTest
+    @DisplayName("Random action games are identical on both boards")
+    @ValueSource(longs = {7L, 99L, 31337L})
+    void randomGamesMatchReference(long seed) {
+        Random actions = new Random(seed);
+        GameBoard ref = new GameBoard(8, 16, new PieceGenerator(seed));
+        BitboardGameBoard bit = new BitboardGameBoard(8, 16, new PieceGenerator(seed));
+
+        for (int game = 0; game < 3; game++) {
+            boolean alive = ref.newPiece();
+            assertEquals(alive, bit.newPiece());
+            while (alive) {
+                switch (actions.nextInt(5)) {
+                    case 0 -> { ref.moveLeft(); bit.moveLeft(); }
+                    case 1 -> { ref.moveRight(); bit.moveRight(); }
+                    case 2 -> { ref.rotateCW(); bit.rotateCW(); }
+                    case 3 -> { ref.hardDrop(); bit.hardDrop(); }
+                    default -> { /* gravity only */ }
+                }
+                assertProbesMatch(ref, bit);
+
+                boolean moved = ref.softDropStep();
+                assertEquals(moved, bit.softDropStep());
+                if (!moved) {
+                    boolean locked = ref.lockCurrent();
+                    assertEquals(locked, bit.lockCurrent());
+                    assertEquals(ref.clearFullLines(), bit.clearFullLines());
+                    assertArrayEquals(ref.cells(), bit.cells());
+                    alive = locked && ref.newPiece();
+                    if (locked) assertEquals(alive, bit.newPiece());
+                }
+            }
+            ref.reset();
+            bit.reset();
+            assertArrayEquals(ref.cells(), bit.cells());
+        }
+    }
+
+    @Test
+    @DisplayName("Wide boards beyond 32 columns detect and clear full rows")
+    void widestBoardClearsLines() {
+        assertThrows(IllegalArgumentException.class, () -> new BitboardGameBoard(65, 6, null));
+
+        GameBoard ref = new GameBoard(48, 12, new PieceGenerator(5L));
+        BitboardGameBoard bit = new BitboardGameBoard(48, 12, new PieceGenerator(5L));
+        assertTrue(playAiGame(ref, bit, 200) > 0, "expected at least one full 48-wide line");
+    }
+
+    /**
+     * The AI plans on the reference board and the same action sequence is
+     * replayed on both boards; returns the total number of cleared lines.
+     */
+    private static int playAiGame(GameBoard ref, BitboardGameBoard bit, int pieces) {
+        TetrisAI ai = new TetrisAI();
+        int totalCleared = 0;
+
+        for (int piece = 0; piece < pieces; piece++) {
+            boolean spawned = ref.newPiece();
+            assertEquals(spawned, bit.newPiece(), "spawn result differs at piece " + piece);
+            if (!spawned) break;
+            assertEquals(ref.getNextTetrominoType(), bit.getNextTetrominoType());
+
+            AIMove move = ai.findBestMove(ref, ref.current());
+            assertNotNull(move);
+            for (int i = 0; i < 4 && ref.current().rot != move.targetRotation(); i++) {
+                ref.rotateCW();
+                bit.rotateCW();
+            }
+            for (int i = 0; i < ref.getWidth() && ref.current().x() != move.targetX(); i++) {
+                if (ref.current().x() < move.targetX()) { ref.moveRight(); bit.moveRight(); }
+                else { ref.moveLeft(); bit.moveLeft(); }
+            }
+            assertProbesMatch(ref, bit);
+
+            ref.hardDrop();
+            bit.hardDrop();
+            assertEquals(ref.current().x(), bit.current().x());
+            assertEquals(ref.current().y(), bit.current().y());
+
+            assertEquals(ref.lockCurrent(), bit.lockCurrent());
+            int cleared = ref.clearFullLines();
+            assertEquals(cleared, bit.clearFullLines());
+            assertArrayEquals(ref.cells(), bit.cells(), "cells differ after piece " + piece);
+            totalCleared += cleared;
+        }
+        return totalCleared;
+    }
+
+    /** Compares canMove answers for every rotation and a window of offsets around the piece. */
+    private static void assertProbesMatch(GameBoard ref, BitboardGameBoard bit) {
+        Tetromino t = ref.current();
+        if (t == null) return;
+        for (int rot = 0; rot < 4; rot++) {
+            for (int dx = -4; dx <= 4; dx++) {
+                for (int dy = -2; dy <= 3; dy++) {
+                    assertEquals(ref.canMove(t, dx, dy, rot), bit.canMove(t, dx, dy, rot),
+                            "canMove differs at dx=" + dx + " dy=" + dy + " rot=" + rot);
+                }
+            }
+        }
+    }
+}
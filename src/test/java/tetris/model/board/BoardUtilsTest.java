@@ -0,0 +1,110 @@
+package tetris.model.board;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import tetris.model.tetromino.PieceGenerator;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Line clearing recycles row arrays by reference; the result must still match a
+ * plain copy-based compaction and no two rows may end up sharing an array.
+ */
+class BoardUtilsTest {
+
+    @Test
+    @DisplayName("Reference-swapping line clear matches copy-based compaction")
+    void clearFullLinesMatchesNaiveCompaction() {
+        Random rnd = new Random(21L);
+        for (int trial = 0; trial < 500; trial++) {
+            int width = 3 + rnd.nextInt(60), height = 2 + rnd.nextInt(40);
+            int[][] board = new int[height][width];
+            for (int y = 0; y < height; y++) {
+                boolean full = rnd.nextInt(3) == 0;
+                for (int x = 0; x < width; x++) {
+                    board[y][x] = (full || rnd.nextBoolean()) ? 1 + rnd.nextInt(7) : 0;
+                }
+            }
+            int[][] expected = naiveClear(board);
+            int expectedCleared = BoardUtils.countFullLines(board);
+
+            assertEquals(expectedCleared, BoardUtils.clearFullLines(board));
+            assertArrayEquals(expected, board);
+
+            IdentityHashMap<int[], Boolean> seen = new IdentityHashMap<>();
+            for (int[] row : board) assertNull(seen.put(row, Boolean.TRUE), "row array shared");
+        }
+    }
+
+    @Test
+    @DisplayName("Range-limited clear keeps per-row fill counters in sync")
+    void rangeClearKeepsRowFillInSync() {
+        int width = 6, height = 10;
+        int[][] board = new int[height][width];
+        int[] rowFill = new int[height];
+        for (int y = 4; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                if (y % 2 == 0 || x != 2) board[y][x] = 1;
+            }
+        }
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) if (board[y][x] != 0) rowFill[y]++;
+        }
+
+        assertEquals(0, BoardUtils.clearFullLines(board, rowFill, 5, 5));
+        assertEquals(2, BoardUtils.clearFullLines(board, rowFill, 5, 8));
+        assertEquals(1, BoardUtils.clearFullLines(board, rowFill, 0, height - 1));
+        for (int y = 0; y < height; y++) {
+            int filled = 0;
+            for (int x = 0; x < width; x++) if (board[y][x] != 0) filled++;
+            assertEquals(filled, rowFill[y], "row " + y);
+        }
+        assertEquals(0, BoardUtils.countFullLines(board));
+    }
+
+    @Test
+    @DisplayName("GameBoard.load rebuilds fill counters, skyline and lock range from the grid")
+    void loadedGameBoardClearsLikeItsCells() {
+        Random rnd = new Random(9L);
+        int width = 8, height = 16;
+        GameBoard board = new GameBoard(width, height, new PieceGenerator(9L));
+        for (int trial = 0; trial < 50; trial++) {
+            int[][] grid = new int[height][width];
+            for (int y = height / 2; y < height; y++) {
+                for (int x = 0; x < width; x++) {
+                    if (y % 3 == 0 || rnd.nextInt(4) != 0) grid[y][x] = 1 + rnd.nextInt(7);
+                }
+            }
+            board.load(grid);
+            assertEquals(BoardUtils.countFullLines(grid), board.clearFullLines());
+            assertArrayEquals(naiveClear(grid), board.cells());
+            for (int x = 0; x < width; x++) assertEquals(Skyline.of(board.cells()).top(x), board.skyline().top(x));
+
+            // Later locks are cleared from the rebuilt counters
+            while (board.newPiece()) {
+                board.hardDrop();
+                if (board.current() != null && !board.lockCurrent()) break;
+                int full = BoardUtils.countFullLines(board.cells());
+                assertEquals(full, board.clearFullLines());
+            }
+        }
+    }
+
+    private static int[][] naiveClear(int[][] board) {
+        List<int[]> kept = new ArrayList<>();
+        for (int[] row : board) {
+            boolean full = true;
+            for (int cell : row) if (cell == 0) { full = false; break; }
+            if (!full) kept.add(row.clone());
+        }
+        int[][] out = new int[board.length][board[0].length];
+        int offset = board.length - kept.size();
+        for (int i = 0; i < kept.size(); i++) out[offset + i] = kept.get(i);
+        return out;
+    }
+}
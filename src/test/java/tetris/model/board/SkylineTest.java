@@ -0,0 +1,93 @@
+package tetris.model.board;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import tetris.model.tetromino.PieceGenerator;
+import tetris.model.tetromino.PieceShape;
+import tetris.model.tetromino.Tetromino;
+import tetris.model.tetromino.TetrominoType;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Skyline landing rows must match the classic row-by-row drop, and the
+ * incrementally maintained skyline must match a fresh rescan of the board.
+ */
+class SkylineTest {
+
+    @Test
+    @DisplayName("Landing row from column tops equals stepping the piece down")
+    void landingMatchesStepwiseDrop() {
+        Random rnd = new Random(3L);
+        for (int trial = 0; trial < 200; trial++) {
+            int width = 4 + rnd.nextInt(12), height = 4 + rnd.nextInt(30);
+            int[][] board = randomBoardWithOverhangs(rnd, width, height);
+            Skyline skyline = Skyline.of(board);
+
+            for (TetrominoType type : TetrominoType.values()) {
+                for (int rot = 0; rot < 4; rot++) {
+                    PieceShape shape = type.pieceShape(rot);
+                    for (int x = -shape.minCol(); x <= width - 1 - shape.maxCol(); x++) {
+                        Tetromino piece = new Tetromino(type, x, -4);
+                        piece.rot = rot;
+                        while (BoardUtils.canMovePiece(board, piece, 0, 1, rot)) piece.moveBy(0, 1);
+
+                        assertEquals(piece.y(), skyline.landingY(shape, x),
+                                type + " rot=" + rot + " x=" + x);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Maintained skyline and hard drops stay correct through random games")
+    void maintainedSkylineMatchesRescan() {
+        Random rnd = new Random(17L);
+        GameBoard board = new GameBoard(9, 18, new PieceGenerator(17L));
+
+        for (int game = 0; game < 5; game++) {
+            while (board.newPiece()) {
+                Tetromino t = board.current();
+                for (int i = rnd.nextInt(4); i > 0; i--) board.rotateCW();
+                for (int i = rnd.nextInt(6); i > 0; i--) {
+                    if (rnd.nextBoolean()) board.moveLeft(); else board.moveRight();
+                }
+                // Occasionally slide under an overhang before the hard drop
+                for (int i = rnd.nextInt(20); i > 0; i--) board.softDropStep();
+                if (rnd.nextBoolean()) board.moveLeft();
+
+                int expectedY = t.y();
+                while (board.canMove(t, 0, expectedY - t.y() + 1, t.rot)) expectedY++;
+                board.hardDrop();
+                assertEquals(expectedY, t.y());
+
+                if (!board.lockCurrent()) break;
+                board.clearFullLines();
+                assertSkylineEquals(Skyline.of(board.cells()), board.skyline());
+            }
+            board.reset();
+            assertSkylineEquals(Skyline.of(board.cells()), board.skyline());
+        }
+    }
+
+    private static void assertSkylineEquals(Skyline expected, Skyline actual) {
+        for (int x = 0; x < expected.getWidth(); x++) {
+            assertEquals(expected.top(x), actual.top(x), "column " + x);
+        }
+    }
+
+    /** Random stack whose columns contain holes and overhangs. */
+    private static int[][] randomBoardWithOverhangs(Random rnd, int width, int height) {
+        int[][] board = new int[height][width];
+        for (int x = 0; x < width; x++) {
+            int stack = rnd.nextInt(height + 1);
+            for (int y = height - stack; y < height; y++) {
+                board[y][x] = rnd.nextInt(4) == 0 ? 0 : 1 + rnd.nextInt(7);
+            }
+        }
+        return board;
+    }
+}
@@ -0,0 +1,63 @@
+package tetris.model.tetromino;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import tetris.model.board.GameBoard;
+import tetris.model.board.Position;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Allocation checks for piece movement.
+ * Uses the HotSpot per-thread allocation counter, so a drop loop that allocated
+ * a Position per step (roughly 24 bytes x 20 rows) would be caught immediately.
+ */
+class TetrominoAllocationTest {
+
+    private static final int DROPS = 100_000;
+
+    @Test
+    @DisplayName("Hard drops allocate nothing per drop")
+    void hardDropIsAllocationFree() {
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assertTrue(threads.isThreadAllocatedMemorySupported());
+        threads.setThreadAllocatedMemoryEnabled(true);
+
+        GameBoard board = new GameBoard(10, 20, new PieceGenerator(11L));
+        assertTrue(board.newPiece());
+        Tetromino piece = board.current();
+        int spawnX = piece.x(), spawnY = piece.y();
+
+        // Warm up so the measured loop runs compiled code, then measure
+        dropRepeatedly(board, piece, spawnX, spawnY, DROPS);
+        long before = threads.getCurrentThreadAllocatedBytes();
+        int rows = dropRepeatedly(board, piece, spawnX, spawnY, DROPS);
+        long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+
+        assertTrue(rows >= DROPS * 10, "pieces should fall through most of the board");
+        assertEquals(0, allocated / DROPS, "bytes allocated per drop (total " + allocated + ")");
+    }
+
+    @Test
+    @DisplayName("Compatibility pos() accessor mirrors x/y")
+    void posAccessorMatchesCoordinates() {
+        Tetromino t = new Tetromino(TetrominoType.L, 3, -2);
+        t.moveBy(1, 4);
+        assertEquals(new Position(4, 2), t.pos());
+        t.setPos(-1, 7);
+        assertEquals(new Position(-1, 7), t.pos());
+    }
+
+    private static int dropRepeatedly(GameBoard board, Tetromino piece, int x, int y, int drops) {
+        int rows = 0;
+        for (int i = 0; i < drops; i++) {
+            piece.setPos(x, y);
+            board.hardDrop();
+            rows += piece.y() - y;
+        }
+        return rows;
+    }
+}